@@ -18,6 +18,7 @@ package org.apache.qpid.jms;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -28,6 +29,7 @@ import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import javax.jms.Connection;
@@ -104,6 +106,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
     private ExceptionListener exceptionListener;
     private JmsMessageFactory messageFactory;
     private Provider provider;
+    private volatile JmsSendWindow sendWindow;
 
     private final Set<JmsConnectionListener> connectionListeners =
         new CopyOnWriteArraySet<JmsConnectionListener>();
@@ -114,6 +117,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
     private final AtomicLong transactionIdGenerator = new AtomicLong();
 
     private final Map<AsyncResult, AsyncResult> requests = new ConcurrentHashMap<AsyncResult, AsyncResult>();
+    private final AsyncResult deliveredAckRequest = new DeliveredAcknowledgement();
 
     protected JmsConnection(final JmsConnectionInfo connectionInfo, Provider provider) throws JMSException {
 
@@ -204,7 +208,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
                 }
 
                 if (isConnected() && !failed.get()) {
-                    ProviderFuture request = new ProviderFuture();
+                    ProviderFuture request = createProviderFuture(null);
                     requests.put(request, request);
                     try {
                         provider.destroy(connectionInfo, request);
@@ -587,6 +591,10 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         return connectionInfo.isExplicitClientID();
     }
 
+    protected ProviderFuture createProviderFuture(ProviderSynchronization synchronization) {
+        return connectionInfo.getProviderFutureFactory().createFuture(synchronization);
+    }
+
     //----- Provider interface methods ---------------------------------------//
 
     void createResource(JmsResource resource) throws JMSException {
@@ -597,7 +605,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.create(resource, request);
@@ -618,7 +626,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.start(resource, request);
@@ -639,7 +647,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.stop(resource, request);
@@ -660,7 +668,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.destroy(resource, request);
@@ -681,7 +689,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.send(envelope, request);
@@ -694,6 +702,30 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
+    void send(List<JmsOutboundMessageDispatch> envelopes, ProviderSynchronization synchronization) throws JMSException {
+        checkClosedOrFailed();
+
+        try {
+            ProviderFuture request = createProviderFuture(synchronization);
+            BatchSendTracker tracker = new BatchSendTracker(request, envelopes.size());
+
+            List<AsyncResult> results = new ArrayList<AsyncResult>(envelopes.size());
+            for (int i = 0; i < envelopes.size(); ++i) {
+                results.add(tracker.new BatchedSend());
+            }
+
+            requests.put(request, request);
+            try {
+                provider.send(envelopes, results);
+                request.sync();
+            } finally {
+                requests.remove(request);
+            }
+        } catch (Exception ioe) {
+            throw JmsExceptionSupport.create(ioe);
+        }
+    }
+
     void acknowledge(JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
         acknowledge(envelope, ackType, null);
     }
@@ -702,7 +734,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             provider.acknowledge(envelope, ackType, request);
             request.sync();
         } catch (Exception ioe) {
@@ -710,6 +742,27 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         }
     }
 
+    /**
+     * Hands a DELIVERED acknowledgement to the provider without waiting for it to be
+     * processed.  The provider applies requests in the order they are given, so the delivered
+     * state and any credit it frees up are accounted for before any later acknowledge, commit,
+     * recover or close of the consumer is handled.
+     *
+     * @param envelope
+     *        the message dispatch that has been delivered to the application.
+     *
+     * @throws JMSException if the connection is closed or the provider rejects the request.
+     */
+    void acknowledgeDelivered(JmsInboundMessageDispatch envelope) throws JMSException {
+        checkClosedOrFailed();
+
+        try {
+            provider.acknowledge(envelope, ACK_TYPE.DELIVERED, deliveredAckRequest);
+        } catch (Exception ioe) {
+            throw JmsExceptionSupport.create(ioe);
+        }
+    }
+
     void acknowledge(JmsSessionId sessionId, ACK_TYPE ackType) throws JMSException {
         acknowledge(sessionId, ackType, null);
     }
@@ -718,7 +771,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             provider.acknowledge(sessionId, ackType, request);
             request.sync();
         } catch (Exception ioe) {
@@ -734,7 +787,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.unsubscribe(name, request);
@@ -755,7 +808,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.commit(transactionInfo, request);
@@ -776,7 +829,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.rollback(transactionInfo, request);
@@ -797,7 +850,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.recover(sessionId, request);
@@ -818,7 +871,7 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         checkClosedOrFailed();
 
         try {
-            ProviderFuture request = new ProviderFuture(synchronization);
+            ProviderFuture request = createProviderFuture(synchronization);
             requests.put(request, request);
             try {
                 provider.pull(consumerId, timeout, request);
@@ -988,6 +1041,91 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         connectionInfo.setSendTimeout(sendTimeout);
     }
 
+    public int getMaxInFlightMessages() {
+        return connectionInfo.getMaxInFlightMessages();
+    }
+
+    public void setMaxInFlightMessages(int maxInFlightMessages) {
+        connectionInfo.setMaxInFlightMessages(maxInFlightMessages);
+    }
+
+    public long getMaxInFlightBytes() {
+        return connectionInfo.getMaxInFlightBytes();
+    }
+
+    public void setMaxInFlightBytes(long maxInFlightBytes) {
+        connectionInfo.setMaxInFlightBytes(maxInFlightBytes);
+    }
+
+    public int getProducerMaxInFlightMessages() {
+        return connectionInfo.getProducerMaxInFlightMessages();
+    }
+
+    public void setProducerMaxInFlightMessages(int producerMaxInFlightMessages) {
+        connectionInfo.setProducerMaxInFlightMessages(producerMaxInFlightMessages);
+    }
+
+    public long getProducerMaxInFlightBytes() {
+        return connectionInfo.getProducerMaxInFlightBytes();
+    }
+
+    public void setProducerMaxInFlightBytes(long producerMaxInFlightBytes) {
+        connectionInfo.setProducerMaxInFlightBytes(producerMaxInFlightBytes);
+    }
+
+    public boolean isSendWindowFailFast() {
+        return connectionInfo.isSendWindowFailFast();
+    }
+
+    public void setSendWindowFailFast(boolean sendWindowFailFast) {
+        connectionInfo.setSendWindowFailFast(sendWindowFailFast);
+    }
+
+    public String getProviderFutureType() {
+        return connectionInfo.getProviderFutureType();
+    }
+
+    public void setProviderFutureType(String providerFutureType) {
+        connectionInfo.setProviderFutureType(providerFutureType);
+    }
+
+    /**
+     * @return the window tracking asynchronous sends of all producers of this connection,
+     *         or null if no in-flight limits are configured or no producer has used it yet.
+     */
+    public JmsSendWindow getSendWindow() {
+        return sendWindow;
+    }
+
+    /*
+     * Creates the send window for a new producer, or returns null when no in-flight limit
+     * is configured so that sends are not tracked at all.  The connection window is created
+     * on first use as the parent of every producer window.
+     */
+    JmsSendWindow createProducerSendWindow() {
+        if (connectionInfo.getMaxInFlightMessages() <= 0 && connectionInfo.getMaxInFlightBytes() <= 0 &&
+            connectionInfo.getProducerMaxInFlightMessages() <= 0 && connectionInfo.getProducerMaxInFlightBytes() <= 0) {
+            return null;
+        }
+
+        JmsSendWindow parent = sendWindow;
+        if (parent == null) {
+            synchronized (this) {
+                parent = sendWindow;
+                if (parent == null) {
+                    parent = new JmsSendWindow(connectionInfo.getMaxInFlightMessages(),
+                                               connectionInfo.getMaxInFlightBytes(),
+                                               connectionInfo.isSendWindowFailFast());
+                    sendWindow = parent;
+                }
+            }
+        }
+
+        return new JmsSendWindow(parent, connectionInfo.getProducerMaxInFlightMessages(),
+                                 connectionInfo.getProducerMaxInFlightBytes(),
+                                 connectionInfo.isSendWindowFailFast());
+    }
+
     public long getRequestTimeout() {
         return connectionInfo.getRequestTimeout();
     }
@@ -1160,19 +1298,30 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
     public void onConnectionRecovery(Provider provider) throws Exception {
         LOG.debug("Connection {} is starting recovery.", connectionInfo.getId());
 
-        ProviderFuture request = new ProviderFuture();
+        ProviderFuture request = createProviderFuture(null);
         provider.create(connectionInfo, request);
         request.sync();
 
+        // The remaining resources are restored in two pipelined batches, first the temporary
+        // destinations and sessions, then the producers, consumers and transactions of all
+        // sessions.
+        JmsRecoveryBatch batch = new JmsRecoveryBatch(this, provider);
+
         for (JmsTemporaryDestination tempDestination : tempDestinations.values()) {
-            request = new ProviderFuture();
-            provider.create(tempDestination, request);
-            request.sync();
+            batch.create(tempDestination);
         }
 
         for (JmsSession session : sessions.values()) {
-            session.onConnectionRecovery(provider);
+            session.onConnectionRecovery(batch);
         }
+
+        batch.sync();
+
+        for (JmsSession session : sessions.values()) {
+            session.onSessionRecovered(batch);
+        }
+
+        batch.sync();
     }
 
     @Override
@@ -1182,9 +1331,13 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
         setMessageFactory(provider.getMessageFactory());
         connectionInfo.setConnectedURI(provider.getRemoteURI());
 
+        JmsRecoveryBatch batch = new JmsRecoveryBatch(this, provider);
+
         for (JmsSession session : sessions.values()) {
-            session.onConnectionRecovered(provider);
+            session.onConnectionRecovered(batch);
         }
+
+        batch.sync();
     }
 
     @Override
@@ -1423,4 +1576,88 @@ public class JmsConnection implements AutoCloseable, Connection, TopicConnection
             firstFailureError = error;
         }
     }
+
+    //----- Batch send support -----------------------------------------------//
+
+    /*
+     * Completes a single request once every send of a batch has completed, failing it
+     * with the first error reported by any of the sends.
+     */
+    private static final class BatchSendTracker {
+
+        private final AsyncResult request;
+        private final AtomicInteger remaining;
+        private volatile Throwable failure;
+
+        public BatchSendTracker(AsyncResult request, int size) {
+            this.request = request;
+            this.remaining = new AtomicInteger(size);
+        }
+
+        private void sendCompleted() {
+            if (remaining.decrementAndGet() == 0) {
+                if (failure != null) {
+                    request.onFailure(failure);
+                } else {
+                    request.onSuccess();
+                }
+            }
+        }
+
+        private final class BatchedSend implements AsyncResult {
+
+            private final AtomicBoolean complete = new AtomicBoolean();
+
+            @Override
+            public void onFailure(Throwable result) {
+                if (complete.compareAndSet(false, true)) {
+                    if (failure == null) {
+                        failure = result;
+                    }
+                    sendCompleted();
+                }
+            }
+
+            @Override
+            public void onSuccess() {
+                if (complete.compareAndSet(false, true)) {
+                    sendCompleted();
+                }
+            }
+
+            @Override
+            public boolean isComplete() {
+                return complete.get();
+            }
+        }
+    }
+
+    //----- Delivered acknowledgement support --------------------------------//
+
+    /*
+     * Completion of DELIVERED acknowledgements that nobody waits on.  No caller is left to
+     * throw to, so a failure goes to the exception listener unless the connection is already
+     * closed or failed, in which case that has been or will be reported on its own.
+     */
+    private final class DeliveredAcknowledgement implements AsyncResult {
+
+        @Override
+        public void onFailure(Throwable result) {
+            if (isClosed() || isFailed()) {
+                LOG.debug("Delivered acknowledgement failed: {}", result.getMessage());
+            } else {
+                LOG.warn("Delivered acknowledgement failed: {}", result.getMessage());
+                onAsyncException(result);
+            }
+        }
+
+        @Override
+        public void onSuccess() {
+        }
+
+        @Override
+        public boolean isComplete() {
+            return false;
+        }
+    }
 }
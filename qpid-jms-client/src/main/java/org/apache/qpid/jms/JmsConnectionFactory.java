@@ -50,6 +50,7 @@ import org.apache.qpid.jms.policy.JmsPresettlePolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
 import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderFactory;
+import org.apache.qpid.jms.provider.ProviderFutureFactory;
 import org.apache.qpid.jms.util.IdGenerator;
 import org.apache.qpid.jms.util.PropertyUtil;
 import org.apache.qpid.jms.util.URISupport;
@@ -93,6 +94,12 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
     private long requestTimeout = JmsConnectionInfo.DEFAULT_REQUEST_TIMEOUT;
     private long closeTimeout = JmsConnectionInfo.DEFAULT_CLOSE_TIMEOUT;
     private long connectTimeout = JmsConnectionInfo.DEFAULT_CONNECT_TIMEOUT;
+    private int maxInFlightMessages;
+    private long maxInFlightBytes;
+    private int producerMaxInFlightMessages;
+    private long producerMaxInFlightBytes;
+    private boolean sendWindowFailFast;
+    private String providerFutureType = ProviderFutureFactory.CONSERVATIVE.name();
     private IdGenerator clientIdGenerator;
     private String clientIDPrefix;
     private IdGenerator connectionIdGenerator;
@@ -590,6 +597,102 @@ public class JmsConnectionFactory extends JNDIStorable implements ConnectionFact
         this.sendTimeout = sendTimeout;
     }
 
+    public int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous sends across all producers of a Connection
+     * that may be awaiting settlement before further sends block, or fail if the send
+     * window is set to fail fast.  A value of zero or less means no limit.
+     *
+     * @param maxInFlightMessages
+     *        the maximum number of unsettled asynchronous sends per connection.
+     */
+    public void setMaxInFlightMessages(int maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    /**
+     * Sets the maximum number of encoded bytes of asynchronous sends across all producers
+     * of a Connection that may be awaiting settlement.  A value of zero or less means no limit.
+     *
+     * @param maxInFlightBytes
+     *        the maximum number of unsettled asynchronous send bytes per connection.
+     */
+    public void setMaxInFlightBytes(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public int getProducerMaxInFlightMessages() {
+        return producerMaxInFlightMessages;
+    }
+
+    /**
+     * Sets the maximum number of asynchronous sends of a single producer that may be
+     * awaiting settlement.  A value of zero or less means no limit.
+     *
+     * @param producerMaxInFlightMessages
+     *        the maximum number of unsettled asynchronous sends per producer.
+     */
+    public void setProducerMaxInFlightMessages(int producerMaxInFlightMessages) {
+        this.producerMaxInFlightMessages = producerMaxInFlightMessages;
+    }
+
+    public long getProducerMaxInFlightBytes() {
+        return producerMaxInFlightBytes;
+    }
+
+    /**
+     * Sets the maximum number of encoded bytes of asynchronous sends of a single producer
+     * that may be awaiting settlement.  A value of zero or less means no limit.
+     *
+     * @param producerMaxInFlightBytes
+     *        the maximum number of unsettled asynchronous send bytes per producer.
+     */
+    public void setProducerMaxInFlightBytes(long producerMaxInFlightBytes) {
+        this.producerMaxInFlightBytes = producerMaxInFlightBytes;
+    }
+
+    public boolean isSendWindowFailFast() {
+        return sendWindowFailFast;
+    }
+
+    /**
+     * Controls whether an asynchronous send that would exceed one of the in-flight limits
+     * fails with a ResourceAllocationException instead of blocking until earlier sends
+     * have been settled.
+     *
+     * @param sendWindowFailFast
+     *        true if sends should fail instead of blocking when the send window is full.
+     */
+    public void setSendWindowFailFast(boolean sendWindowFailFast) {
+        this.sendWindowFailFast = sendWindowFailFast;
+    }
+
+    public String getProviderFutureType() {
+        return providerFutureType;
+    }
+
+    /**
+     * Sets how a thread waits for the response to a synchronous operation such as a send,
+     * acknowledge or commit.  The type CONSERVATIVE, the default, parks the thread right away,
+     * BALANCED spins and yields briefly before parking and AGGRESSIVE spins and yields for
+     * much longer, trading CPU time for lower latency.
+     *
+     * @param providerFutureType
+     *        the name of the wait strategy, one of CONSERVATIVE, BALANCED or AGGRESSIVE.
+     *
+     * @throws IllegalArgumentException if the given type is unknown.
+     */
+    public void setProviderFutureType(String providerFutureType) {
+        this.providerFutureType = ProviderFutureFactory.create(providerFutureType).name();
+    }
+
     public long getRequestTimeout() {
         return requestTimeout;
     }
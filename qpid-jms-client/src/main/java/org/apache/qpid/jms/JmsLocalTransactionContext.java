@@ -17,6 +17,7 @@
 package org.apache.qpid.jms;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -28,9 +29,7 @@ import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsResourceId;
 import org.apache.qpid.jms.meta.JmsTransactionId;
 import org.apache.qpid.jms.meta.JmsTransactionInfo;
-import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
-import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.provider.ProviderSynchronization;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -60,6 +59,8 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         lock.readLock().lock();
         try {
             if (isInDoubt()) {
+                envelope.releaseSendWindow();
+                envelope.releasePayload();
                 return;
             }
 
@@ -83,10 +84,52 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
         }
     }
 
+    @Override
+    public void send(JmsConnection connection, final List<JmsOutboundMessageDispatch> envelopes) throws JMSException {
+        lock.readLock().lock();
+        try {
+            if (isInDoubt()) {
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    envelope.releaseSendWindow();
+                    envelope.releasePayload();
+                }
+                return;
+            }
+
+            // All messages in a batch come from the same producer so it is the only participant.
+            connection.send(envelopes, new ProviderSynchronization() {
+
+                @Override
+                public void onPendingSuccess() {
+                    LOG.trace("TX:{} has performed a batch send.", getTransactionId());
+                    participants.put(envelopes.get(0).getProducerId(), envelopes.get(0).getProducerId());
+                }
+
+                @Override
+                public void onPendingFailure(Throwable cause) {
+                    LOG.trace("TX:{} has a failed batch send.", getTransactionId());
+                    participants.put(envelopes.get(0).getProducerId(), envelopes.get(0).getProducerId());
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
     @Override
     public void acknowledge(JmsConnection connection, final JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
         // Consumed or delivered messages fall into a transaction otherwise just pass it in.
-        if (ackType == ACK_TYPE.ACCEPTED || ackType == ACK_TYPE.DELIVERED) {
+        if (ackType == ACK_TYPE.DELIVERED) {
+            lock.readLock().lock();
+            try {
+                // The consumer participates whatever the outcome, so there is no need
+                // to wait for the provider to account for the delivery.
+                participants.put(envelope.getConsumerId(), envelope.getConsumerId());
+                connection.acknowledgeDelivered(envelope);
+            } finally {
+                lock.readLock().unlock();
+            }
+        } else if (ackType == ACK_TYPE.ACCEPTED) {
             lock.readLock().lock();
             try {
                 connection.acknowledge(envelope, ackType, new ProviderSynchronization() {
@@ -265,7 +308,7 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
     }
 
     @Override
-    public void onConnectionRecovery(Provider provider) throws Exception {
+    public void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception {
         // If we get the lock then no TX commit / rollback / begin is in progress
         // otherwise one is and we can only assume that it should fail given the
         // connection was dropped.
@@ -274,9 +317,13 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
                 // If we got the lock then there is no pending commit / rollback / begin so
                 // we can safely create a new transaction, if there is work pending on the
                 // current transaction we must mark it as in-doubt so that a commit attempt
-                // will then roll it back.
-                transactionInfo = getNextTransactionInfo();
-                ProviderFuture request = new ProviderFuture(new ProviderSynchronization() {
+                // will then roll it back.  The state is marked before the lock is released
+                // since the create only completes once the whole recovery batch does.
+                final JmsTransactionInfo transactionInfo = getNextTransactionInfo();
+                transactionInfo.setInDoubt(!participants.isEmpty());
+                this.transactionInfo = transactionInfo;
+
+                batch.create(transactionInfo, new ProviderSynchronization() {
 
                     @Override
                     public void onPendingSuccess() {
@@ -288,8 +335,6 @@ public class JmsLocalTransactionContext implements JmsTransactionContext {
                         transactionInfo.setInDoubt(true);
                     }
                 });
-                provider.create(transactionInfo, request);
-                request.sync();
             } finally {
                 lock.writeLock().unlock();
             }
@@ -38,12 +38,11 @@ import org.apache.qpid.jms.meta.JmsResource.ResourceState;
 import org.apache.qpid.jms.policy.JmsDeserializationPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
-import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
-import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.util.FifoMessageQueue;
 import org.apache.qpid.jms.util.MessageQueue;
 import org.apache.qpid.jms.util.PriorityMessageQueue;
+import org.apache.qpid.jms.util.RingMessageQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,13 +82,16 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
             connection.checkConsumeFromTemporaryDestination((JmsTemporaryDestination) destination);
         }
 
+        JmsPrefetchPolicy prefetchPolicy = session.getPrefetchPolicy();
+
         if (connection.isLocalMessagePriority()) {
             this.messageQueue = new PriorityMessageQueue();
+        } else if (prefetchPolicy.useRingMessageQueue(session, destination)) {
+            this.messageQueue = new RingMessageQueue(
+                prefetchPolicy.getConfiguredPrefetch(session, destination, isDurableSubscription(), isBrowser()));
         } else {
             this.messageQueue = new FifoMessageQueue();
         }
-
-        JmsPrefetchPolicy prefetchPolicy = session.getPrefetchPolicy();
         JmsRedeliveryPolicy redeliveryPolicy = session.getRedeliveryPolicy().copy();
         JmsDeserializationPolicy deserializationPolicy = session.getDeserializationPolicy().copy();
 
@@ -105,6 +107,7 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         consumerInfo.setBrowser(isBrowser());
         consumerInfo.setPrefetchSize(
             prefetchPolicy.getConfiguredPrefetch(session, destination, isDurableSubscription(), isBrowser()));
+        consumerInfo.setCreditRefillThreshold(prefetchPolicy.getCreditRefillThreshold(session, destination));
         consumerInfo.setRedeliveryPolicy(redeliveryPolicy);
         consumerInfo.setLocalMessageExpiry(connection.isLocalMessageExpiry());
         consumerInfo.setPresettle(session.getPresettlePolicy().isConsumerPresttled(session, destination));
@@ -645,19 +648,15 @@ public class JmsMessageConsumer implements AutoCloseable, MessageConsumer, JmsMe
         messageQueue.clear();
     }
 
-    protected void onConnectionRecovery(Provider provider) throws Exception {
+    protected void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception {
         if (consumerInfo.isOpen()) {
-            ProviderFuture request = new ProviderFuture();
-            provider.create(consumerInfo, request);
-            request.sync();
+            batch.create(consumerInfo);
         }
     }
 
-    protected void onConnectionRecovered(Provider provider) throws Exception {
+    protected void onConnectionRecovered(JmsRecoveryBatch batch) throws Exception {
         if (consumerInfo.isOpen()) {
-            ProviderFuture request = new ProviderFuture();
-            provider.start(consumerInfo, request);
-            request.sync();
+            batch.start(consumerInfo);
         }
     }
 
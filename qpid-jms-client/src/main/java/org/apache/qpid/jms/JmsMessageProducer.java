@@ -16,6 +16,7 @@
  */
 package org.apache.qpid.jms;
 
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
@@ -33,8 +34,6 @@ import org.apache.qpid.jms.message.JmsMessageIDBuilder;
 import org.apache.qpid.jms.meta.JmsProducerId;
 import org.apache.qpid.jms.meta.JmsProducerInfo;
 import org.apache.qpid.jms.meta.JmsResource.ResourceState;
-import org.apache.qpid.jms.provider.Provider;
-import org.apache.qpid.jms.provider.ProviderFuture;
 
 /**
  * Implementation of a JMS MessageProducer
@@ -54,11 +53,13 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
     protected boolean disableTimestamp;
     protected final AtomicLong messageSequence = new AtomicLong();
     protected final AtomicReference<Throwable> failureCause = new AtomicReference<>();
+    protected final JmsSendWindow sendWindow;
 
     protected JmsMessageProducer(JmsProducerId producerId, JmsSession session, JmsDestination destination) throws JMSException {
         this.session = session;
         this.connection = session.getConnection();
         this.anonymousProducer = destination == null;
+        this.sendWindow = connection.createProducerSendWindow();
 
         JmsMessageIDBuilder messageIDBuilder =
             session.getMessageIDPolicy().getMessageIDBuilder(session, destination);
@@ -111,6 +112,10 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
             producerInfo.setState(ResourceState.CLOSED);
             failureCause.set(cause);
             session.remove(this);
+
+            if (sendWindow != null) {
+                sendWindow.close();
+            }
         }
     }
 
@@ -232,6 +237,60 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
         sendMessage(destination, message, deliveryMode, priority, timeToLive, listener);
     }
 
+    /**
+     * Sends a batch of messages to the Destination of this producer as a single operation
+     * using the producer's current delivery mode, priority and time to live.  The messages
+     * are handed to the provider together and written with a single flush, the call then
+     * completes as a plain send of each message would, waiting for all of them to be settled
+     * if the sends are synchronous.
+     *
+     * When the producer has a send window, space for the whole batch is taken before any
+     * message is sent, so a batch that cannot get into the window fails without sending any
+     * of its messages.  If a send in the batch fails once handed to the provider the error is
+     * thrown once all the sends have completed, other messages in the batch may still have
+     * been sent.  If the connection fails over
+     * before a message is settled it is resent in the same way as a single send would be.
+     *
+     * @param messages
+     *        the messages to send, in order.
+     *
+     * @throws JMSException if an error occurs while sending the messages.
+     */
+    public void send(List<? extends Message> messages) throws JMSException {
+        checkClosed();
+
+        if (anonymousProducer) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created without an explicit Destination");
+        }
+
+        sendMessages(producerInfo.getDestination(), messages);
+    }
+
+    /**
+     * Sends a batch of messages to the given Destination as a single operation, for use
+     * with producers created without a Destination.
+     *
+     * @param destination
+     *        the Destination to send the messages to.
+     * @param messages
+     *        the messages to send, in order.
+     *
+     * @throws JMSException if an error occurs while sending the messages.
+     *
+     * @see #send(List)
+     */
+    public void send(Destination destination, List<? extends Message> messages) throws JMSException {
+        checkClosed();
+
+        checkDestinationNotInvalid(destination);
+
+        if (!anonymousProducer) {
+            throw new UnsupportedOperationException("Using this method is not supported on producers created with an explicit Destination.");
+        }
+
+        sendMessages(destination, messages);
+    }
+
     private void checkDestinationNotInvalid(Destination destination) throws InvalidDestinationException {
         if (destination == null) {
             throw new InvalidDestinationException("Destination must not be null");
@@ -242,6 +301,10 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
         this.session.send(this, destination, message, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay, listener);
     }
 
+    void sendMessages(Destination destination, List<? extends Message> messages) throws JMSException {
+        this.session.send(this, destination, messages, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay);
+    }
+
     @Override
     public void setDeliveryDelay(long deliveryDelay) throws JMSException {
         checkClosed();
@@ -327,6 +390,14 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
         return anonymousProducer;
     }
 
+    /**
+     * @return the window bounding the asynchronous sends of this producer, or null if
+     *         the connection has no in-flight limits configured.
+     */
+    public JmsSendWindow getSendWindow() {
+        return sendWindow;
+    }
+
     protected JmsMessageIDBuilder getMessageIDBuilder() {
         return producerInfo.getMessageIDBuilder();
     }
@@ -348,17 +419,20 @@ public class JmsMessageProducer implements AutoCloseable, MessageProducer {
     ////////////////////////////////////////////////////////////////////////////
 
     protected void onConnectionInterrupted() {
+        // Sends in flight at the time of the interruption are either recovered or failed
+        // by the connection, start over so that blocked senders are not held by them.
+        if (sendWindow != null) {
+            sendWindow.reset();
+        }
     }
 
-    protected void onConnectionRecovery(Provider provider) throws Exception {
+    protected void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception {
         if (producerInfo.isOpen()) {
-            ProviderFuture request = new ProviderFuture();
-            provider.create(producerInfo, request);
-            request.sync();
+            batch.create(producerInfo);
         }
     }
 
-    protected void onConnectionRecovered(Provider provider) throws Exception {
+    protected void onConnectionRecovered(JmsRecoveryBatch batch) throws Exception {
     }
 
     protected void onConnectionRestored() {
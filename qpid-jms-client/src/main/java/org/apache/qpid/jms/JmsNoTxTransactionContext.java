@@ -16,13 +16,14 @@
  */
 package org.apache.qpid.jms;
 
+import java.util.List;
+
 import javax.jms.JMSException;
 
 import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
 import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsResourceId;
 import org.apache.qpid.jms.meta.JmsTransactionId;
-import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
 
 /**
@@ -36,9 +37,18 @@ public class JmsNoTxTransactionContext implements JmsTransactionContext {
         connection.send(envelope);
     }
 
+    @Override
+    public void send(JmsConnection connection, List<JmsOutboundMessageDispatch> envelopes) throws JMSException {
+        connection.send(envelopes, null);
+    }
+
     @Override
     public void acknowledge(JmsConnection connection, JmsInboundMessageDispatch envelope, ACK_TYPE ackType) throws JMSException {
-        connection.acknowledge(envelope, ackType);
+        if (ackType == ACK_TYPE.DELIVERED) {
+            connection.acknowledgeDelivered(envelope);
+        } else {
+            connection.acknowledge(envelope, ackType);
+        }
     }
 
     @Override
@@ -91,6 +101,6 @@ public class JmsNoTxTransactionContext implements JmsTransactionContext {
     }
 
     @Override
-    public void onConnectionRecovery(Provider provider) throws Exception {
+    public void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception {
     }
 }
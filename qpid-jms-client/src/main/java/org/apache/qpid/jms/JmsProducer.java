@@ -23,6 +23,7 @@ import static org.apache.qpid.jms.message.JmsMessagePropertySupport.convertPrope
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -149,8 +150,53 @@ public class JmsProducer implements JMSProducer {
         return this;
     }
 
+    /**
+     * Sends a batch of messages to the given Destination as a single operation, applying the
+     * properties and headers configured on this producer to each message.  When a completion
+     * listener has been set the messages are sent one at a time so that each is reported to it.
+     * <p>
+     * This is not an overload of send as a List that is also Serializable would make calls to
+     * it ambiguous with {@link #send(Destination, java.io.Serializable)}.
+     *
+     * @param destination
+     *        the Destination to send the messages to.
+     * @param messages
+     *        the messages to send, in order.
+     *
+     * @return this producer instance.
+     *
+     * @see JmsMessageProducer#send(List)
+     */
+    public JMSProducer sendBatch(Destination destination, List<? extends Message> messages) {
+        try {
+            if (messages == null) {
+                throw new MessageFormatException("Message list must not be null");
+            }
+
+            if (completionListener != null) {
+                for (Message message : messages) {
+                    doSend(destination, message);
+                }
+            } else {
+                for (Message message : messages) {
+                    applyMessageHeaders(message);
+                }
+
+                session.send(producer, destination, messages, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay);
+            }
+        } catch (JMSException jmse) {
+            throw JmsExceptionSupport.createRuntimeException(jmse);
+        }
+
+        return this;
+    }
+
     private void doSend(Destination destination, Message message) throws JMSException {
+        applyMessageHeaders(message);
+        session.send(producer, destination, message, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay, completionListener);
+    }
 
+    private void applyMessageHeaders(Message message) throws JMSException {
         if (message == null) {
             throw new MessageFormatException("Message must not be null");
         }
@@ -171,8 +217,6 @@ public class JmsProducer implements JMSProducer {
         if (replyTo != null) {
             message.setJMSReplyTo(replyTo);
         }
-
-        session.send(producer, destination, message, deliveryMode, priority, timeToLive, disableMessageId, disableTimestamp, deliveryDelay, completionListener);
     }
 
     //----- Message Property Methods -----------------------------------------//
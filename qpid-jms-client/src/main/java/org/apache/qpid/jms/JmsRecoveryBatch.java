@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.qpid.jms.meta.JmsResource;
+import org.apache.qpid.jms.provider.Provider;
+import org.apache.qpid.jms.provider.ProviderFuture;
+import org.apache.qpid.jms.provider.ProviderSynchronization;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Issues the requests that restore resources on a recovered connection without waiting
+ * for each one, so that the provider can pipeline them, and then waits for all of them.
+ * <p>
+ * The outcome of every request is collected before {@link #sync()} returns, each resource
+ * that could not be restored is logged and the first failure is then thrown so that the
+ * recovery attempt fails as a whole.
+ */
+public final class JmsRecoveryBatch {
+
+    private static final Logger LOG = LoggerFactory.getLogger(JmsRecoveryBatch.class);
+
+    private final JmsConnection connection;
+    private final Provider provider;
+    private final Map<JmsResource, ProviderFuture> requests = new LinkedHashMap<JmsResource, ProviderFuture>();
+
+    public JmsRecoveryBatch(JmsConnection connection, Provider provider) {
+        this.connection = connection;
+        this.provider = provider;
+    }
+
+    /**
+     * Requests that the given resource be created on the recovered connection.
+     *
+     * @param resource
+     *        the resource to create.
+     *
+     * @throws Exception if the provider rejects the request.
+     */
+    public void create(JmsResource resource) throws Exception {
+        create(resource, null);
+    }
+
+    /**
+     * Requests that the given resource be created on the recovered connection and notifies
+     * the given synchronization of the outcome before the request completes.
+     *
+     * @param resource
+     *        the resource to create.
+     * @param synchronization
+     *        the synchronization to notify of the outcome, or null if none is needed.
+     *
+     * @throws Exception if the provider rejects the request.
+     */
+    public void create(JmsResource resource, ProviderSynchronization synchronization) throws Exception {
+        ProviderFuture request = connection.createProviderFuture(synchronization);
+        provider.create(resource, request);
+        requests.put(resource, request);
+    }
+
+    /**
+     * Requests that the given resource be started on the recovered connection.
+     *
+     * @param resource
+     *        the resource to start.
+     *
+     * @throws Exception if the provider rejects the request.
+     */
+    public void start(JmsResource resource) throws Exception {
+        ProviderFuture request = connection.createProviderFuture(null);
+        provider.start(resource, request);
+        requests.put(resource, request);
+    }
+
+    /**
+     * Waits for every request issued since the last call to complete.
+     *
+     * @throws IOException the first failure if any of the requests failed.
+     */
+    public void sync() throws IOException {
+        IOException failure = null;
+
+        try {
+            for (Map.Entry<JmsResource, ProviderFuture> entry : requests.entrySet()) {
+                try {
+                    entry.getValue().sync();
+                } catch (IOException error) {
+                    LOG.warn("Failed to recover resource {}: {}", entry.getKey(), error.getMessage());
+                    if (failure == null) {
+                        failure = error;
+                    }
+                }
+            }
+        } finally {
+            requests.clear();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.IllegalStateException;
+import javax.jms.JMSException;
+import javax.jms.ResourceAllocationException;
+
+import org.apache.qpid.jms.exceptions.JmsExceptionSupport;
+
+/**
+ * Bounds the number of messages and bytes of asynchronous sends that are written but not
+ * yet settled by the remote.
+ * <p>
+ * Each producer that is subject to a limit has its own window whose parent is the window of
+ * its connection, capacity taken from a producer window is also taken from the connection
+ * window so that both limits apply.  All windows of a connection share the lock of the
+ * connection window.  A send that would exceed either limit blocks until settlements free
+ * up capacity, or fails with a {@link ResourceAllocationException} if the window is set to
+ * fail fast.  A single message larger than the byte limit, or a batch larger than either
+ * limit, is allowed when nothing else is in flight so that it cannot block forever.
+ * <p>
+ * Capacity is returned using the epoch that was current when it was taken, resetting a
+ * window on connection interruption starts a new epoch so that late settlements of sends
+ * that were already written off are ignored.
+ */
+public final class JmsSendWindow {
+
+    private final JmsSendWindow parent;
+    private final Object lock;
+    private final int maxInFlightMessages;
+    private final long maxInFlightBytes;
+    private final boolean failFast;
+
+    private int inFlightMessages;
+    private long inFlightBytes;
+    private long epoch;
+    private boolean closed;
+
+    private long blockedSendCount;
+    private long rejectedSendCount;
+
+    /**
+     * Creates a new window with no parent.
+     *
+     * @param maxInFlightMessages
+     *      the maximum number of unsettled sends, zero or less for no limit.
+     * @param maxInFlightBytes
+     *      the maximum number of encoded bytes of unsettled sends, zero or less for no limit.
+     * @param failFast
+     *      true if a send that does not fit should fail instead of blocking.
+     */
+    public JmsSendWindow(int maxInFlightMessages, long maxInFlightBytes, boolean failFast) {
+        this(null, maxInFlightMessages, maxInFlightBytes, failFast);
+    }
+
+    /**
+     * Creates a new window whose usage is also counted against the given parent.
+     *
+     * @param parent
+     *      the parent window or null if there is none.
+     * @param maxInFlightMessages
+     *      the maximum number of unsettled sends, zero or less for no limit.
+     * @param maxInFlightBytes
+     *      the maximum number of encoded bytes of unsettled sends, zero or less for no limit.
+     * @param failFast
+     *      true if a send that does not fit should fail instead of blocking.
+     */
+    public JmsSendWindow(JmsSendWindow parent, int maxInFlightMessages, long maxInFlightBytes, boolean failFast) {
+        this.parent = parent;
+        this.lock = parent != null ? parent.lock : new Object();
+        this.maxInFlightMessages = maxInFlightMessages;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.failFast = failFast;
+    }
+
+    /**
+     * Takes capacity for one message of the given size, waiting for it to become available
+     * unless the window fails fast.
+     *
+     * @param size
+     *      the encoded size of the message.
+     * @param timeout
+     *      the time in milliseconds to wait for capacity, zero or less to wait without limit.
+     *
+     * @return the epoch that the capacity must be released against.
+     *
+     * @throws JMSException if capacity could not be acquired.
+     */
+    public long acquire(int size, long timeout) throws JMSException {
+        return acquire(1, size, timeout);
+    }
+
+    /**
+     * Takes capacity for a batch of messages as a whole, waiting for all of it to become
+     * available unless the window fails fast.  Either all of the capacity is taken or none
+     * of it is, each message of the batch is later released on its own using its size and
+     * the returned epoch.  As with a single message, a batch that exceeds the limits of the
+     * window is allowed when nothing else is in flight.
+     *
+     * @param messages
+     *      the number of messages in the batch.
+     * @param size
+     *      the combined encoded size of the messages in the batch.
+     * @param timeout
+     *      the time in milliseconds to wait for capacity, zero or less to wait without limit.
+     *
+     * @return the epoch that the capacity must be released against.
+     *
+     * @throws JMSException if capacity could not be acquired.
+     */
+    public long acquire(int messages, long size, long timeout) throws JMSException {
+        synchronized (lock) {
+            checkClosed();
+
+            if (!hasCapacity(messages, size)) {
+                if (failFast) {
+                    rejectedSendCount++;
+                    throw new ResourceAllocationException(
+                        "Send window is full: " + inFlightMessages + " messages and " + inFlightBytes + " bytes in flight");
+                }
+
+                blockedSendCount++;
+
+                long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+                try {
+                    while (!hasCapacity(messages, size)) {
+                        checkClosed();
+
+                        if (timeout > 0) {
+                            long remaining = deadline - System.nanoTime();
+                            if (remaining <= 0) {
+                                throw new JmsSendTimedOutException("Timed out waiting for space in the send window");
+                            }
+                            TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                        } else {
+                            lock.wait();
+                        }
+                    }
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw JmsExceptionSupport.create(ie);
+                }
+            }
+
+            checkClosed();
+
+            return take(messages, size);
+        }
+    }
+
+    /**
+     * Returns the capacity of a settled or failed send, ignored if the window has been reset
+     * since the capacity was taken.
+     *
+     * @param size
+     *      the size that was given when the capacity was acquired.
+     * @param epoch
+     *      the epoch returned when the capacity was acquired.
+     */
+    public void release(int size, long epoch) {
+        synchronized (lock) {
+            if (epoch == this.epoch) {
+                JmsSendWindow window = this;
+                while (window != null) {
+                    window.inFlightMessages--;
+                    window.inFlightBytes -= size;
+                    window = window.parent;
+                }
+
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Drops all capacity held in this window, returning it to the parent, and wakes any
+     * blocked senders.
+     */
+    public void reset() {
+        synchronized (lock) {
+            JmsSendWindow window = parent;
+            while (window != null) {
+                window.inFlightMessages -= inFlightMessages;
+                window.inFlightBytes -= inFlightBytes;
+                window = window.parent;
+            }
+
+            inFlightMessages = 0;
+            inFlightBytes = 0;
+            epoch++;
+
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Resets the window and fails any current or future attempt to acquire capacity.
+     */
+    public void close() {
+        synchronized (lock) {
+            closed = true;
+            reset();
+        }
+    }
+
+    /**
+     * @return the number of sends currently holding capacity in this window.
+     */
+    public int getInFlightMessages() {
+        synchronized (lock) {
+            return inFlightMessages;
+        }
+    }
+
+    /**
+     * @return the number of encoded bytes currently held in this window.
+     */
+    public long getInFlightBytes() {
+        synchronized (lock) {
+            return inFlightBytes;
+        }
+    }
+
+    /**
+     * @return the configured limit on in-flight messages, zero or less if there is none.
+     */
+    public int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    /**
+     * @return the configured limit on in-flight bytes, zero or less if there is none.
+     */
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    /**
+     * @return true if sends that do not fit fail instead of blocking.
+     */
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    /**
+     * @return the number of sends that had to wait for capacity in this window.
+     */
+    public long getBlockedSendCount() {
+        synchronized (lock) {
+            return blockedSendCount;
+        }
+    }
+
+    /**
+     * @return the number of sends that failed fast because this window was full.
+     */
+    public long getRejectedSendCount() {
+        synchronized (lock) {
+            return rejectedSendCount;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "JmsSendWindow { messages = " + getInFlightMessages() + "/" + maxInFlightMessages +
+               ", bytes = " + getInFlightBytes() + "/" + maxInFlightBytes + " }";
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    private long take(int messages, long size) {
+        JmsSendWindow window = this;
+        while (window != null) {
+            window.inFlightMessages += messages;
+            window.inFlightBytes += size;
+            window = window.parent;
+        }
+
+        return epoch;
+    }
+
+    private boolean hasCapacity(int messages, long size) {
+        JmsSendWindow window = this;
+        while (window != null) {
+            if (window.maxInFlightMessages > 0 && window.inFlightMessages > 0 &&
+                window.inFlightMessages + messages > window.maxInFlightMessages) {
+                return false;
+            }
+
+            if (window.maxInFlightBytes > 0 && window.inFlightBytes > 0 && window.inFlightBytes + size > window.maxInFlightBytes) {
+                return false;
+            }
+
+            window = window.parent;
+        }
+
+        return true;
+    }
+
+    private void checkClosed() throws IllegalStateException {
+        JmsSendWindow window = this;
+        while (window != null && !window.closed) {
+            window = window.parent;
+        }
+
+        if (window != null) {
+            throw new IllegalStateException("The send window is closed");
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
@@ -82,14 +83,14 @@ import org.apache.qpid.jms.policy.JmsMessageIDPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsPresettlePolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
-import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
-import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.selector.SelectorParser;
 import org.apache.qpid.jms.selector.filter.FilterException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.netty.buffer.ByteBuf;
+
 /**
  * JMS Session implementation
  */
@@ -750,103 +751,51 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         send(producer, destination, msg, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay, listener);
     }
 
-    private void send(JmsMessageProducer producer, JmsDestination destination, Message original, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay, CompletionListener listener) throws JMSException {
-        sendLock.lock();
-        try {
-            original.setJMSDeliveryMode(deliveryMode);
-            original.setJMSPriority(priority);
-            original.setJMSRedelivered(false);
-            original.setJMSDestination(destination);
-
-            long timeStamp = System.currentTimeMillis();
-            boolean hasTTL = timeToLive > Message.DEFAULT_TIME_TO_LIVE;
-            boolean hasDelay = deliveryDelay > Message.DEFAULT_DELIVERY_DELAY;
-
-            boolean isJmsMessage = original instanceof JmsMessage;
-
-            if (!disableTimestamp) {
-                original.setJMSTimestamp(timeStamp);
-            } else {
-                original.setJMSTimestamp(0);
-            }
-
-            if (hasTTL) {
-                original.setJMSExpiration(timeStamp + timeToLive);
-            } else {
-                original.setJMSExpiration(0);
-            }
-
-            long messageSequence = producer.getNextMessageSequence();
-            Object messageId = null;
-            if (!disableMsgId) {
-                messageId = producer.getMessageIDBuilder().createMessageID(producer.getProducerId().toString(), messageSequence);
-            }
-
-            JmsMessage outbound = null;
-            if (isJmsMessage) {
-                outbound = (JmsMessage) original;
-            } else {
-                // Transform and assign the Destination as one of our own destination objects.
-                outbound = JmsMessageTransformation.transformMessage(connection, original);
-                outbound.setJMSDestination(destination);
-            }
-
-            // Set the delivery time. Purposefully avoided doing this earlier so
-            // that we use the 'outbound' JmsMessage object reference when
-            // updating our own message instances, avoids using the interface
-            // in case the JMS 1.1 Message API is actually being used due to
-            // being on the classpath too.
-            long deliveryTime = 0;
-            if (hasDelay) {
-                deliveryTime = timeStamp + deliveryDelay;
-            }
+    protected void send(JmsMessageProducer producer, Destination dest, List<? extends Message> messages, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay) throws JMSException {
+        if (dest == null) {
+            throw new InvalidDestinationException("Destination must not be null");
+        }
 
-            outbound.setJMSDeliveryTime(deliveryTime);
-            if(!isJmsMessage) {
-                // If the original was a foreign message, we still need to update it too.
-                setForeignMessageDeliveryTime(original, deliveryTime);
-            }
+        if (messages == null) {
+            throw new MessageFormatException("Message list must not be null");
+        }
 
-            // Set the message ID
-            outbound.getFacade().setProviderMessageIdObject(messageId);
-            if (!isJmsMessage) {
-                // If the original was a foreign message, we still need to update it
-                // with the properly encoded Message ID String, get it from the one
-                // we transformed from now that it is set.
-                original.setJMSMessageID(outbound.getJMSMessageID());
+        for (Message message : messages) {
+            if (message == null) {
+                throw new MessageFormatException("Message must not be null");
             }
+        }
 
-            // If configured set the User ID using the value we have encoded and cached,
-            // otherwise clear to prevent caller from spoofing the user ID value.
-            if (connection.isPopulateJMSXUserID()) {
-                outbound.getFacade().setUserIdBytes(connection.getEncodedUsername());
-            } else {
-                outbound.getFacade().setUserId(null);
-            }
+        if (messages.isEmpty()) {
+            return;
+        }
 
-            boolean sync = connection.isForceSyncSend() ||
-                           (!connection.isForceAsyncSend() && deliveryMode == DeliveryMode.PERSISTENT && !getTransacted());
+        JmsDestination destination = JmsMessageTransformation.transformDestination(connection, dest);
 
-            outbound.onSend(timeToLive);
+        if (destination.isTemporary() && ((JmsTemporaryDestination) destination).isDeleted()) {
+            throw new IllegalStateException("Temporary destination has been deleted");
+        }
 
-            JmsOutboundMessageDispatch envelope = new JmsOutboundMessageDispatch();
-            envelope.setMessage(outbound);
-            envelope.setPayload(outbound.getFacade().encodeMessage());
-            envelope.setProducerId(producer.getProducerId());
-            envelope.setDestination(destination);
-            envelope.setSendAsync(listener == null ? !sync : true);
-            envelope.setDispatchId(messageSequence);
-            envelope.setCompletionRequired(listener != null);
+        send(producer, destination, messages, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay);
+    }
 
-            if (producer.isAnonymous()) {
-                envelope.setPresettle(getPresettlePolicy().isProducerPresttled(this, destination));
-            } else {
-                envelope.setPresettle(producer.isPresettled());
-            }
+    private void send(JmsMessageProducer producer, JmsDestination destination, Message original, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay, CompletionListener listener) throws JMSException {
+        // The message is stamped and encoded before taking the send lock so that threads sharing
+        // this session only contend on the dispatch to the provider, the order in which any one
+        // thread sends is kept as each of its sends is dispatched before the next is prepared.
+        JmsOutboundMessageDispatch envelope = prepareSend(producer, destination, original, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay, listener);
 
-            if (envelope.isSendAsync() && !envelope.isCompletionRequired() && !envelope.isPresettle()) {
-                envelope.setMessage(outbound.copy());
-                outbound.onSendComplete();
+        sendLock.lock();
+        try {
+            JmsSendWindow sendWindow = producer.getSendWindow();
+            if (sendWindow != null && envelope.isSendAsync()) {
+                int size = getEncodedSize(envelope.getPayload());
+                try {
+                    envelope.setSendWindow(sendWindow, size, sendWindow.acquire(size, connection.getSendTimeout()));
+                } catch (JMSException jmsEx) {
+                    envelope.releasePayload();
+                    throw jmsEx;
+                }
             }
 
             SendCompletion completion = null;
@@ -858,6 +807,8 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
             try {
                 transactionContext.send(connection, envelope);
             } catch (JMSException jmsEx) {
+                envelope.releaseSendWindow();
+
                 // If the synchronous portion of the send fails the completion be
                 // notified but might depending on the circumstances of the failures,
                 // remove it from the queue and check if is is already completed.
@@ -875,6 +826,177 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         }
     }
 
+    private void send(JmsMessageProducer producer, JmsDestination destination, List<? extends Message> messages, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay) throws JMSException {
+        List<JmsOutboundMessageDispatch> envelopes = new ArrayList<JmsOutboundMessageDispatch>(messages.size());
+        try {
+            for (Message original : messages) {
+                envelopes.add(prepareSend(producer, destination, original, deliveryMode, priority, timeToLive, disableMsgId, disableTimestamp, deliveryDelay, null));
+            }
+        } catch (JMSException jmsEx) {
+            for (JmsOutboundMessageDispatch envelope : envelopes) {
+                envelope.releasePayload();
+            }
+
+            throw jmsEx;
+        }
+
+        sendLock.lock();
+        try {
+            // Capacity for the whole batch is taken before any of it is sent so that a send
+            // that cannot get into the window fails having sent nothing.
+            JmsSendWindow sendWindow = producer.getSendWindow();
+            if (sendWindow != null && envelopes.get(0).isSendAsync()) {
+                int[] sizes = new int[envelopes.size()];
+                long batchSize = 0;
+                for (int i = 0; i < sizes.length; ++i) {
+                    sizes[i] = getEncodedSize(envelopes.get(i).getPayload());
+                    batchSize += sizes[i];
+                }
+
+                long epoch;
+                try {
+                    epoch = sendWindow.acquire(sizes.length, batchSize, connection.getSendTimeout());
+                } catch (JMSException jmsEx) {
+                    for (JmsOutboundMessageDispatch envelope : envelopes) {
+                        envelope.releasePayload();
+                    }
+
+                    throw jmsEx;
+                }
+
+                for (int i = 0; i < sizes.length; ++i) {
+                    envelopes.get(i).setSendWindow(sendWindow, sizes[i], epoch);
+                }
+            }
+
+            try {
+                transactionContext.send(connection, envelopes);
+            } catch (JMSException jmsEx) {
+                for (JmsOutboundMessageDispatch envelope : envelopes) {
+                    envelope.releaseSendWindow();
+                }
+
+                throw jmsEx;
+            }
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private JmsOutboundMessageDispatch prepareSend(JmsMessageProducer producer, JmsDestination destination, Message original, int deliveryMode, int priority, long timeToLive, boolean disableMsgId, boolean disableTimestamp, long deliveryDelay, CompletionListener listener) throws JMSException {
+        original.setJMSDeliveryMode(deliveryMode);
+        original.setJMSPriority(priority);
+        original.setJMSRedelivered(false);
+        original.setJMSDestination(destination);
+
+        long timeStamp = System.currentTimeMillis();
+        boolean hasTTL = timeToLive > Message.DEFAULT_TIME_TO_LIVE;
+        boolean hasDelay = deliveryDelay > Message.DEFAULT_DELIVERY_DELAY;
+
+        boolean isJmsMessage = original instanceof JmsMessage;
+
+        if (!disableTimestamp) {
+            original.setJMSTimestamp(timeStamp);
+        } else {
+            original.setJMSTimestamp(0);
+        }
+
+        if (hasTTL) {
+            original.setJMSExpiration(timeStamp + timeToLive);
+        } else {
+            original.setJMSExpiration(0);
+        }
+
+        long messageSequence = producer.getNextMessageSequence();
+        Object messageId = null;
+        if (!disableMsgId) {
+            messageId = producer.getMessageIDBuilder().createMessageID(producer.getProducerId().toString(), messageSequence);
+        }
+
+        JmsMessage outbound = null;
+        if (isJmsMessage) {
+            outbound = (JmsMessage) original;
+        } else {
+            // Transform and assign the Destination as one of our own destination objects.
+            outbound = JmsMessageTransformation.transformMessage(connection, original);
+            outbound.setJMSDestination(destination);
+        }
+
+        // Set the delivery time. Purposefully avoided doing this earlier so
+        // that we use the 'outbound' JmsMessage object reference when
+        // updating our own message instances, avoids using the interface
+        // in case the JMS 1.1 Message API is actually being used due to
+        // being on the classpath too.
+        long deliveryTime = 0;
+        if (hasDelay) {
+            deliveryTime = timeStamp + deliveryDelay;
+        }
+
+        outbound.setJMSDeliveryTime(deliveryTime);
+        if(!isJmsMessage) {
+            // If the original was a foreign message, we still need to update it too.
+            setForeignMessageDeliveryTime(original, deliveryTime);
+        }
+
+        // Set the message ID
+        outbound.getFacade().setProviderMessageIdObject(messageId);
+        if (!isJmsMessage) {
+            // If the original was a foreign message, we still need to update it
+            // with the properly encoded Message ID String, get it from the one
+            // we transformed from now that it is set.
+            original.setJMSMessageID(outbound.getJMSMessageID());
+        }
+
+        // If configured set the User ID using the value we have encoded and cached,
+        // otherwise clear to prevent caller from spoofing the user ID value.
+        if (connection.isPopulateJMSXUserID()) {
+            outbound.getFacade().setUserIdBytes(connection.getEncodedUsername());
+        } else {
+            outbound.getFacade().setUserId(null);
+        }
+
+        boolean sync = connection.isForceSyncSend() ||
+                       (!connection.isForceAsyncSend() && deliveryMode == DeliveryMode.PERSISTENT && !getTransacted());
+
+        outbound.onSend(timeToLive);
+
+        JmsOutboundMessageDispatch envelope = new JmsOutboundMessageDispatch();
+        envelope.setMessage(outbound);
+        envelope.setMessageId(outbound.getFacade().getProviderMessageIdObject());
+        envelope.setDeliveryTime(deliveryTime);
+        envelope.setPayload(outbound.getFacade().encodeMessage());
+        envelope.setProducerId(producer.getProducerId());
+        envelope.setDestination(destination);
+        envelope.setSendAsync(listener == null ? !sync : true);
+        envelope.setDispatchId(messageSequence);
+        envelope.setCompletionRequired(listener != null);
+
+        if (producer.isAnonymous()) {
+            envelope.setPresettle(getPresettlePolicy().isProducerPresttled(this, destination));
+        } else {
+            envelope.setPresettle(producer.isPresettled());
+        }
+
+        // The encoded payload is all that the provider writes, so rather than copying the message
+        // for an asynchronous send it is handed straight back to the application and the envelope
+        // keeps only the values captured here for tracking and reporting of the send.
+        if (envelope.isSendAsync() && !envelope.isCompletionRequired() && !envelope.isPresettle()) {
+            envelope.setMessageDetached(true);
+            outbound.onSendComplete();
+        }
+
+        return envelope;
+    }
+
+    private static int getEncodedSize(Object payload) {
+        // Providers that encode into a buffer are charged by its size, others by count alone.
+        if (payload instanceof ByteBuf) {
+            return ((ByteBuf) payload).readableBytes();
+        }
+
+        return 0;
+    }
+
     private void setForeignMessageDeliveryTime(Message foreignMessage, long deliveryTime) throws JMSException {
         // Verify if the setJMSDeliveryTime method exists, i.e the foreign provider isn't only JMS 1.1.
         Method deliveryTimeMethod = null;
@@ -1225,31 +1347,33 @@ public class JmsSession implements AutoCloseable, Session, QueueSession, TopicSe
         }
     }
 
-    protected void onConnectionRecovery(Provider provider) throws Exception {
+    protected void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception {
         if (sessionInfo.isOpen()) {
-            ProviderFuture request = new ProviderFuture();
-            provider.create(sessionInfo, request);
-            request.sync();
-
-            transactionContext.onConnectionRecovery(provider);
+            batch.create(sessionInfo);
+        }
+    }
 
+    protected void onSessionRecovered(JmsRecoveryBatch batch) throws Exception {
+        if (sessionInfo.isOpen()) {
             for (JmsMessageProducer producer : producers.values()) {
-                producer.onConnectionRecovery(provider);
+                producer.onConnectionRecovery(batch);
             }
 
             for (JmsMessageConsumer consumer : consumers.values()) {
-                consumer.onConnectionRecovery(provider);
+                consumer.onConnectionRecovery(batch);
             }
+
+            transactionContext.onConnectionRecovery(batch);
         }
     }
 
-    protected void onConnectionRecovered(Provider provider) throws Exception {
+    protected void onConnectionRecovered(JmsRecoveryBatch batch) throws Exception {
         for (JmsMessageProducer producer : producers.values()) {
-            producer.onConnectionRecovered(provider);
+            producer.onConnectionRecovered(batch);
         }
 
         for (JmsMessageConsumer consumer : consumers.values()) {
-            consumer.onConnectionRecovered(provider);
+            consumer.onConnectionRecovered(batch);
         }
     }
 
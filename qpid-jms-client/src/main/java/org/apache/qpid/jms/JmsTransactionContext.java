@@ -16,13 +16,14 @@
  */
 package org.apache.qpid.jms;
 
+import java.util.List;
+
 import javax.jms.JMSException;
 
 import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
 import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsResourceId;
 import org.apache.qpid.jms.meta.JmsTransactionId;
-import org.apache.qpid.jms.provider.Provider;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
 
 /**
@@ -60,6 +61,25 @@ public interface JmsTransactionContext {
      */
     void send(JmsConnection connection, JmsOutboundMessageDispatch envelope) throws JMSException;
 
+    /**
+     * Allows the context to intercept and perform any additional logic
+     * prior to a batch of messages being sent on to the connection and
+     * subsequently the remote peer.  By default each envelope is passed
+     * to {@link #send(JmsConnection, JmsOutboundMessageDispatch)} in order.
+     *
+     * @param connection
+     *        the connection that will be do the send of the messages
+     * @param envelopes
+     *        the envelopes that contain the messages to be sent.
+     *
+     * @throws JMSException if an error occurs during the send.
+     */
+    default void send(JmsConnection connection, List<JmsOutboundMessageDispatch> envelopes) throws JMSException {
+        for (JmsOutboundMessageDispatch envelope : envelopes) {
+            send(connection, envelope);
+        }
+    }
+
     /**
      * @return if the currently transaction has been marked as being in an unknown state.
      */
@@ -155,11 +175,14 @@ public interface JmsTransactionContext {
      * connection established.  The context should perform any necessary processing
      * recover and reset its internal state.
      *
-     * @param provider
-     *      A reference to the provider that manages the new connection.
+     * The context adds the request that restores its transaction to the given batch and
+     * must not wait for it, the outcome is applied when the batch completes.
+     *
+     * @param batch
+     *      The batch of requests that restores resources on the new connection.
      *
      * @throws Exception if an error occurs while rebuilding against the new provider.
      */
-    void onConnectionRecovery(Provider provider) throws Exception;
+    void onConnectionRecovery(JmsRecoveryBatch batch) throws Exception;
 
 }
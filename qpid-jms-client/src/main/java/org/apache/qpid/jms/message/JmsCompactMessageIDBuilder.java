@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.message;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.qpid.jms.meta.JmsProducerId;
+
+/**
+ * Base for the builtin Message ID builders that produce AMQP ulong or binary values from
+ * a prefix derived from the producer ID and the message sequence.
+ * <p>
+ * The prefix is computed once per producer and cached, the String form of the resulting
+ * JMSMessageID is only rendered if the application asks for it.  The default Message ID
+ * policy gives each producer a builder of its own, a builder that is shared between
+ * producers still works but recomputes the prefix whenever the producer changes.
+ *
+ * @param <P> the type of the cached producer prefix.
+ */
+abstract class JmsCompactMessageIDBuilder<P> implements JmsMessageIDBuilder {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private volatile ProducerPrefix<P> current;
+
+    @Override
+    public final Object createMessageID(String producerId, long messageSequence) {
+        ProducerPrefix<P> prefix = current;
+        if (prefix == null || !prefix.producerId.equals(producerId)) {
+            prefix = new ProducerPrefix<P>(producerId, createPrefix(producerId));
+            current = prefix;
+        }
+
+        return createMessageID(prefix.value, messageSequence);
+    }
+
+    /**
+     * Create the prefix that is cached for the given producer.
+     *
+     * @param producerId
+     *      The String ID value for the producer that is sending the message.
+     *
+     * @return the prefix used for all Message IDs of the producer.
+     */
+    protected abstract P createPrefix(String producerId);
+
+    /**
+     * Create the Message ID value from the producer prefix and message sequence.
+     *
+     * @param prefix
+     *      The prefix created for the producer.
+     * @param messageSequence
+     *      The producer assigned sequence number for the outgoing message.
+     *
+     * @return the AMQP Message ID value.
+     */
+    protected abstract Object createMessageID(P prefix, long messageSequence);
+
+    /**
+     * Writes the given value into the array in big endian order.
+     *
+     * @param value
+     *      The value to write.
+     * @param target
+     *      The array to write into.
+     * @param offset
+     *      The index of the first byte to write.
+     */
+    protected static void writeLong(long value, byte[] target, int offset) {
+        for (int i = 7; i >= 0; --i) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Hashes the producer ID into a 64 bit value.  The result is only unique with high
+     * probability, two different producers can hash to the same or to nearby values.
+     *
+     * @param producerId
+     *      The String ID value for the producer.
+     *
+     * @return the 64 bit hash of the producer ID.
+     */
+    static long hashProducerId(String producerId) {
+        // FNV-1a over the ID followed by the MurmurHash3 finalizer to spread the bits.
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < producerId.length(); ++i) {
+            hash ^= producerId.charAt(i);
+            hash *= FNV_PRIME;
+        }
+
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+
+        return hash;
+    }
+
+    /**
+     * Encodes the producer ID into a prefix that is unique for the producer.  The prefix
+     * is the connection ID created by the client's IdGenerator followed by the session and
+     * producer values that the connection assigns to the producer, written big endian.  A
+     * producer ID that does not have that form is encoded as is.
+     *
+     * @param producerId
+     *      The String ID value for the producer.
+     *
+     * @return the encoded producer prefix.
+     */
+    static byte[] encodeProducerId(String producerId) {
+        JmsProducerId id;
+        try {
+            id = new JmsProducerId(producerId);
+        } catch (NumberFormatException e) {
+            return producerId.getBytes(StandardCharsets.UTF_8);
+        }
+
+        if (!producerId.equals(id.toString())) {
+            return producerId.getBytes(StandardCharsets.UTF_8);
+        }
+
+        byte[] connectionId = id.getConnectionId().getBytes(StandardCharsets.UTF_8);
+        byte[] prefix = new byte[connectionId.length + 16];
+        System.arraycopy(connectionId, 0, prefix, 0, connectionId.length);
+        writeLong(id.getSessionId(), prefix, connectionId.length);
+        writeLong(id.getValue(), prefix, connectionId.length + 8);
+
+        return prefix;
+    }
+
+    private static final class ProducerPrefix<P> {
+
+        private final String producerId;
+        private final P value;
+
+        public ProducerPrefix(String producerId, P value) {
+            this.producerId = producerId;
+            this.value = value;
+        }
+    }
+}
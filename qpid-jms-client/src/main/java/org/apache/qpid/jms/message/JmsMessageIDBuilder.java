@@ -19,6 +19,8 @@ package org.apache.qpid.jms.message;
 import java.util.Locale;
 
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageIdHelper;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedLong;
 
 /**
  * Interface for creating a custom Message ID builder to populate the
@@ -98,6 +100,60 @@ public interface JmsMessageIDBuilder {
                     }
                 };
             }
+        },
+        ULONG {
+            @Override
+            public JmsMessageIDBuilder createBuilder() {
+                // The prefix is a hash of the producer ID so these IDs are only unique with
+                // high probability, producers whose prefixes lie within the number of messages
+                // sent of each other produce overlapping IDs.  Use BINARY when the IDs must be
+                // guaranteed to be unique.
+                return new JmsCompactMessageIDBuilder<Long>() {
+
+                    @Override
+                    protected Long createPrefix(String producerId) {
+                        return hashProducerId(producerId);
+                    }
+
+                    @Override
+                    protected Object createMessageID(Long prefix, long messageSequence) {
+                        return UnsignedLong.valueOf(prefix.longValue() + messageSequence);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return ULONG.name();
+                    }
+                };
+            }
+        },
+        BINARY {
+            @Override
+            public JmsMessageIDBuilder createBuilder() {
+                // Unique because the prefix carries the whole connection ID, which varies in
+                // length with the host name, so the IDs are of fixed width per connection only.
+                // A fixed width across connections would mean hashing that ID as ULONG does.
+                return new JmsCompactMessageIDBuilder<byte[]>() {
+
+                    @Override
+                    protected byte[] createPrefix(String producerId) {
+                        return encodeProducerId(producerId);
+                    }
+
+                    @Override
+                    protected Object createMessageID(byte[] prefix, long messageSequence) {
+                        byte[] messageId = new byte[prefix.length + 8];
+                        System.arraycopy(prefix, 0, messageId, 0, prefix.length);
+                        writeLong(messageSequence, messageId, prefix.length);
+                        return new Binary(messageId);
+                    }
+
+                    @Override
+                    public String toString() {
+                        return BINARY.name();
+                    }
+                };
+            }
         };
 
         public abstract JmsMessageIDBuilder createBuilder();
@@ -113,7 +169,21 @@ public interface JmsMessageIDBuilder {
          * @throws IllegalArgumentException if the named type is unknown.
          */
         public static JmsMessageIDBuilder create(String value) {
-            return valueOf(value.toUpperCase(Locale.ENGLISH)).createBuilder();
+            return forName(value).createBuilder();
+        }
+
+        /**
+         * Looks up the builtin type from its name (case insensitive).
+         *
+         * @param value
+         *      The name of the builtin type.
+         *
+         * @return the builtin type that matches the name.
+         *
+         * @throws IllegalArgumentException if the named type is unknown.
+         */
+        public static BUILTIN forName(String value) {
+            return valueOf(value.toUpperCase(Locale.ENGLISH));
         }
     }
 
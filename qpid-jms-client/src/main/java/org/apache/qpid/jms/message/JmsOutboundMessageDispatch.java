@@ -16,14 +16,24 @@
  */
 package org.apache.qpid.jms.message;
 
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.JmsSendWindow;
 import org.apache.qpid.jms.meta.JmsProducerId;
 
+import io.netty.util.ReferenceCounted;
+
 /**
  * Envelope that wraps the objects involved in a Message send operation.
  */
 public class JmsOutboundMessageDispatch {
 
+    private static final AtomicReferenceFieldUpdater<JmsOutboundMessageDispatch, JmsSendWindow> SEND_WINDOW_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(JmsOutboundMessageDispatch.class, JmsSendWindow.class, "sendWindow");
+    private static final AtomicReferenceFieldUpdater<JmsOutboundMessageDispatch, Object> PAYLOAD_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(JmsOutboundMessageDispatch.class, Object.class, "payload");
+
     private JmsProducerId producerId;
     private JmsMessage message;
     private JmsDestination destination;
@@ -31,7 +41,14 @@ public class JmsOutboundMessageDispatch {
     private boolean presettle;
     private boolean completionRequired;
     private long dispatchId;
-    private Object payload;
+    private volatile Object payload;
+    private Object messageId;
+    private long deliveryTime;
+    private boolean messageDetached;
+    private boolean retryable;
+    private volatile JmsSendWindow sendWindow;
+    private int sendWindowSize;
+    private long sendWindowEpoch;
 
     private transient String stringView;
 
@@ -44,9 +61,45 @@ public class JmsOutboundMessageDispatch {
     }
 
     public Object getMessageId() {
+        if (messageId != null) {
+            return messageId;
+        }
+
         return message.getFacade().getProviderMessageIdObject();
     }
 
+    /**
+     * Captures the provider message ID of the message at the time of send so that it is
+     * not read from a message the application may already be reusing.
+     *
+     * @param messageId
+     *      the provider message ID object of the message being sent.
+     */
+    public void setMessageId(Object messageId) {
+        this.messageId = messageId;
+    }
+
+    public long getDeliveryTime() {
+        return deliveryTime;
+    }
+
+    public void setDeliveryTime(long deliveryTime) {
+        this.deliveryTime = deliveryTime;
+    }
+
+    /**
+     * @return true if the message was handed back to the application once its payload was
+     *         encoded, in which case only the values captured in this envelope and the payload
+     *         may be relied on and the message state must not be changed on send completion.
+     */
+    public boolean isMessageDetached() {
+        return messageDetached;
+    }
+
+    public void setMessageDetached(boolean messageDetached) {
+        this.messageDetached = messageDetached;
+    }
+
     public JmsMessage getMessage() {
         return message;
     }
@@ -63,6 +116,33 @@ public class JmsOutboundMessageDispatch {
         this.payload = payload;
     }
 
+    /**
+     * Releases the encoded payload if it is reference counted, only the first call has any
+     * effect so it is safe to call from each path on which a send reaches its final outcome.
+     * The payload must not be released while the send may still be retried.
+     */
+    public void releasePayload() {
+        if (payload instanceof ReferenceCounted) {
+            Object released = PAYLOAD_UPDATER.getAndSet(this, null);
+            if (released instanceof ReferenceCounted) {
+                ((ReferenceCounted) released).release();
+            }
+        }
+    }
+
+    /**
+     * @return true if a send that fails with an error other than a JMSException may be retried
+     *         by the owner of the send request, which then also releases the payload if it gives
+     *         up on the send instead.
+     */
+    public boolean isRetryable() {
+        return retryable;
+    }
+
+    public void setRetryable(boolean retryable) {
+        this.retryable = retryable;
+    }
+
     public JmsProducerId getProducerId() {
         return producerId;
     }
@@ -103,6 +183,35 @@ public class JmsOutboundMessageDispatch {
         this.completionRequired = completionRequired;
     }
 
+    /**
+     * Records the send window capacity held by this send until it is settled or fails.
+     *
+     * @param sendWindow
+     *      the window the capacity was acquired from.
+     * @param size
+     *      the size that was acquired.
+     * @param epoch
+     *      the window epoch returned when the capacity was acquired.
+     */
+    public void setSendWindow(JmsSendWindow sendWindow, int size, long epoch) {
+        this.sendWindowSize = size;
+        this.sendWindowEpoch = epoch;
+        this.sendWindow = sendWindow;
+    }
+
+    /**
+     * Returns any send window capacity held by this send, only the first call has
+     * any effect so it is safe to call from each path on which a send completes.
+     */
+    public void releaseSendWindow() {
+        if (sendWindow != null) {
+            JmsSendWindow window = SEND_WINDOW_UPDATER.getAndSet(this, null);
+            if (window != null) {
+                window.release(sendWindowSize, sendWindowEpoch);
+            }
+        }
+    }
+
     @Override
     public String toString() {
         if (stringView == null) {
@@ -114,7 +223,7 @@ public class JmsOutboundMessageDispatch {
             value.append(getDispatchId());
             value.append(", MessageID = ");
             try {
-                value.append(message.getJMSMessageID());
+                value.append(messageId != null ? messageId : message.getJMSMessageID());
             } catch (Throwable e) {
                 value.append("<unknown>");
             }
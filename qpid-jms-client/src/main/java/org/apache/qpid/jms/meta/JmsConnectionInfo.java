@@ -31,6 +31,7 @@ import org.apache.qpid.jms.policy.JmsMessageIDPolicy;
 import org.apache.qpid.jms.policy.JmsPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsPresettlePolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
+import org.apache.qpid.jms.provider.ProviderFutureFactory;
 
 /**
  * Meta object that contains the JmsConnection identification and configuration
@@ -67,6 +68,12 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
     private long requestTimeout = DEFAULT_REQUEST_TIMEOUT;
     private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private long closeTimeout = DEFAULT_CLOSE_TIMEOUT;
+    private int maxInFlightMessages;
+    private long maxInFlightBytes;
+    private int producerMaxInFlightMessages;
+    private long producerMaxInFlightBytes;
+    private boolean sendWindowFailFast;
+    private ProviderFutureFactory providerFutureFactory = ProviderFutureFactory.CONSERVATIVE;
     private String queuePrefix = null;
     private String topicPrefix = null;
 
@@ -104,6 +111,12 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
         copy.sendTimeout = sendTimeout;
         copy.requestTimeout = requestTimeout;
         copy.closeTimeout = closeTimeout;
+        copy.maxInFlightMessages = maxInFlightMessages;
+        copy.maxInFlightBytes = maxInFlightBytes;
+        copy.producerMaxInFlightMessages = producerMaxInFlightMessages;
+        copy.producerMaxInFlightBytes = producerMaxInFlightBytes;
+        copy.sendWindowFailFast = sendWindowFailFast;
+        copy.providerFutureFactory = providerFutureFactory;
         copy.queuePrefix = queuePrefix;
         copy.topicPrefix = topicPrefix;
         copy.connectTimeout = connectTimeout;
@@ -230,6 +243,58 @@ public final class JmsConnectionInfo extends JmsAbstractResource implements Comp
         this.sendTimeout = sendTimeout;
     }
 
+    public int getMaxInFlightMessages() {
+        return maxInFlightMessages;
+    }
+
+    public void setMaxInFlightMessages(int maxInFlightMessages) {
+        this.maxInFlightMessages = maxInFlightMessages;
+    }
+
+    public long getMaxInFlightBytes() {
+        return maxInFlightBytes;
+    }
+
+    public void setMaxInFlightBytes(long maxInFlightBytes) {
+        this.maxInFlightBytes = maxInFlightBytes;
+    }
+
+    public int getProducerMaxInFlightMessages() {
+        return producerMaxInFlightMessages;
+    }
+
+    public void setProducerMaxInFlightMessages(int producerMaxInFlightMessages) {
+        this.producerMaxInFlightMessages = producerMaxInFlightMessages;
+    }
+
+    public long getProducerMaxInFlightBytes() {
+        return producerMaxInFlightBytes;
+    }
+
+    public void setProducerMaxInFlightBytes(long producerMaxInFlightBytes) {
+        this.producerMaxInFlightBytes = producerMaxInFlightBytes;
+    }
+
+    public boolean isSendWindowFailFast() {
+        return sendWindowFailFast;
+    }
+
+    public void setSendWindowFailFast(boolean sendWindowFailFast) {
+        this.sendWindowFailFast = sendWindowFailFast;
+    }
+
+    public String getProviderFutureType() {
+        return providerFutureFactory.name();
+    }
+
+    public void setProviderFutureType(String providerFutureType) {
+        this.providerFutureFactory = ProviderFutureFactory.create(providerFutureType);
+    }
+
+    public ProviderFutureFactory getProviderFutureFactory() {
+        return providerFutureFactory;
+    }
+
     public long getRequestTimeout() {
         return requestTimeout;
     }
@@ -18,6 +18,7 @@ package org.apache.qpid.jms.meta;
 
 import org.apache.qpid.jms.JmsDestination;
 import org.apache.qpid.jms.policy.JmsDefaultDeserializationPolicy;
+import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
 import org.apache.qpid.jms.policy.JmsDefaultRedeliveryPolicy;
 import org.apache.qpid.jms.policy.JmsDeserializationPolicy;
 import org.apache.qpid.jms.policy.JmsRedeliveryPolicy;
@@ -27,6 +28,7 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
     private final JmsConsumerId consumerId;
     private JmsDestination destination;
     private int prefetchSize;
+    private int creditRefillThreshold = JmsDefaultPrefetchPolicy.DEFAULT_CREDIT_REFILL_THRESHOLD;
     private boolean browser;
     private String selector;
     private boolean explicitClientID;
@@ -69,6 +71,7 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
     private void copy(JmsConsumerInfo info) {
         info.destination = destination;
         info.prefetchSize = prefetchSize;
+        info.creditRefillThreshold = creditRefillThreshold;
         info.browser = browser;
         info.selector = selector;
         info.explicitClientID = explicitClientID;
@@ -120,6 +123,14 @@ public final class JmsConsumerInfo extends JmsAbstractResource implements Compar
         this.prefetchSize = prefetchSize;
     }
 
+    public int getCreditRefillThreshold() {
+        return creditRefillThreshold;
+    }
+
+    public void setCreditRefillThreshold(int creditRefillThreshold) {
+        this.creditRefillThreshold = creditRefillThreshold;
+    }
+
     public String getSelector() {
         return selector;
     }
@@ -27,6 +27,7 @@ import org.apache.qpid.jms.message.JmsMessageIDBuilder;
 public class JmsDefaultMessageIDPolicy implements JmsMessageIDPolicy {
 
     private JmsMessageIDBuilder messageIDBuilder = JmsMessageIDBuilder.BUILTIN.DEFAULT.createBuilder();
+    private JmsMessageIDBuilder.BUILTIN messageIDType;
 
     /**
      * Initialize default Message ID builder policy
@@ -42,6 +43,7 @@ public class JmsDefaultMessageIDPolicy implements JmsMessageIDPolicy {
      */
     public JmsDefaultMessageIDPolicy(JmsDefaultMessageIDPolicy source) {
         this.messageIDBuilder = source.messageIDBuilder;
+        this.messageIDType = source.messageIDType;
     }
 
     @Override
@@ -51,6 +53,12 @@ public class JmsDefaultMessageIDPolicy implements JmsMessageIDPolicy {
 
     @Override
     public JmsMessageIDBuilder getMessageIDBuilder(JmsSession session, JmsDestination destination) {
+        // The compact builtin builders keep state for the producer they serve, so each
+        // producer is given a builder of its own when a builtin type was configured.
+        if (messageIDType != null) {
+            return messageIDType.createBuilder();
+        }
+
         return messageIDBuilder;
     }
 
@@ -61,7 +69,8 @@ public class JmsDefaultMessageIDPolicy implements JmsMessageIDPolicy {
      *      The name of the Message type to use when sending a message.
      */
     public void setMessageIDType(String type) {
-        this.messageIDBuilder = JmsMessageIDBuilder.BUILTIN.create(type);
+        this.messageIDType = JmsMessageIDBuilder.BUILTIN.forName(type);
+        this.messageIDBuilder = messageIDType.createBuilder();
     }
 
     /**
@@ -77,5 +86,6 @@ public class JmsDefaultMessageIDPolicy implements JmsMessageIDPolicy {
 
     public void setMessageIDBuilder(JmsMessageIDBuilder messageIDBuilder) {
         this.messageIDBuilder = messageIDBuilder;
+        this.messageIDType = null;
     }
 }
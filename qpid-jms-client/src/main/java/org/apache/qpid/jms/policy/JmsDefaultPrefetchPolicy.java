@@ -31,6 +31,7 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
     public static final int DEFAULT_QUEUE_BROWSER_PREFETCH = DEFAULT_QUEUE_PREFETCH;
     public static final int DEFAULT_DURABLE_TOPIC_PREFETCH = DEFAULT_QUEUE_PREFETCH;
     public static final int DEFAULT_TOPIC_PREFETCH = DEFAULT_QUEUE_PREFETCH;
+    public static final int DEFAULT_CREDIT_REFILL_THRESHOLD = 30;
 
     private static final Logger LOG = LoggerFactory.getLogger(JmsDefaultPrefetchPolicy.class);
 
@@ -39,6 +40,8 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
     private int topicPrefetch;
     private int durableTopicPrefetch;
     private int maxPrefetchSize = MAX_PREFETCH_SIZE;
+    private boolean ringMessageQueue;
+    private int creditRefillThreshold = DEFAULT_CREDIT_REFILL_THRESHOLD;
 
     /**
      * Initialize default prefetch policies
@@ -62,6 +65,8 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         this.topicPrefetch = source.getTopicPrefetch();
         this.durableTopicPrefetch = source.getDurableTopicPrefetch();
         this.maxPrefetchSize = source.getMaxPrefetchSize();
+        this.ringMessageQueue = source.isRingMessageQueue();
+        this.creditRefillThreshold = source.getCreditRefillThreshold();
     }
 
     @Override
@@ -89,6 +94,16 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         return prefetch;
     }
 
+    @Override
+    public boolean useRingMessageQueue(JmsSession session, JmsDestination destination) {
+        return ringMessageQueue;
+    }
+
+    @Override
+    public int getCreditRefillThreshold(JmsSession session, JmsDestination destination) {
+        return creditRefillThreshold;
+    }
+
     /**
      * @return Returns the durableTopicPrefetch.
      */
@@ -170,6 +185,49 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         this.maxPrefetchSize = maxPrefetchSize;
     }
 
+    /**
+     * @return true if consumers hold prefetched messages in an array ring based queue.
+     */
+    public boolean isRingMessageQueue() {
+        return ringMessageQueue;
+    }
+
+    /**
+     * Sets whether consumers hold their prefetched messages in an array ring based queue
+     * that the connection appends to without taking a lock, in place of the default linked
+     * list based queue.  The ring is not used when local message priority is enabled.
+     *
+     * @param ringMessageQueue
+     *        true if consumers should use the ring based message queue.
+     */
+    public void setRingMessageQueue(boolean ringMessageQueue) {
+        this.ringMessageQueue = ringMessageQueue;
+    }
+
+    /**
+     * @return the percentage of the prefetch that consumer credit may fall to before it is refilled.
+     */
+    public int getCreditRefillThreshold() {
+        return creditRefillThreshold;
+    }
+
+    /**
+     * Sets the percentage of the prefetch window that a consumer's remaining credit may fall
+     * to before the window is opened back up to the full prefetch size.  Lower values grant
+     * credit less often and in larger amounts, higher values keep the remote closer to the
+     * full prefetch at the cost of more frequent flow frames.
+     *
+     * @param creditRefillThreshold
+     *        The refill threshold as a percentage of the prefetch, from 0 to 100.
+     */
+    public void setCreditRefillThreshold(int creditRefillThreshold) {
+        if (creditRefillThreshold < 0 || creditRefillThreshold > 100) {
+            throw new IllegalArgumentException("Credit refill threshold must be a percentage between 0 and 100");
+        }
+
+        this.creditRefillThreshold = creditRefillThreshold;
+    }
+
     /**
      * Sets the prefetch values for all options in this policy to the set limit.  If the value
      * given is larger than the max prefetch value of this policy the new limit will be capped
@@ -194,6 +252,8 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         result = prime * result + queueBrowserPrefetch;
         result = prime * result + queuePrefetch;
         result = prime * result + topicPrefetch;
+        result = prime * result + (ringMessageQueue ? 1231 : 1237);
+        result = prime * result + creditRefillThreshold;
         return result;
     }
 
@@ -214,7 +274,9 @@ public class JmsDefaultPrefetchPolicy implements JmsPrefetchPolicy {
         return this.queuePrefetch == other.queuePrefetch &&
                this.queueBrowserPrefetch == other.queueBrowserPrefetch &&
                this.topicPrefetch == other.topicPrefetch &&
-               this.durableTopicPrefetch == other.durableTopicPrefetch;
+               this.durableTopicPrefetch == other.durableTopicPrefetch &&
+               this.ringMessageQueue == other.ringMessageQueue &&
+               this.creditRefillThreshold == other.creditRefillThreshold;
     }
 
     private int getMaxPrefetchLimit(int value) {
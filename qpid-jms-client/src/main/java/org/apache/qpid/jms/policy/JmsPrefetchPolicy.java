@@ -48,4 +48,37 @@ public interface JmsPrefetchPolicy {
      */
     int getConfiguredPrefetch(JmsSession session, JmsDestination destination, boolean durable, boolean browser);
 
+    /**
+     * Determines if a MessageConsumer being created should hold its prefetched messages in
+     * an array ring based queue that the connection can append to without locking instead
+     * of the default linked list based queue.  By default the linked list based queue
+     * is used.
+     *
+     * @param session
+     *      the Session that own the MessageConsumer being created.
+     * @param destination
+     *      the Destination that the consumer will be subscribed to.
+     *
+     * @return true if the consumer should use the ring based message queue.
+     */
+    default boolean useRingMessageQueue(JmsSession session, JmsDestination destination) {
+        return false;
+    }
+
+    /**
+     * Returns the percentage of the prefetch window that a MessageConsumer being created
+     * allows its remaining credit to fall to before it grants the remote more credit.
+     * By default this returns {@link JmsDefaultPrefetchPolicy#DEFAULT_CREDIT_REFILL_THRESHOLD}.
+     *
+     * @param session
+     *      the Session that own the MessageConsumer being created.
+     * @param destination
+     *      the Destination that the consumer will be subscribed to.
+     *
+     * @return the credit refill threshold as a percentage of the prefetch, from 0 to 100.
+     */
+    default int getCreditRefillThreshold(JmsSession session, JmsDestination destination) {
+        return JmsDefaultPrefetchPolicy.DEFAULT_CREDIT_REFILL_THRESHOLD;
+    }
+
 }
\ No newline at end of file
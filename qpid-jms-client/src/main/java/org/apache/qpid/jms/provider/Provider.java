@@ -18,6 +18,7 @@ package org.apache.qpid.jms.provider;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
 
 import javax.jms.JMSException;
 
@@ -188,6 +189,29 @@ public interface Provider {
      */
     void send(JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException;
 
+    /**
+     * Sends a batch of messages as a single operation so that the Provider can write them
+     * together instead of handling each send on its own.
+     *
+     * Each envelope is paired with the request at the same position in the requests list,
+     * which is signaled when that send completes exactly as it would have been had the
+     * envelope been passed to {@link #send(JmsOutboundMessageDispatch, AsyncResult)}.  By
+     * default each envelope is simply sent on its own in order.
+     *
+     * @param envelopes
+     *        the message envelopes to send, in the order they should be sent.
+     * @param requests
+     *        the request objects to signal as each of the sends completes.
+     *
+     * @throws IOException if an error occurs or the Provider is already closed.
+     * @throws JMSException if an error that maps to JMS occurs such as not authorized.
+     */
+    default void send(List<JmsOutboundMessageDispatch> envelopes, List<? extends AsyncResult> requests) throws IOException, JMSException {
+        for (int i = 0; i < envelopes.size(); ++i) {
+            send(envelopes.get(i), requests.get(i));
+        }
+    }
+
     /**
      * Called to acknowledge all messages that have been delivered in a given session.
      *
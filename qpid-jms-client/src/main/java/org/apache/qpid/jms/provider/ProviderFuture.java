@@ -17,21 +17,33 @@
 package org.apache.qpid.jms.provider;
 
 import java.io.IOException;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import org.apache.qpid.jms.util.IOExceptionSupport;
 
 /**
  * Asynchronous Provider Future class.
+ * <p>
+ * Completion is tracked in a single state field and waiting threads park on the monitor
+ * of the future, the completing thread only takes the monitor when some thread is actually
+ * parked.  This implementation parks the waiting thread right away, subclasses can try to
+ * observe completion before that happens by overriding {@link #awaitBeforeParking(long)}.
  */
 public class ProviderFuture implements AsyncResult {
 
-    private final AtomicBoolean completer = new AtomicBoolean();
-    private final CountDownLatch latch = new CountDownLatch(1);
+    private static final int INCOMPLETE = 0;
+    private static final int COMPLETING = 1;
+    private static final int SUCCESS = 2;
+    private static final int FAILURE = 3;
+
+    private static final AtomicIntegerFieldUpdater<ProviderFuture> STATE_FIELD_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(ProviderFuture.class, "state");
+
     private final ProviderSynchronization synchronization;
-    private volatile Throwable error;
+    private volatile int state = INCOMPLETE;
+    private volatile int waiting;
+    private Throwable error;
 
     public ProviderFuture() {
         this(null);
@@ -43,27 +55,27 @@ public class ProviderFuture implements AsyncResult {
 
     @Override
     public boolean isComplete() {
-        return latch.getCount() == 0;
+        return state > COMPLETING;
     }
 
     @Override
     public void onFailure(Throwable result) {
-        if (completer.compareAndSet(false, true)) {
+        if (STATE_FIELD_UPDATER.compareAndSet(this, INCOMPLETE, COMPLETING)) {
             error = result;
             if (synchronization != null) {
                 synchronization.onPendingFailure(error);
             }
-            latch.countDown();
+            complete(FAILURE);
         }
     }
 
     @Override
     public void onSuccess() {
-        if (completer.compareAndSet(false, true)) {
+        if (STATE_FIELD_UPDATER.compareAndSet(this, INCOMPLETE, COMPLETING)) {
             if (synchronization != null) {
                 synchronization.onPendingSuccess();
             }
-            latch.countDown();
+            complete(SUCCESS);
         }
     }
 
@@ -79,7 +91,16 @@ public class ProviderFuture implements AsyncResult {
      */
     public void sync(long amount, TimeUnit unit) throws IOException {
         try {
-            latch.await(amount, unit);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (!isComplete() && amount > 0) {
+                final long deadline = System.nanoTime() + unit.toNanos(amount);
+                if (!awaitBeforeParking(deadline)) {
+                    park(deadline);
+                }
+            }
         } catch (InterruptedException e) {
             Thread.interrupted();
             throw IOExceptionSupport.create(e);
@@ -94,7 +115,13 @@ public class ProviderFuture implements AsyncResult {
      */
     public void sync() throws IOException {
         try {
-            latch.await();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (!isComplete() && !awaitBeforeParking(0)) {
+                park(0);
+            }
         } catch (InterruptedException e) {
             Thread.interrupted();
             throw IOExceptionSupport.create(e);
@@ -102,8 +129,57 @@ public class ProviderFuture implements AsyncResult {
         failOnError();
     }
 
+    /**
+     * Called by a syncing thread before it parks to wait for completion, allowing a subclass
+     * to spin or yield in the hope that the response arrives soon.  Implementations must check
+     * for interruption of the calling thread while they are waiting.
+     *
+     * @param deadline
+     *        The {@link System#nanoTime()} value at which the wait ends, or zero if it has no limit.
+     *
+     * @return true if the future completed, false if the caller should park.
+     *
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    protected boolean awaitBeforeParking(long deadline) throws InterruptedException {
+        return isComplete();
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    private void complete(int outcome) {
+        state = outcome;
+
+        // The state write above is ordered before this read, a waiter that registered
+        // too late to be seen here will in turn see the completed state before it parks.
+        if (waiting > 0) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    private synchronized void park(long deadline) throws InterruptedException {
+        waiting++;
+        try {
+            while (!isComplete()) {
+                if (deadline == 0) {
+                    wait();
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+        } finally {
+            waiting--;
+        }
+    }
+
     private void failOnError() throws IOException {
-        Throwable cause = error;
+        Throwable cause = state == FAILURE ? error : null;
         if (cause != null) {
             throw IOExceptionSupport.create(cause);
         }
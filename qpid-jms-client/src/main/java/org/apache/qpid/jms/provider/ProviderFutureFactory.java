@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+import java.util.Locale;
+
+/**
+ * The available strategies for waiting on a {@link ProviderFuture}, selected per connection.
+ */
+public enum ProviderFutureFactory {
+
+    /**
+     * Parks the waiting thread right away, uses no CPU while waiting.
+     */
+    CONSERVATIVE {
+        @Override
+        public ProviderFuture createFuture(ProviderSynchronization synchronization) {
+            return new ProviderFuture(synchronization);
+        }
+    },
+    /**
+     * Spins and yields briefly before parking, catching responses that arrive quickly
+     * without a noticeable cost in CPU time when they do not.
+     */
+    BALANCED {
+        @Override
+        public ProviderFuture createFuture(ProviderSynchronization synchronization) {
+            return new SpinningProviderFuture(synchronization, 128, 16);
+        }
+    },
+    /**
+     * Spins and yields for a long time before parking, meant for hosts with cores to spare
+     * where the latency of the operation matters more than the CPU spent waiting.
+     */
+    AGGRESSIVE {
+        @Override
+        public ProviderFuture createFuture(ProviderSynchronization synchronization) {
+            return new SpinningProviderFuture(synchronization, 65536, 1024);
+        }
+    };
+
+    /**
+     * Creates a new future that waits according to this strategy.
+     *
+     * @param synchronization
+     *        The synchronization to notify on completion, or null if there is none.
+     *
+     * @return a new ProviderFuture instance.
+     */
+    public abstract ProviderFuture createFuture(ProviderSynchronization synchronization);
+
+    /**
+     * Looks up the strategy with the given name, ignoring case.
+     *
+     * @param value
+     *        The name of the strategy.
+     *
+     * @return the matching ProviderFutureFactory.
+     *
+     * @throws IllegalArgumentException if the named strategy is unknown.
+     */
+    public static ProviderFutureFactory create(String value) {
+        return valueOf(value.toUpperCase(Locale.ENGLISH));
+    }
+}
@@ -100,6 +100,11 @@ public class ProviderWrapper<E extends Provider> implements Provider, ProviderLi
         next.send(envelope, request);
     }
 
+    @Override
+    public void send(List<JmsOutboundMessageDispatch> envelopes, List<? extends AsyncResult> requests) throws IOException, JMSException {
+        next.send(envelopes, requests);
+    }
+
     @Override
     public void acknowledge(JmsSessionId sessionId, ACK_TYPE ackType, AsyncResult request) throws IOException, JMSException {
         next.acknowledge(sessionId, ackType, request);
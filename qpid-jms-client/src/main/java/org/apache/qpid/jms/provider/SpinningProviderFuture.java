@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+/**
+ * Provider Future that busy spins and then yields for a bounded number of iterations
+ * before falling back to parking the waiting thread.
+ * <p>
+ * When the provider answers within the spin or yield phase the waiting thread never
+ * parks, which saves the cost of parking and waking it at the expense of keeping a core
+ * busy for the duration of the wait.
+ */
+public class SpinningProviderFuture extends ProviderFuture {
+
+    private final int spinIterations;
+    private final int yieldIterations;
+
+    /**
+     * Creates a new future that spins and yields the given number of times.
+     *
+     * @param synchronization
+     *        The synchronization to notify on completion, or null if there is none.
+     * @param spinIterations
+     *        The number of times to check for completion while busy spinning.
+     * @param yieldIterations
+     *        The number of times to yield the thread before parking it.
+     */
+    public SpinningProviderFuture(ProviderSynchronization synchronization, int spinIterations, int yieldIterations) {
+        super(synchronization);
+
+        this.spinIterations = spinIterations;
+        this.yieldIterations = yieldIterations;
+    }
+
+    @Override
+    protected boolean awaitBeforeParking(long deadline) throws InterruptedException {
+        for (int i = 0; i < spinIterations; ++i) {
+            if (isComplete()) {
+                return true;
+            }
+        }
+
+        for (int i = 0; i < yieldIterations; ++i) {
+            if (isComplete()) {
+                return true;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+
+            if (deadline != 0 && deadline - System.nanoTime() <= 0) {
+                return false;
+            }
+
+            Thread.yield();
+        }
+
+        return isComplete();
+    }
+
+    public int getSpinIterations() {
+        return spinIterations;
+    }
+
+    public int getYieldIterations() {
+        return yieldIterations;
+    }
+}
@@ -17,7 +17,12 @@
 package org.apache.qpid.jms.provider.amqp;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.JMSException;
 
@@ -28,6 +33,7 @@ import org.apache.qpid.jms.meta.JmsProducerInfo;
 import org.apache.qpid.jms.provider.AsyncResult;
 import org.apache.qpid.jms.provider.WrappedAsyncResult;
 import org.apache.qpid.jms.provider.amqp.builders.AmqpProducerBuilder;
+import org.apache.qpid.jms.util.IOExceptionSupport;
 import org.apache.qpid.jms.util.IdGenerator;
 import org.apache.qpid.jms.util.LRUCache;
 import org.apache.qpid.proton.engine.EndpointState;
@@ -39,6 +45,11 @@ import org.slf4j.LoggerFactory;
  *
  * In order to simulate the anonymous producer we must create a sender for each message
  * send attempt and close it following a successful send.
+ *
+ * When producer caching is enabled the sender for each destination is instead kept open
+ * until it has been idle for the configured time or is evicted from the cache.  Sends to a
+ * destination whose sender is still attaching are queued behind the attach and written as
+ * soon as it completes, asynchronous sends are completed as they are queued.
  */
 public class AmqpAnonymousFallbackProducer extends AmqpProducer {
 
@@ -48,6 +59,7 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
     private final AnonymousProducerCache producerCache;
     private final String producerIdKey = producerIdGenerator.generateId();
     private long producerIdCount;
+    private ScheduledFuture<?> idleSweep;
 
     /**
      * Creates the Anonymous Producer object.
@@ -61,8 +73,7 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         super(session, info);
 
         if (connection.isAnonymousProducerCache()) {
-            producerCache = new AnonymousProducerCache(10);
-            producerCache.setMaxCacheSize(connection.getAnonymousProducerCacheSize());
+            producerCache = new AnonymousProducerCache(connection.getAnonymousProducerCacheSize());
         } else {
             producerCache = null;
         }
@@ -72,48 +83,57 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
     public void send(JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException {
         LOG.trace("Started send chain for anonymous producer: {}", getProducerId());
 
+        if (producerCache != null) {
+            CachedProducer producer = producerCache.get(envelope.getDestination());
+            if (producer == null || producer.isClosed()) {
+                producer = new CachedProducer(envelope.getDestination());
+                producerCache.put(envelope.getDestination(), producer);
+                producer.open();
+                scheduleIdleSweep();
+            }
+
+            producer.send(envelope, request);
+            if (!producer.isComplete()) {
+                // Write out the attach, an open producer has already written the send.
+                getParent().getProvider().pumpToProtonTransport(request);
+            }
+            return;
+        }
+
         // Force sends marked as asynchronous to be sent synchronous so that the temporary
         // producer instance can handle failures and perform necessary completion work on
         // the send.
         envelope.setSendAsync(false);
 
-        AmqpProducer producer = null;
-        if (connection.isAnonymousProducerCache()) {
-            producer = producerCache.get(envelope.getDestination());
-        }
-
-        if (producer == null) {
-            // Create a new ProducerInfo for the short lived producer that's created to perform the
-            // send to the given AMQP target.
-            JmsProducerInfo info = new JmsProducerInfo(getNextProducerId());
-            info.setDestination(envelope.getDestination());
-            info.setPresettle(this.getResourceInfo().isPresettle());
-
-            // We open a Fixed Producer instance with the target destination.  Once it opens
-            // it will trigger the open event which will in turn trigger the send event.
-            // If caching is disabled the created producer will be closed immediately after
-            // the entire send chain has finished and the delivery has been acknowledged.
-            AmqpProducerBuilder builder = new AmqpProducerBuilder(session, info);
-            builder.buildResource(new AnonymousSendRequest(request, builder, envelope));
-
-            if (connection.isAnonymousProducerCache()) {
-                // Cache it in hopes of not needing to create large numbers of producers.
-                producerCache.put(envelope.getDestination(), builder.getResource());
-            }
+        // We open a Fixed Producer instance with the target destination.  Once it opens
+        // it will trigger the open event which will in turn trigger the send event.
+        // The created producer will be closed immediately after the entire send chain
+        // has finished and the delivery has been acknowledged.
+        AmqpProducerBuilder builder = new AmqpProducerBuilder(session, createProducerInfo(envelope.getDestination()));
+        builder.buildResource(new AnonymousSendRequest(request, builder, envelope));
 
-            getParent().getProvider().pumpToProtonTransport(request);
-        } else {
-            producer.send(envelope, request);
-        }
+        getParent().getProvider().pumpToProtonTransport(request);
     }
 
     @Override
     public void close(AsyncResult request) {
         // Trigger an immediate close, the internal producers that are currently in the cache
-        // if the cache is enabled.
-        if (connection.isAnonymousProducerCache()) {
-            for (AmqpProducer producer : producerCache.values()) {
-                producer.close(new CloseRequest(producer));
+        // if the cache is enabled.  A cached link with sends in flight only detaches once they
+        // have completed so the close finishes when the last of the cached links has closed.
+        if (producerCache != null) {
+            if (idleSweep != null) {
+                idleSweep.cancel(false);
+                idleSweep = null;
+            }
+
+            if (!producerCache.isEmpty()) {
+                CachedProducersCloseRequest closeRequest = new CachedProducersCloseRequest(request, producerCache.size());
+                for (CachedProducer producer : producerCache.values()) {
+                    producer.close(closeRequest);
+                }
+
+                producerCache.clear();
+                return;
             }
         }
 
@@ -125,6 +145,20 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         return true;
     }
 
+    @Override
+    public boolean hasInFlightSends() {
+        // Sends without the cache are tracked by the temporary producer that performs them.
+        if (producerCache != null) {
+            for (CachedProducer producer : producerCache.values()) {
+                if (producer.hasInFlightSends()) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
     @Override
     public EndpointState getLocalState() {
         return EndpointState.ACTIVE;
@@ -139,6 +173,50 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         return new JmsProducerId(producerIdKey, -1, producerIdCount++);
     }
 
+    private JmsProducerInfo createProducerInfo(JmsDestination destination) {
+        // Create a new ProducerInfo for the producer that's created to perform sends
+        // to the given AMQP target.
+        JmsProducerInfo info = new JmsProducerInfo(getNextProducerId());
+        info.setDestination(destination);
+        info.setPresettle(this.getResourceInfo().isPresettle());
+
+        return info;
+    }
+
+    private void scheduleIdleSweep() {
+        if (idleSweep == null && connection.getAnonymousProducerCacheTimeout() > 0) {
+            idleSweep = getParent().getProvider().getTimeouts().schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    idleSweep = null;
+                    closeIdleProducers();
+                }
+            }, connection.getAnonymousProducerCacheTimeout());
+        }
+    }
+
+    private void closeIdleProducers() {
+        long idleTimeout = TimeUnit.MILLISECONDS.toNanos(connection.getAnonymousProducerCacheTimeout());
+        long now = System.nanoTime();
+
+        Iterator<CachedProducer> producers = producerCache.values().iterator();
+        while (producers.hasNext()) {
+            CachedProducer producer = producers.next();
+            if (producer.isIdle(now, idleTimeout)) {
+                LOG.trace("Closing idle producer {} for: {}", producer, producer.destination);
+                producers.remove();
+                producer.close();
+            }
+        }
+
+        if (!producerCache.isEmpty()) {
+            scheduleIdleSweep();
+        }
+
+        getParent().getProvider().pumpToProtonTransport();
+    }
+
     @Override
     public void addSendCompletionWatcher(AsyncResult watcher) {
         throw new UnsupportedOperationException(
@@ -209,22 +287,16 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         @Override
         public void onFailure(Throwable result) {
             LOG.trace("Send phase of anonymous send failed: {} ", getProducerId());
-            if (!connection.isAnonymousProducerCache()) {
-                AnonymousCloseRequest close = new AnonymousCloseRequest(this);
-                producer.close(close);
-            }
+            AnonymousCloseRequest close = new AnonymousCloseRequest(this);
+            producer.close(close);
             super.onFailure(result);
         }
 
         @Override
         public void onSuccess() {
             LOG.trace("Send phase of anonymous send complete: {} ", getProducerId());
-            if (!connection.isAnonymousProducerCache()) {
-                AnonymousCloseRequest close = new AnonymousCloseRequest(this);
-                producer.close(close);
-            } else {
-                super.onSuccess();
-            }
+            AnonymousCloseRequest close = new AnonymousCloseRequest(this);
+            producer.close(close);
         }
 
         @Override
@@ -279,7 +351,200 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         }
     }
 
-    private final class AnonymousProducerCache extends LRUCache<JmsDestination, AmqpProducer> {
+    private final class CachedProducersCloseRequest extends WrappedAsyncResult {
+
+        private int remaining;
+
+        public CachedProducersCloseRequest(AsyncResult request, int count) {
+            super(request);
+            this.remaining = count;
+        }
+
+        @Override
+        public void onFailure(Throwable result) {
+            LOG.debug("Close of a cached producer of {} failed: {}", getProducerId(), result.getMessage());
+            onSuccess();
+        }
+
+        @Override
+        public void onSuccess() {
+            if (--remaining == 0) {
+                LOG.trace("All cached producers of {} are closed", getProducerId());
+                super.onSuccess();
+            }
+        }
+    }
+
+    //----- Cached producers and the sends queued on them -------------------//
+
+    private final class CachedProducer implements AsyncResult {
+
+        private final JmsDestination destination;
+
+        private AmqpProducerBuilder builder;
+        private List<PendingSend> pending = new ArrayList<PendingSend>();
+        private AsyncResult closeWhenOpened;
+        private long lastUsed;
+
+        public CachedProducer(JmsDestination destination) {
+            this.destination = destination;
+        }
+
+        public void open() {
+            builder = new AmqpProducerBuilder(session, createProducerInfo(destination));
+            builder.buildResource(this);
+        }
+
+        public void send(JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException {
+            lastUsed = System.nanoTime();
+
+            if (pending == null) {
+                getProducer().send(envelope, request);
+            } else {
+                LOG.trace("Queuing send until producer for {} is opened", destination);
+                PendingSend send = new PendingSend(envelope, request);
+                pending.add(send);
+
+                // Pipeline asynchronous sends behind the attach, a later failure is then
+                // reported the same way as one for a send that is already in flight.
+                if (envelope.isSendAsync()) {
+                    send.onSuccess();
+                }
+            }
+        }
+
+        public void close() {
+            close(new CloseRequest(getProducer()));
+        }
+
+        public void close(AsyncResult request) {
+            if (pending != null) {
+                closeWhenOpened = request;
+            } else {
+                getProducer().close(request);
+            }
+        }
+
+        public boolean isClosed() {
+            return pending == null && (getProducer().isClosed() || getProducer().getRemoteState() == EndpointState.CLOSED);
+        }
+
+        public boolean isIdle(long now, long idleTimeout) {
+            return pending == null && !getProducer().hasInFlightSends() && now - lastUsed >= idleTimeout;
+        }
+
+        public boolean hasInFlightSends() {
+            return pending != null ? !pending.isEmpty() : getProducer().hasInFlightSends();
+        }
+
+        public AmqpProducer getProducer() {
+            return builder.getResource();
+        }
+
+        @Override
+        public void onSuccess() {
+            LOG.trace("Producer for {} opened, dispatching {} queued sends", destination, pending.size());
+
+            List<PendingSend> queued = pending;
+            pending = null;
+
+            for (PendingSend send : queued) {
+                try {
+                    getProducer().send(send.envelope, send);
+                } catch (Exception error) {
+                    send.fail(error);
+                }
+            }
+
+            if (closeWhenOpened != null) {
+                close(closeWhenOpened);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable result) {
+            LOG.debug("Failed to open producer for {}: {}", destination, result.getMessage());
+
+            if (producerCache.get(destination) == this) {
+                producerCache.remove(destination);
+            }
+
+            List<PendingSend> queued = pending;
+            pending = null;
+
+            if (queued != null) {
+                for (PendingSend send : queued) {
+                    send.fail(result);
+                }
+            }
+
+            // The link never opened so there is nothing left to close.
+            if (closeWhenOpened != null) {
+                closeWhenOpened.onSuccess();
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return pending == null;
+        }
+
+        @Override
+        public String toString() {
+            return "CachedProducer { " + destination + " }";
+        }
+    }
+
+    private final class PendingSend implements AsyncResult {
+
+        private final JmsOutboundMessageDispatch envelope;
+        private final AsyncResult request;
+
+        private boolean completed;
+
+        public PendingSend(JmsOutboundMessageDispatch envelope, AsyncResult request) {
+            this.envelope = envelope;
+            this.request = request;
+        }
+
+        public void fail(Throwable cause) {
+            AmqpFixedProducer.releaseSendResources(envelope, request, cause);
+            if (!envelope.isMessageDetached()) {
+                envelope.getMessage().onSendComplete();
+            }
+
+            if (!completed) {
+                onFailure(cause);
+            } else if (envelope.isCompletionRequired()) {
+                getParent().getProvider().getProviderListener().onFailedMessageSend(envelope, cause);
+            } else {
+                getParent().getProvider().fireNonFatalProviderException(IOExceptionSupport.create(cause));
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable result) {
+            if (!completed) {
+                completed = true;
+                request.onFailure(result);
+            }
+        }
+
+        @Override
+        public void onSuccess() {
+            if (!completed) {
+                completed = true;
+                request.onSuccess();
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return completed;
+        }
+    }
+
+    private final class AnonymousProducerCache extends LRUCache<JmsDestination, CachedProducer> {
 
         private static final long serialVersionUID = 1L;
 
@@ -288,9 +553,9 @@ public class AmqpAnonymousFallbackProducer extends AmqpProducer {
         }
 
         @Override
-        protected void onCacheEviction(Map.Entry<JmsDestination, AmqpProducer> cached) {
+        protected void onCacheEviction(Map.Entry<JmsDestination, CachedProducer> cached) {
             LOG.trace("Producer: {} evicted from producer cache", cached.getValue());
-            cached.getValue().close(new CloseRequest(cached.getValue()));
+            cached.getValue().close();
         }
     }
 }
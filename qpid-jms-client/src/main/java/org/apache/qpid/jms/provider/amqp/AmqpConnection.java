@@ -57,6 +57,8 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
     private boolean objectMessageUsesAmqpTypes = false;
     private boolean anonymousProducerCache = false;
     private int anonymousProducerCacheSize = 10;
+    private int anonymousProducerCacheTimeout;
+    private volatile int encodeSizeEstimate;
 
     public AmqpConnection(AmqpProvider provider, JmsConnectionInfo info, Connection protonConnection) {
         super(info, protonConnection, provider);
@@ -65,6 +67,12 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
         this.remoteURI = provider.getRemoteURI();
         this.amqpMessageFactory = new AmqpJmsMessageFactory(this);
 
+        if (provider.getAnonymousFallbackCacheSize() > 0) {
+            this.anonymousProducerCache = true;
+            this.anonymousProducerCacheSize = provider.getAnonymousFallbackCacheSize();
+        }
+        this.anonymousProducerCacheTimeout = provider.getAnonymousFallbackCacheTimeout();
+
         // Create connection properties initialized with defaults from the JmsConnectionInfo
         this.properties = new AmqpConnectionProperties(info, provider);
     }
@@ -206,6 +214,21 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
         this.anonymousProducerCacheSize = anonymousProducerCacheSize;
     }
 
+    /**
+     * @return the time in milliseconds after which an idle cached anonymous producer is closed.
+     */
+    public int getAnonymousProducerCacheTimeout() {
+        return anonymousProducerCacheTimeout;
+    }
+
+    /**
+     * @param anonymousProducerCacheTimeout
+     *        the idle time in milliseconds after which a cached producer is closed, zero or less to never close it.
+     */
+    public void setAnonymousProducerCacheTimeout(int anonymousProducerCacheTimeout) {
+        this.anonymousProducerCacheTimeout = anonymousProducerCacheTimeout;
+    }
+
     /**
      * @return true if new ObjectMessage instance should default to using AMQP Typed bodies.
      */
@@ -224,6 +247,40 @@ public class AmqpConnection extends AmqpAbstractResource<JmsConnectionInfo, Conn
         this.objectMessageUsesAmqpTypes = objectMessageUsesAmqpTypes;
     }
 
+    /**
+     * @return true if outbound messages should be encoded into pooled buffers.
+     */
+    public boolean isPooledEncodeBuffers() {
+        return provider.isPooledEncodeBuffers();
+    }
+
+    /**
+     * @return true if sections of inbound messages should be decoded on first access.
+     */
+    public boolean isLazyMessageDecoding() {
+        return provider.isLazyMessageDecoding();
+    }
+
+    /**
+     * @return the running estimate of the encoded size of messages sent from this connection.
+     */
+    public int getEncodeSizeEstimate() {
+        return encodeSizeEstimate;
+    }
+
+    /**
+     * Folds the size of a newly encoded message into the running estimate used to size
+     * the buffers of subsequent encodes.  Updates from concurrent senders may be lost
+     * which only affects the accuracy of the estimate.
+     *
+     * @param encodedSize
+     *        the size in bytes of the most recently encoded message.
+     */
+    public void updateEncodeSizeEstimate(int encodedSize) {
+        int current = encodeSizeEstimate;
+        encodeSizeEstimate = current + ((encodedSize - current) >> 3);
+    }
+
     /**
      * @return the AMQP based JmsMessageFactory for this Connection.
      */
@@ -21,11 +21,18 @@ import static org.apache.qpid.jms.provider.amqp.AmqpSupport.MODIFIED_FAILED_UNDE
 import static org.apache.qpid.jms.provider.amqp.AmqpSupport.REJECTED;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.ListIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.jms.JMSException;
+import javax.jms.Session;
 
 import org.apache.qpid.jms.JmsDestination;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
@@ -69,6 +76,18 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     protected long deliveredCount;
     protected boolean deferredClose;
 
+    // Deliveries marked as delivered to the application but not yet acknowledged, in arrival order.
+    private final LinkedHashSet<Delivery> deliveredDeliveries = new LinkedHashSet<Delivery>();
+
+    // Deliveries handed to the provider decoder, held in arrival order until dispatched.
+    private final ArrayDeque<PendingDecode> pendingDecodes = new ArrayDeque<PendingDecode>();
+    private final ArrayList<AsyncResult> pendingDecodeWaiters = new ArrayList<AsyncResult>();
+    private final AtomicBoolean decodedDispatchScheduled = new AtomicBoolean();
+
+    // Accepted deliveries awaiting settlement as a batch when ack batching is enabled.
+    private final ArrayList<Delivery> pendingAcks = new ArrayList<Delivery>();
+    private ScheduledFuture<?> pendingAcksTask;
+
     public AmqpConsumer(AmqpSession session, JmsConsumerInfo info, Receiver receiver) {
         super(info, receiver, session);
 
@@ -77,6 +96,8 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
     @Override
     public void close(AsyncResult request) {
+        settlePendingAcks();
+
         // If we have pending deliveries we remain open to allow for ACK or for a
         // pending transaction that this consumer is active in to complete.
         if (shouldDeferClose()) {
@@ -114,7 +135,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (receiver.getRemoteCredit() <= 0) {
             if (receiver.getQueued() == 0) {
                 // We have no remote credit and all the deliveries have been processed.
-                request.onSuccess();
+                completeAfterPendingDecodes(request);
             } else {
                 // There are still deliveries to process, wait for them to be.
                 stopRequest = request;
@@ -133,7 +154,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
                 // blocked receive or stop calls that are waiting, unless the consumer is
                 // a participant in a transaction in which case we will just fail the request
                 // and leave the consumer open since the TX needs it to remain active.
-                final ScheduledFuture<?> future = getSession().schedule(new Runnable() {
+                final ScheduledFuture<?> future = session.getProvider().getTimeouts().schedule(new Runnable() {
                     @Override
                     public void run() {
                         LOG.trace("Consumer {} drain request timed out", getConsumerId());
@@ -177,7 +198,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (stopRequest != null) {
             Receiver receiver = getEndpoint();
             if (receiver.getRemoteCredit() <= 0 && receiver.getQueued() == 0) {
-                stopRequest.onSuccess();
+                completeAfterPendingDecodes(stopRequest);
                 stopRequest = null;
             }
         }
@@ -185,7 +206,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         if (pullRequest != null) {
             Receiver receiver = getEndpoint();
             if (receiver.getRemoteCredit() <= 0 && receiver.getQueued() == 0) {
-                pullRequest.onSuccess();
+                completeAfterPendingDecodes(pullRequest);
                 pullRequest = null;
             }
         }
@@ -208,41 +229,39 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
      */
     public void acknowledge(ACK_TYPE ackType) {
         LOG.trace("Session Acknowledge for consumer {} with ack type {}", getResourceInfo().getId(), ackType);
-        Delivery delivery = getEndpoint().head();
-        while (delivery != null) {
-            Delivery current = delivery;
-            delivery = delivery.next();
+        settlePendingAcks();
 
-            if (!(current.getContext() instanceof JmsInboundMessageDispatch)) {
-                LOG.debug("{} Found incomplete delivery with no context during recover processing", AmqpConsumer.this);
+        Iterator<Delivery> deliveries = deliveredDeliveries.iterator();
+        while (deliveries.hasNext()) {
+            Delivery current = deliveries.next();
+            deliveries.remove();
+
+            if (current.isSettled()) {
                 continue;
             }
 
-            JmsInboundMessageDispatch envelope = (JmsInboundMessageDispatch) current.getContext();
-            if (envelope.isDelivered()) {
-                switch (ackType) {
-                    case ACCEPTED:
-                        current.disposition(Accepted.getInstance());
-                        break;
-                    case RELEASED:
-                        current.disposition(Released.getInstance());
-                        break;
-                    case REJECTED:
-                        current.disposition(REJECTED);
-                        break;
-                    case MODIFIED_FAILED:
-                        current.disposition(MODIFIED_FAILED);
-                        break;
-                    case MODIFIED_FAILED_UNDELIVERABLE:
-                        current.disposition(MODIFIED_FAILED_UNDELIVERABLE);
-                        break;
-                    default:
-                        throw new IllegalArgumentException("Invalid acknowledgement type specified: " + ackType);
-                }
-
-                current.settle();
-                deliveredCount--;
+            switch (ackType) {
+                case ACCEPTED:
+                    current.disposition(Accepted.getInstance());
+                    break;
+                case RELEASED:
+                    current.disposition(Released.getInstance());
+                    break;
+                case REJECTED:
+                    current.disposition(REJECTED);
+                    break;
+                case MODIFIED_FAILED:
+                    current.disposition(MODIFIED_FAILED);
+                    break;
+                case MODIFIED_FAILED_UNDELIVERABLE:
+                    current.disposition(MODIFIED_FAILED_UNDELIVERABLE);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid acknowledgement type specified: " + ackType);
             }
+
+            current.settle();
+            deliveredCount--;
         }
 
         tryCompleteDeferredClose();
@@ -274,6 +293,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             LOG.debug("Delivered Ack of message: {}", envelope);
             deliveredCount++;
             envelope.setDelivered(true);
+            deliveredDeliveries.add(delivery);
             delivery.setDefaultDeliveryState(MODIFIED_FAILED);
             sendFlowIfNeeded();
             return;
@@ -301,6 +321,8 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
                         delivery.settle();
                         session.getTransactionContext().registerTxConsumer(this);
                     }
+                } else if (isBatchingAcks()) {
+                    addPendingAck(delivery);
                 } else {
                     delivery.disposition(Accepted.getInstance());
                     delivery.settle();
@@ -322,6 +344,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
         if (envelope.isDelivered()) {
             deliveredCount--;
+            deliveredDeliveries.remove(delivery);
         }
 
         tryCompleteDeferredClose();
@@ -342,13 +365,59 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         }
 
         int currentCredit = getEndpoint().getCredit();
-        if (currentCredit <= getResourceInfo().getPrefetchSize() * 0.3) {
+        if (currentCredit <= getResourceInfo().getPrefetchSize() * (getResourceInfo().getCreditRefillThreshold() / 100.0)) {
             int newCredit = getResourceInfo().getPrefetchSize() - currentCredit;
             LOG.trace("Consumer {} granting additional credit: {}", getConsumerId(), newCredit);
             getEndpoint().flow(newCredit);
         }
     }
 
+    private boolean isBatchingAcks() {
+        return getResourceInfo().getAcknowledgementMode() == Session.DUPS_OK_ACKNOWLEDGE &&
+               session.getProvider().getAckBatchSize() > 1;
+    }
+
+    /**
+     * Holds an accepted delivery until a full batch has been acknowledged or the batch
+     * delay has elapsed, at which point all held deliveries are settled together so their
+     * dispositions are written out in a single pass.
+     */
+    private void addPendingAck(Delivery delivery) {
+        pendingAcks.add(delivery);
+
+        if (pendingAcks.size() >= session.getProvider().getAckBatchSize()) {
+            settlePendingAcks();
+        } else if (pendingAcksTask == null) {
+            pendingAcksTask = getSession().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    LOG.trace("Consumer {} settling batched acks after delay", getConsumerId());
+                    pendingAcksTask = null;
+                    settlePendingAcks();
+                    session.getProvider().pumpToProtonTransport();
+                }
+            }, Math.max(0, session.getProvider().getAckBatchDelay()));
+        }
+    }
+
+    private void settlePendingAcks() {
+        if (pendingAcksTask != null) {
+            pendingAcksTask.cancel(false);
+            pendingAcksTask = null;
+        }
+
+        if (!pendingAcks.isEmpty()) {
+            LOG.trace("Consumer {} settling {} batched acks", getConsumerId(), pendingAcks.size());
+            for (Delivery delivery : pendingAcks) {
+                if (!delivery.isSettled()) {
+                    delivery.disposition(Accepted.getInstance());
+                    delivery.settle();
+                }
+            }
+            pendingAcks.clear();
+        }
+    }
+
     private void sendFlowForNoPrefetchListener() {
         int currentCredit = getEndpoint().getCredit();
         if (currentCredit < 1) {
@@ -365,29 +434,24 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
      */
     public void recover() throws Exception {
         LOG.debug("Session Recover for consumer: {}", getResourceInfo().getId());
+        settlePendingAcks();
 
         ArrayList<JmsInboundMessageDispatch> redispatchList = new ArrayList<JmsInboundMessageDispatch>();
 
-        Delivery delivery = getEndpoint().head();
-        while (delivery != null) {
-            Delivery current = delivery;
-            delivery = delivery.next();
-
-            if (!(current.getContext() instanceof JmsInboundMessageDispatch)) {
-                LOG.debug("{} Found incomplete delivery with no context during recover processing", AmqpConsumer.this);
+        for (Delivery delivery : deliveredDeliveries) {
+            if (delivery.isSettled()) {
                 continue;
             }
 
-            JmsInboundMessageDispatch envelope = (JmsInboundMessageDispatch) current.getContext();
-            if (envelope.isDelivered()) {
-                envelope.getMessage().getFacade().setRedeliveryCount(
-                    envelope.getMessage().getFacade().getRedeliveryCount() + 1);
-                envelope.setEnqueueFirst(true);
-                envelope.setDelivered(false);
+            JmsInboundMessageDispatch envelope = (JmsInboundMessageDispatch) delivery.getContext();
+            envelope.getMessage().getFacade().setRedeliveryCount(
+                envelope.getMessage().getFacade().getRedeliveryCount() + 1);
+            envelope.setEnqueueFirst(true);
+            envelope.setDelivered(false);
 
-                redispatchList.add(envelope);
-            }
+            redispatchList.add(envelope);
         }
+        deliveredDeliveries.clear();
 
         ListIterator<JmsInboundMessageDispatch> reverseIterator = redispatchList.listIterator(redispatchList.size());
         while (reverseIterator.hasPrevious()) {
@@ -457,7 +521,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
                     // We processed a message, signal completion
                     // of a message pull request if there is one.
                     if (pullRequest != null) {
-                        pullRequest.onSuccess();
+                        completeAfterPendingDecodes(pullRequest);
                         pullRequest = null;
                     }
                 }
@@ -471,7 +535,7 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             // Check if we tried to stop and have now run out of credit.
             if (getEndpoint().getRemoteCredit() <= 0) {
                 if (stopRequest != null) {
-                    stopRequest.onSuccess();
+                    completeAfterPendingDecodes(stopRequest);
                     stopRequest = null;
                 }
             }
@@ -483,6 +547,12 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
     private boolean processDelivery(Delivery incoming) throws Exception {
         incoming.setDefaultDeliveryState(Released.getInstance());
 
+        ExecutorService decoder = session.getProvider().getDecoder();
+        if (decoder != null) {
+            decodeOnDecoder(decoder, incoming);
+            return true;
+        }
+
         JmsMessage message = null;
         try {
             message = AmqpCodec.decodeMessage(this, unwrapIncomingMessage(incoming)).asJmsMessage();
@@ -521,6 +591,85 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         }
     }
 
+    private void decodeOnDecoder(ExecutorService decoder, Delivery incoming) {
+        // The incoming buffer is reused for the next delivery so the decoder works from a copy.
+        ByteBuf encoded = unwrapIncomingMessage(incoming).copy();
+
+        JmsInboundMessageDispatch envelope = new JmsInboundMessageDispatch(getNextIncomingSequenceNumber());
+        envelope.setConsumerId(getResourceInfo().getId());
+        envelope.setProviderHint(incoming);
+
+        // Store reference to envelope in delivery context for recovery
+        incoming.setContext(envelope);
+
+        PendingDecode pending = new PendingDecode(incoming, envelope, encoded);
+        pendingDecodes.add(pending);
+
+        getEndpoint().advance();
+
+        try {
+            decoder.execute(pending);
+        } catch (RejectedExecutionException e) {
+            // Provider is closing, decode in place so the delivery order is maintained.
+            pending.run();
+        }
+    }
+
+    /**
+     * Dispatches decoded messages from the head of the pending queue, stopping at the first
+     * delivery whose decode is still in progress so the arrival order is preserved.
+     */
+    private void dispatchDecodedDeliveries() {
+        decodedDispatchScheduled.set(false);
+
+        try {
+            PendingDecode pending;
+            while ((pending = pendingDecodes.peek()) != null && pending.isDecoded()) {
+                pendingDecodes.poll();
+
+                if (pending.delivery.isSettled()) {
+                    // Released while the decode was in progress, e.g. on rollback.
+                    continue;
+                }
+
+                if (pending.failure != null) {
+                    LOG.warn("Error on transform: {}", pending.failure.getMessage());
+                    deliveryFailedUndeliverable(pending.delivery);
+                } else {
+                    JmsInboundMessageDispatch envelope = pending.envelope;
+                    envelope.setMessage(pending.message);
+                    envelope.setMessageId(pending.message.getFacade().getProviderMessageIdObject());
+
+                    deliver(envelope);
+                }
+            }
+
+            if (pendingDecodes.isEmpty() && !pendingDecodeWaiters.isEmpty()) {
+                ArrayList<AsyncResult> waiters = new ArrayList<AsyncResult>(pendingDecodeWaiters);
+                pendingDecodeWaiters.clear();
+                for (AsyncResult waiter : waiters) {
+                    waiter.onSuccess();
+                }
+            }
+        } catch (Exception e) {
+            session.getProvider().fireProviderException(e);
+        }
+
+        session.getProvider().pumpToProtonTransport();
+    }
+
+    /**
+     * Completes the given request once every delivery handed to the decoder has been
+     * dispatched, so that a pull or stop never completes ahead of the messages it covers.
+     */
+    private void completeAfterPendingDecodes(AsyncResult request) {
+        if (pendingDecodes.isEmpty()) {
+            request.onSuccess();
+        } else {
+            pendingDecodeWaiters.add(request);
+        }
+    }
+
     protected long getNextIncomingSequenceNumber() {
         return ++incomingSequence;
     }
@@ -642,6 +791,23 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
             }
             pullRequest = null;
         }
+
+        pendingDecodes.clear();
+        for (AsyncResult waiter : pendingDecodeWaiters) {
+            if (cause == null) {
+                waiter.onSuccess();
+            } else {
+                waiter.onFailure(cause);
+            }
+        }
+        pendingDecodeWaiters.clear();
+
+        if (pendingAcksTask != null) {
+            pendingAcksTask.cancel(false);
+            pendingAcksTask = null;
+        }
+        pendingAcks.clear();
+        deliveredDeliveries.clear();
     }
 
     private boolean shouldDeferClose() {
@@ -658,11 +824,14 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
 
     private void tryCompleteDeferredClose() {
         if (deferredClose && deliveredCount == 0) {
+            settlePendingAcks();
             super.close(new DeferredCloseRequest());
         }
     }
 
     private void releasePrefetch() {
+        settlePendingAcks();
+
         Delivery delivery = getEndpoint().head();
 
         while (delivery != null) {
@@ -721,6 +890,56 @@ public class AmqpConsumer extends AmqpAbstractResource<JmsConsumerInfo, Receiver
         }
     }
 
+    //----- Inner class used to decode deliveries off the connection thread -//
+
+    private final class PendingDecode implements Runnable {
+
+        private final Delivery delivery;
+        private final JmsInboundMessageDispatch envelope;
+        private final ByteBuf encoded;
+
+        private JmsMessage message;
+        private Exception failure;
+        private volatile boolean decoded;
+
+        public PendingDecode(Delivery delivery, JmsInboundMessageDispatch envelope, ByteBuf encoded) {
+            this.delivery = delivery;
+            this.envelope = envelope;
+            this.encoded = encoded;
+        }
+
+        public boolean isDecoded() {
+            return decoded;
+        }
+
+        @Override
+        public void run() {
+            try {
+                message = AmqpCodec.decodeMessage(AmqpConsumer.this, encoded).asJmsMessage();
+                // Let the message do any final processing before sending it onto a consumer.
+                message.onDispatch();
+            } catch (Exception e) {
+                failure = e;
+            }
+
+            decoded = true;
+
+            if (decodedDispatchScheduled.compareAndSet(false, true)) {
+                try {
+                    session.getProvider().getScheduler().execute(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            dispatchDecodedDeliveries();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    LOG.trace("Provider closed before decoded message could be dispatched: {}", envelope);
+                }
+            }
+        }
+    }
+
     //----- Inner class used in message pull operations ----------------------//
 
     private static final class ScheduledRequest implements AsyncResult {
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.amqp;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import io.netty.channel.EventLoop;
+
+/**
+ * Serializes the work of an AmqpProvider on the event loop of its transport.
+ * <p>
+ * The event loop is owned by the transport and may be shared with other connections, so
+ * shutting down this scheduler only stops it accepting new work and skips delayed tasks
+ * that have not yet run, the event loop itself is left running.
+ */
+final class AmqpEventLoopScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final EventLoop eventLoop;
+    private volatile boolean shutdown;
+
+    public AmqpEventLoopScheduler(EventLoop eventLoop) {
+        this.eventLoop = eventLoop;
+    }
+
+    /**
+     * @return true if the calling thread is the event loop thread.
+     */
+    public boolean inEventLoop() {
+        return eventLoop.inEventLoop();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        checkShutdown();
+        eventLoop.execute(command);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(final Runnable command, long delay, TimeUnit unit) {
+        checkShutdown();
+        return eventLoop.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                if (!shutdown) {
+                    command.run();
+                }
+            }
+        }, delay, unit);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(final Callable<V> callable, long delay, TimeUnit unit) {
+        checkShutdown();
+        return eventLoop.schedule(new Callable<V>() {
+
+            @Override
+            public V call() throws Exception {
+                return shutdown ? null : callable.call();
+            }
+        }, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(final Runnable command, long initialDelay, long period, TimeUnit unit) {
+        checkShutdown();
+        return eventLoop.scheduleAtFixedRate(new Runnable() {
+
+            @Override
+            public void run() {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Scheduler has been shut down");
+                }
+
+                command.run();
+            }
+        }, initialDelay, period, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(final Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        checkShutdown();
+        return eventLoop.scheduleWithFixedDelay(new Runnable() {
+
+            @Override
+            public void run() {
+                if (shutdown) {
+                    throw new RejectedExecutionException("Scheduler has been shut down");
+                }
+
+                command.run();
+            }
+        }, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        return Collections.emptyList();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown || eventLoop.isShuttingDown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return isShutdown();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        // Work already queued on the event loop runs along with that of the other
+        // channels it serves, there is nothing here to wait on.
+        return isShutdown();
+    }
+
+    @Override
+    public String toString() {
+        return "AmqpEventLoopScheduler { " + eventLoop + " }";
+    }
+
+    private void checkShutdown() {
+        if (shutdown) {
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+    }
+}
@@ -18,10 +18,7 @@ package org.apache.qpid.jms.provider.amqp;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.concurrent.ScheduledFuture;
 
 import javax.jms.IllegalStateException;
@@ -32,6 +29,7 @@ import org.apache.qpid.jms.message.JmsOutboundMessageDispatch;
 import org.apache.qpid.jms.meta.JmsConnectionInfo;
 import org.apache.qpid.jms.meta.JmsProducerInfo;
 import org.apache.qpid.jms.provider.AsyncResult;
+import org.apache.qpid.jms.provider.amqp.message.AmqpCodec;
 import org.apache.qpid.jms.util.IOExceptionSupport;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
@@ -61,8 +59,8 @@ public class AmqpFixedProducer extends AmqpProducer {
     private static final byte[] EMPTY_BYTE_ARRAY = new byte[] {};
 
     private final AmqpTransferTagGenerator tagGenerator = new AmqpTransferTagGenerator(true);
-    private final Map<Object, InFlightSend> sent = new LinkedHashMap<Object, InFlightSend>();
-    private final Map<Object, InFlightSend> blocked = new LinkedHashMap<Object, InFlightSend>();
+    private final InFlightSendQueue sent = new InFlightSendQueue();
+    private final InFlightSendQueue blocked = new InFlightSendQueue();
 
     private AsyncResult sendCompletionWatcher;
 
@@ -78,7 +76,7 @@ public class AmqpFixedProducer extends AmqpProducer {
     @Override
     public void close(AsyncResult request) {
         // If any sends are held we need to wait for them to complete.
-        if (!blocked.isEmpty() || !sent.isEmpty()) {
+        if (hasInFlightSends()) {
             this.closeRequest = request;
             return;
         }
@@ -89,11 +87,14 @@ public class AmqpFixedProducer extends AmqpProducer {
     @Override
     public void send(JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException {
         if (isClosed()) {
+            releaseSendResources(envelope);
             request.onFailure(new IllegalStateException("The MessageProducer is closed"));
+            return;
         }
 
-        if (!delayedDeliverySupported && envelope.getMessage().getJMSDeliveryTime() != 0) {
+        if (!delayedDeliverySupported && envelope.getDeliveryTime() != 0) {
             // Don't allow sends with delay if the remote has not said it can handle them
+            releaseSendResources(envelope);
             request.onFailure(new JMSException("Remote does not support delayed message delivery"));
         } else if (getEndpoint().getCredit() <= 0) {
             LOG.trace("Holding Message send until credit is available.");
@@ -104,7 +105,7 @@ public class AmqpFixedProducer extends AmqpProducer {
                 send.requestTimeout = getParent().getProvider().scheduleRequestTimeout(send, getSendTimeout(), send);
             }
 
-            blocked.put(envelope.getMessageId(), send);
+            blocked.add(send);
             getParent().getProvider().pumpToProtonTransport(request);
         } else {
             doSend(envelope, request);
@@ -115,6 +116,7 @@ public class AmqpFixedProducer extends AmqpProducer {
         // If the transaction has failed due to remote termination etc then we just indicate
         // the send has succeeded until the a new transaction is started.
         if (session.isTransacted() && session.isTransactionFailed()) {
+            releaseSendResources(envelope);
             request.onSuccess();
             return;
         }
@@ -160,7 +162,7 @@ public class AmqpFixedProducer extends AmqpProducer {
         if (presettle) {
             delivery.settle();
         } else {
-            sent.put(envelope.getMessageId(), send);
+            sent.add(send);
             getEndpoint().advance();
         }
 
@@ -183,20 +185,43 @@ public class AmqpFixedProducer extends AmqpProducer {
         }
     }
 
+    /*
+     * Returns a payload encoded into a pooled buffer back to the pool, the encoded
+     * bytes are copied into the Proton delivery on send so once the send has been
+     * settled or failed it is no longer needed.  Any send window capacity held by
+     * the send is also returned so that blocked senders can proceed.
+     */
+    static void releaseSendResources(JmsOutboundMessageDispatch envelope) {
+        envelope.releaseSendWindow();
+
+        if (AmqpCodec.isPooledEncodeBuffer(envelope.getPayload())) {
+            envelope.releasePayload();
+        }
+    }
+
+    /*
+     * Releases the resources of a failed send, unless the failure is one that the owner
+     * of a retryable send may recover from by sending again, in which case the payload
+     * is left for the retry and is released by the owner if it gives up on the send.  A
+     * send whose request has already completed is not retried.
+     */
+    static void releaseSendResources(JmsOutboundMessageDispatch envelope, AsyncResult request, Throwable cause) {
+        if (!envelope.isRetryable() || cause instanceof JMSException || request.isComplete()) {
+            releaseSendResources(envelope);
+        } else {
+            envelope.releaseSendWindow();
+        }
+    }
+
     @Override
     public void processFlowUpdates(AmqpProvider provider) throws IOException {
-        if (!blocked.isEmpty() && getEndpoint().getCredit() > 0) {
-            Iterator<InFlightSend> blockedSends = blocked.values().iterator();
-            while (getEndpoint().getCredit() > 0 && blockedSends.hasNext()) {
-                LOG.trace("Dispatching previously held send");
-                InFlightSend held = blockedSends.next();
-                try {
-                    doSend(held.getEnvelope(), held);
-                } catch (JMSException e) {
-                    throw IOExceptionSupport.create(e);
-                } finally {
-                    blockedSends.remove();
-                }
+        while (!blocked.isEmpty() && getEndpoint().getCredit() > 0) {
+            LOG.trace("Dispatching previously held send");
+            InFlightSend held = blocked.poll();
+            try {
+                doSend(held.getEnvelope(), held);
+            } catch (JMSException e) {
+                throw IOExceptionSupport.create(e);
             }
         }
 
@@ -268,6 +293,11 @@ public class AmqpFixedProducer extends AmqpProducer {
         return getEndpoint().getSenderSettleMode() == SenderSettleMode.SETTLED;
     }
 
+    @Override
+    public boolean hasInFlightSends() {
+        return !blocked.isEmpty() || !sent.isEmpty();
+    }
+
     public long getSendTimeout() {
         return getParent().getProvider().getSendTimeout();
     }
@@ -284,8 +314,7 @@ public class AmqpFixedProducer extends AmqpProducer {
             error = new JMSException("Producer closed remotely before message transfer result was notified");
         }
 
-        Collection<InFlightSend> inflightSends = new ArrayList<InFlightSend>(sent.values());
-        for (InFlightSend send : inflightSends) {
+        for (InFlightSend send : sent.toList()) {
             try {
                 send.onFailure(error);
             } catch (Exception e) {
@@ -293,8 +322,7 @@ public class AmqpFixedProducer extends AmqpProducer {
             }
         }
 
-        Collection<InFlightSend> blockedSends = new ArrayList<InFlightSend>(blocked.values());
-        for (InFlightSend send : blockedSends) {
+        for (InFlightSend send : blocked.toList()) {
             try {
                 send.onFailure(error);
             } catch (Exception e) {
@@ -324,6 +352,11 @@ public class AmqpFixedProducer extends AmqpProducer {
         private Delivery delivery;
         private ScheduledFuture<?> requestTimeout;
 
+        // Links of the queue that currently holds this send, if any.
+        private InFlightSendQueue queue;
+        private InFlightSend previous;
+        private InFlightSend next;
+
         public InFlightSend(JmsOutboundMessageDispatch envelope, AsyncResult request) {
             this.envelope = envelope;
             this.request = request;
@@ -331,6 +364,7 @@ public class AmqpFixedProducer extends AmqpProducer {
 
         @Override
         public void onFailure(Throwable cause) {
+            releaseSendResources(envelope, request, cause);
             handleSendCompletion(false);
 
             if (request.isComplete()) {
@@ -348,6 +382,7 @@ public class AmqpFixedProducer extends AmqpProducer {
 
         @Override
         public void onSuccess() {
+            releaseSendResources(envelope);
             handleSendCompletion(true);
 
             if (!request.isComplete()) {
@@ -392,15 +427,18 @@ public class AmqpFixedProducer extends AmqpProducer {
             setRequestTimeout(null);
 
             if (getDelivery() != null) {
-                sent.remove(envelope.getMessageId());
                 delivery.settle();
-                tagGenerator.returnTag(delivery.getTag());
+                if (sent.remove(this)) {
+                    tagGenerator.returnTag(delivery.getTag());
+                }
             } else {
-                blocked.remove(envelope.getMessageId());
+                blocked.remove(this);
             }
 
             // Put the message back to usable state following send complete
-            envelope.getMessage().onSendComplete();
+            if (!envelope.isMessageDetached()) {
+                envelope.getMessage().onSendComplete();
+            }
 
             // Signal the watcher that all pending sends have completed if one is registered
             // and both the in-flight sends and blocked sends have completed.
@@ -425,4 +463,76 @@ public class AmqpFixedProducer extends AmqpProducer {
             }
         }
     }
+
+    //----- Queue of held or unsettled sends ---------------------------------//
+
+    /*
+     * Insertion ordered queue that links the sends themselves so that adding and removing a
+     * send neither hashes a key nor allocates, a send can only be held in one queue at a time.
+     */
+    private static final class InFlightSendQueue {
+
+        private InFlightSend head;
+        private InFlightSend tail;
+
+        public boolean isEmpty() {
+            return head == null;
+        }
+
+        public void add(InFlightSend send) {
+            send.queue = this;
+            send.previous = tail;
+            send.next = null;
+
+            if (tail == null) {
+                head = send;
+            } else {
+                tail.next = send;
+            }
+
+            tail = send;
+        }
+
+        public InFlightSend poll() {
+            InFlightSend send = head;
+            if (send != null) {
+                remove(send);
+            }
+
+            return send;
+        }
+
+        public boolean remove(InFlightSend send) {
+            if (send.queue != this) {
+                return false;
+            }
+
+            if (send.previous == null) {
+                head = send.next;
+            } else {
+                send.previous.next = send.next;
+            }
+
+            if (send.next == null) {
+                tail = send.previous;
+            } else {
+                send.next.previous = send.previous;
+            }
+
+            send.queue = null;
+            send.previous = null;
+            send.next = null;
+
+            return true;
+        }
+
+        public List<InFlightSend> toList() {
+            List<InFlightSend> sends = new ArrayList<InFlightSend>();
+            for (InFlightSend send = head; send != null; send = send.next) {
+                sends.add(send);
+            }
+
+            return sends;
+        }
+    }
 }
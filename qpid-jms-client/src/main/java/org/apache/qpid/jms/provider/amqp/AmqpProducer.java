@@ -95,6 +95,11 @@ public abstract class AmqpProducer extends AmqpAbstractResource<JmsProducerInfo,
         this.delayedDeliverySupported = delayedDeliverySupported;
     }
 
+    /**
+     * @return true if this producer has sends that are waiting for credit or settlement.
+     */
+    public abstract boolean hasInFlightSends();
+
     /**
      * Allows a completion request to be added to this producer that will be notified
      * once all outstanding sends have completed.
@@ -20,6 +20,8 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -60,6 +62,7 @@ import org.apache.qpid.jms.transports.Transport;
 import org.apache.qpid.jms.transports.TransportListener;
 import org.apache.qpid.jms.util.IOExceptionSupport;
 import org.apache.qpid.jms.util.ThreadPoolUtils;
+import org.apache.qpid.jms.util.TimeoutWheel;
 import org.apache.qpid.proton.engine.Collector;
 import org.apache.qpid.proton.engine.Connection;
 import org.apache.qpid.proton.engine.Delivery;
@@ -76,6 +79,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
+import io.netty.channel.EventLoop;
 import io.netty.util.ReferenceCountUtil;
 
 /**
@@ -118,12 +122,24 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     private int drainTimeout = 60000;
     private long sessionOutoingWindow = -1; // Use proton default
     private int maxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private boolean coalesceWrites;
+    private boolean pooledEncodeBuffers;
+    private boolean lazyMessageDecoding;
+    private int decodeThreads;
+    private int ackBatchSize;
+    private int ackBatchDelay = 100;
+    private boolean useTransportEventLoop;
+    private int anonymousFallbackCacheSize;
+    private int anonymousFallbackCacheTimeout = 30000;
+    private boolean declareAhead;
 
     private boolean allowNonSecureRedirects;
 
     private final URI remoteURI;
     private final AtomicBoolean closed = new AtomicBoolean();
-    private ScheduledThreadPoolExecutor serializer;
+    private volatile ScheduledExecutorService serializer;
+    private volatile ExecutorService decoder;
+    private TimeoutWheel timeouts;
     private final org.apache.qpid.proton.engine.Transport protonTransport =
         org.apache.qpid.proton.engine.Transport.Factory.create();
     private final Collector protonCollector = new CollectorImpl();
@@ -131,6 +147,9 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
     private AsyncResult connectionRequest;
     private ScheduledFuture<?> nextIdleTimeoutCheck;
+    private boolean flushPending;
+    // Set while a batch of sends is being processed so that output is written once at the end.
+    private boolean deferPumping;
 
     /**
      * Create a new instance of an AmqpProvider bonded to the given remote URI.
@@ -143,8 +162,11 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     public AmqpProvider(URI remoteURI, Transport transport) {
         this.remoteURI = remoteURI;
         this.transport = transport;
+        this.serializer = createSerializer();
+    }
 
-        serializer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+    private ScheduledExecutorService createSerializer() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
 
             @Override
             public Thread newThread(Runnable runner) {
@@ -157,8 +179,10 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
             }
         });
 
-        serializer.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        serializer.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        executor.setContinueExistingPeriodicTasksAfterShutdownPolicy(false);
+
+        return executor;
     }
 
     @Override
@@ -167,55 +191,75 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
         final ProviderFuture connectRequest = new ProviderFuture();
 
-        serializer.execute(new Runnable() {
-
-            @Override
-            public void run() {
-
-                connectionRequest = connectRequest;
-                AmqpProvider.this.connectionInfo = connectionInfo;
+        EventLoop eventLoop = isUseTransportEventLoop() ? transport.getEventLoop() : null;
+        if (eventLoop != null) {
+            // The transport connect blocks until the channel is active so it must not be run
+            // on the event loop, Proton is configured here before any data can arrive.
+            connectionRequest = connectRequest;
+            this.connectionInfo = connectionInfo;
+
+            // All provider work moves to the I/O thread of the transport before it connects
+            // so that data read as soon as the channel is active is processed on the loop and
+            // never queued on the provider's own executor, anything handed to that executor
+            // earlier is allowed to finish before Proton is touched from the loop.
+            AmqpEventLoopScheduler loopScheduler = new AmqpEventLoopScheduler(eventLoop);
+            boolean connected = false;
+            try {
+                ScheduledExecutorService executor = serializer;
+                serializer = loopScheduler;
+                executor.shutdown();
+                executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+
+                configureProtonTransport();
+
+                transport.setTransportListener(AmqpProvider.this);
+                transport.connect(connectionInfo.getSslContextOverride());
+                connected = true;
+            } catch (Throwable t) {
+                // A failed connect releases the event loop, go back to an executor of the
+                // provider's own so that a later close is not handed to a loop that is gone.
+                loopScheduler.shutdown();
+                serializer = createSerializer();
+                connectRequest.onFailure(IOExceptionSupport.create(t));
+            }
 
-                try {
-                    protonTransport.setEmitFlowEventOnSend(false);
+            if (connected) {
+                serializer.execute(new Runnable() {
 
-                    if (getMaxFrameSize() > 0) {
-                        protonTransport.setMaxFrameSize(getMaxFrameSize());
+                    @Override
+                    public void run() {
+                        try {
+                            startAuthentication();
+                        } catch (Throwable t) {
+                            connectRequest.onFailure(IOExceptionSupport.create(t));
+                        }
                     }
+                });
+            }
+        } else {
+            serializer.execute(new Runnable() {
 
-                    protonTransport.setChannelMax(getChannelMax());
-                    protonTransport.setIdleTimeout(idleTimeout);
-                    protonTransport.bind(protonConnection);
-                    protonConnection.collect(protonCollector);
-
-                    SSLContext sslContextOverride = connectionInfo.getSslContextOverride();
-
-                    transport.setTransportListener(AmqpProvider.this);
-                    transport.connect(sslContextOverride);
+                @Override
+                public void run() {
 
-                    if (saslLayer) {
-                        Sasl sasl = protonTransport.sasl();
-                        sasl.client();
+                    connectionRequest = connectRequest;
+                    AmqpProvider.this.connectionInfo = connectionInfo;
 
-                        String hostname = getVhost();
-                        if (hostname == null) {
-                            hostname = remoteURI.getHost();
-                        } else if (hostname.isEmpty()) {
-                            hostname = null;
-                        }
+                    try {
+                        configureProtonTransport();
 
-                        sasl.setRemoteHostname(hostname);
+                        SSLContext sslContextOverride = connectionInfo.getSslContextOverride();
 
-                        authenticator = new AmqpSaslAuthenticator(connectionRequest, sasl, connectionInfo, transport.getLocalPrincipal(), saslMechanisms);
+                        transport.setTransportListener(AmqpProvider.this);
+                        transport.connect(sslContextOverride);
 
-                        pumpToProtonTransport();
-                    } else {
-                        connectRequest.onSuccess();
+                        startAuthentication();
+                    } catch (Throwable t) {
+                        connectionRequest.onFailure(IOExceptionSupport.create(t));
                     }
-                } catch (Throwable t) {
-                    connectionRequest.onFailure(IOExceptionSupport.create(t));
                 }
-            }
-        });
+            });
+        }
 
         if (connectionInfo.getConnectTimeout() != JmsConnectionInfo.INFINITE) {
             connectRequest.sync(connectionInfo.getConnectTimeout(), TimeUnit.MILLISECONDS);
@@ -224,6 +268,45 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         }
     }
 
+    private void configureProtonTransport() {
+        protonTransport.setEmitFlowEventOnSend(false);
+
+        if (getMaxFrameSize() > 0) {
+            protonTransport.setMaxFrameSize(getMaxFrameSize());
+        }
+
+        protonTransport.setChannelMax(getChannelMax());
+        protonTransport.setIdleTimeout(idleTimeout);
+        protonTransport.bind(protonConnection);
+        protonConnection.collect(protonCollector);
+
+        if (saslLayer) {
+            Sasl sasl = protonTransport.sasl();
+            sasl.client();
+
+            String hostname = getVhost();
+            if (hostname == null) {
+                hostname = remoteURI.getHost();
+            } else if (hostname.isEmpty()) {
+                hostname = null;
+            }
+
+            sasl.setRemoteHostname(hostname);
+        }
+    }
+
+    private void startAuthentication() {
+        if (saslLayer) {
+            authenticator = new AmqpSaslAuthenticator(connectionRequest, protonTransport.sasl(), connectionInfo, transport.getLocalPrincipal(), saslMechanisms);
+
+            // Handle any SASL frames that were read before the authenticator existed.
+            processSaslAuthentication();
+            pumpToProtonTransport();
+        } else {
+            connectionRequest.onSuccess();
+        }
+    }
+
     @Override
     public void start() throws IOException, IllegalStateException {
         checkClosed();
@@ -312,6 +395,9 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                     }
                 } finally {
                     ThreadPoolUtils.shutdownGraceful(serializer);
+                    if (decoder != null) {
+                        ThreadPoolUtils.shutdownNow(decoder);
+                    }
                 }
             }
         }
@@ -572,12 +658,63 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
                     producer.send(envelope, request);
                 } catch (Throwable t) {
+                    AmqpFixedProducer.releaseSendResources(envelope, request, t);
                     request.onFailure(t);
                 }
             }
         });
     }
 
+    @Override
+    public void send(final List<JmsOutboundMessageDispatch> envelopes, final List<? extends AsyncResult> requests) throws IOException {
+        checkClosed();
+        serializer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                deferPumping = true;
+                try {
+                    for (int i = 0; i < envelopes.size(); ++i) {
+                        JmsOutboundMessageDispatch envelope = envelopes.get(i);
+                        AsyncResult request = requests.get(i);
+
+                        try {
+                            checkClosed();
+
+                            JmsProducerId producerId = envelope.getProducerId();
+                            AmqpProducer producer = null;
+
+                            if (producerId.getProviderHint() instanceof AmqpFixedProducer) {
+                                producer = (AmqpFixedProducer) producerId.getProviderHint();
+                            } else {
+                                AmqpSession session = connection.getSession(producerId.getParentId());
+                                producer = session.getProducer(producerId);
+                            }
+
+                            producer.send(envelope, request);
+                        } catch (Throwable t) {
+                            AmqpFixedProducer.releaseSendResources(envelope, request, t);
+                            request.onFailure(t);
+                        }
+                    }
+                } finally {
+                    deferPumping = false;
+                }
+
+                // All of the transfers in the batch are written with a single pump, any
+                // send that is not yet complete fails along with the write.
+                if (!pumpToProtonTransport()) {
+                    IOException error = new IOException("Failed to write batch of message sends");
+                    for (AsyncResult request : requests) {
+                        if (!request.isComplete()) {
+                            request.onFailure(error);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public void acknowledge(final JmsSessionId sessionId, final ACK_TYPE ackType, final AsyncResult request) throws IOException {
         checkClosed();
@@ -757,6 +894,14 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
     @Override
     public void onData(final ByteBuf input) {
+        ScheduledExecutorService serializer = this.serializer;
+        if (serializer instanceof AmqpEventLoopScheduler && ((AmqpEventLoopScheduler) serializer).inEventLoop()) {
+            // Already on the serializing thread, process the data now without a hand off.
+            if (!serializer.isShutdown()) {
+                processInput(input);
+            }
+            return;
+        }
 
         // We need to retain until the serializer gets around to processing it.
         ReferenceCountUtil.retain(input);
@@ -765,30 +910,36 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
 
             @Override
             public void run() {
-                if (isTraceBytes()) {
-                    TRACE_BYTES.info("Received: {}", ByteBufUtil.hexDump(input));
+                try {
+                    processInput(input);
+                } finally {
+                    ReferenceCountUtil.release(input);
                 }
+            }
+        });
+    }
 
-                ByteBuffer source = input.nioBuffer();
+    private void processInput(ByteBuf input) {
+        if (isTraceBytes()) {
+            TRACE_BYTES.info("Received: {}", ByteBufUtil.hexDump(input));
+        }
 
-                do {
-                    ByteBuffer buffer = protonTransport.getInputBuffer();
-                    int limit = Math.min(buffer.remaining(), source.remaining());
-                    ByteBuffer duplicate = source.duplicate();
-                    duplicate.limit(source.position() + limit);
-                    buffer.put(duplicate);
-                    protonTransport.processInput();
-                    source.position(source.position() + limit);
-                } while (source.hasRemaining());
+        ByteBuffer source = input.nioBuffer();
 
-                ReferenceCountUtil.release(input);
+        do {
+            ByteBuffer buffer = protonTransport.getInputBuffer();
+            int limit = Math.min(buffer.remaining(), source.remaining());
+            ByteBuffer duplicate = source.duplicate();
+            duplicate.limit(source.position() + limit);
+            buffer.put(duplicate);
+            protonTransport.processInput();
+            source.position(source.position() + limit);
+        } while (source.hasRemaining());
 
-                // Process the state changes from the latest data and then answer back
-                // any pending updates to the Broker.
-                processUpdates();
-                pumpToProtonTransport();
-            }
-        });
+        // Process the state changes from the latest data and then answer back
+        // any pending updates to the Broker.
+        processUpdates();
+        pumpToProtonTransport();
     }
 
     /**
@@ -950,24 +1101,46 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
     }
 
     protected boolean pumpToProtonTransport(AsyncResult request) {
+        if (deferPumping) {
+            return true;
+        }
+
         try {
             boolean done = false;
+            boolean written = false;
             while (!done) {
                 ByteBuffer toWrite = protonTransport.getOutputBuffer();
                 if (toWrite != null && toWrite.hasRemaining()) {
+                    // The send buffer comes from the transport's IO buffer pool so the
+                    // Proton output is copied once and handed to the socket as is.
                     ByteBuf outbound = transport.allocateSendBuffer(toWrite.remaining());
-                    outbound.writeBytes(toWrite);
+                    try {
+                        outbound.writeBytes(toWrite);
 
-                    if (isTraceBytes()) {
-                        TRACE_BYTES.info("Sending: {}", ByteBufUtil.hexDump(outbound));
+                        if (isTraceBytes()) {
+                            TRACE_BYTES.info("Sending: {}", ByteBufUtil.hexDump(outbound));
+                        }
+
+                        transport.write(outbound);
+                    } catch (IOException | RuntimeException e) {
+                        ReferenceCountUtil.safeRelease(outbound);
+                        throw e;
                     }
 
-                    transport.send(outbound);
                     protonTransport.outputConsumed();
+                    written = true;
                 } else {
                     done = true;
                 }
             }
+
+            if (written) {
+                if (isCoalesceWrites() && !closed.get()) {
+                    scheduleFlush();
+                } else {
+                    transport.flush();
+                }
+            }
         } catch (IOException e) {
             fireProviderException(e);
             request.onFailure(e);
@@ -977,6 +1150,32 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         return true;
     }
 
+    /*
+     * Queues a flush behind any work already waiting on the serializer so that the
+     * output of all of those tasks is written to the transport with a single flush.
+     */
+    private void scheduleFlush() {
+        if (!flushPending) {
+            flushPending = true;
+            serializer.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    flushPending = false;
+                    try {
+                        transport.flush();
+                    } catch (IOException e) {
+                        if (!closed.get()) {
+                            fireProviderException(e);
+                        } else {
+                            LOG.debug("Caught exception while flushing closed Transport: {}", e.getMessage());
+                        }
+                    }
+                }
+            });
+        }
+    }
+
     void fireConnectionEstablished() {
         // The request onSuccess calls this method
         connectionRequest = null;
@@ -1163,6 +1362,176 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         this.maxFrameSize = maxFrameSize;
     }
 
+    public boolean isCoalesceWrites() {
+        return coalesceWrites;
+    }
+
+    /**
+     * Sets whether the provider defers flushing of the transport until the work
+     * already queued for processing has been completed, allowing the frames produced
+     * by many operations (such as asynchronous sends) to be written with a single
+     * flush instead of one flush per operation.
+     *
+     * @param coalesceWrites
+     *      true if writes should be coalesced across queued provider work.
+     */
+    public void setCoalesceWrites(boolean coalesceWrites) {
+        this.coalesceWrites = coalesceWrites;
+    }
+
+    public boolean isPooledEncodeBuffers() {
+        return pooledEncodeBuffers;
+    }
+
+    /**
+     * Sets whether outbound messages are encoded into buffers taken from a pool, sized
+     * from a running estimate of the encoded message size, which are released back to
+     * the pool once the send has been settled or has failed.
+     *
+     * @param pooledEncodeBuffers
+     *      true if messages should be encoded into pooled buffers.
+     */
+    public void setPooledEncodeBuffers(boolean pooledEncodeBuffers) {
+        this.pooledEncodeBuffers = pooledEncodeBuffers;
+    }
+
+    public boolean isLazyMessageDecoding() {
+        return lazyMessageDecoding;
+    }
+
+    /**
+     * Sets whether inbound messages are only partially decoded on arrival.  When enabled
+     * the delivery annotations, application properties, body and footer sections are kept
+     * in their encoded form and decoded the first time they are accessed, which moves that
+     * work off the connection thread and skips it entirely for sections never read.
+     *
+     * @param lazyMessageDecoding
+     *      true if message sections should be decoded on first access.
+     */
+    public void setLazyMessageDecoding(boolean lazyMessageDecoding) {
+        this.lazyMessageDecoding = lazyMessageDecoding;
+    }
+
+    public int getDecodeThreads() {
+        return decodeThreads;
+    }
+
+    /**
+     * Sets the number of threads used to decode incoming messages away from the thread that
+     * services the connection.  Decoded messages are still dispatched from the connection
+     * thread in the order their deliveries arrived on each consumer.  A value of zero, the
+     * default, decodes incoming messages on the connection thread.
+     *
+     * @param decodeThreads
+     *      the number of threads used to decode incoming messages.
+     */
+    public void setDecodeThreads(int decodeThreads) {
+        this.decodeThreads = decodeThreads;
+    }
+
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    /**
+     * Sets the number of accepted deliveries a consumer in a DUPS_OK_ACKNOWLEDGE session
+     * may hold before settling them together, so that their dispositions are written to the
+     * transport in a single pass.  Other acknowledgement modes always settle each delivery
+     * as it is acknowledged.  Held deliveries are also settled once the ack batch delay elapses
+     * and before any operation that depends on their state, such as a recover or a close.
+     * A value of zero or one, the default, settles each delivery as it is acknowledged.
+     *
+     * @param ackBatchSize
+     *      the number of acknowledged deliveries to settle together.
+     */
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = ackBatchSize;
+    }
+
+    public int getAckBatchDelay() {
+        return ackBatchDelay;
+    }
+
+    /**
+     * Sets the maximum time (in milliseconds) that a consumer holds acknowledged deliveries
+     * when ack batching is enabled before settling those held so far.
+     *
+     * @param ackBatchDelay
+     *      the maximum time an acknowledged delivery is held before being settled.
+     */
+    public void setAckBatchDelay(int ackBatchDelay) {
+        this.ackBatchDelay = ackBatchDelay;
+    }
+
+    public boolean isUseTransportEventLoop() {
+        return useTransportEventLoop;
+    }
+
+    /**
+     * Sets whether the provider runs its work on the I/O event loop of its transport instead
+     * of on a thread of its own.  Incoming data is then handed to Proton on the thread that
+     * read it, while calls from application threads are queued onto that event loop.  Work
+     * run by the provider must not block as it holds up the I/O of any other connections
+     * that share the event loop.
+     *
+     * @param useTransportEventLoop
+     *      true if the provider should run on the transport's event loop.
+     */
+    public void setUseTransportEventLoop(boolean useTransportEventLoop) {
+        this.useTransportEventLoop = useTransportEventLoop;
+    }
+
+    public int getAnonymousFallbackCacheSize() {
+        return anonymousFallbackCacheSize;
+    }
+
+    /**
+     * Sets the number of per-destination sender links that an anonymous producer keeps open
+     * when the remote does not offer an anonymous relay.  While caching is enabled sends that
+     * are asynchronous stay so, and sends to a destination whose link is still attaching are
+     * queued and written once it opens.  A value of zero, the default, disables caching and
+     * a link is attached and detached around each send, which is then always synchronous.
+     *
+     * @param anonymousFallbackCacheSize
+     *      the maximum number of links cached by each anonymous fallback producer.
+     */
+    public void setAnonymousFallbackCacheSize(int anonymousFallbackCacheSize) {
+        this.anonymousFallbackCacheSize = anonymousFallbackCacheSize;
+    }
+
+    public int getAnonymousFallbackCacheTimeout() {
+        return anonymousFallbackCacheTimeout;
+    }
+
+    /**
+     * Sets the time (in milliseconds) that a cached anonymous fallback link may go without
+     * a send before it is closed, a value of zero or less keeps idle links open until they
+     * are evicted from the cache.
+     *
+     * @param anonymousFallbackCacheTimeout
+     *      the idle time after which a cached fallback link is closed.
+     */
+    public void setAnonymousFallbackCacheTimeout(int anonymousFallbackCacheTimeout) {
+        this.anonymousFallbackCacheTimeout = anonymousFallbackCacheTimeout;
+    }
+
+    public boolean isDeclareAhead() {
+        return declareAhead;
+    }
+
+    /**
+     * Sets whether a transacted session declares its next transaction as soon as it has
+     * written the discharge that commits the current one.  The declare then follows the
+     * discharge in the same flush and its outcome arrives with that of the commit, saving
+     * a round trip to the remote per commit.
+     *
+     * @param declareAhead
+     *      true if the next transaction should be declared along with each commit.
+     */
+    public void setDeclareAhead(boolean declareAhead) {
+        this.declareAhead = declareAhead;
+    }
+
     public long getSessionOutgoingWindow() {
         return sessionOutoingWindow;
     }
@@ -1252,6 +1621,41 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
         return this.serializer;
     }
 
+    /**
+     * @return the wheel used to track request timeouts, which must only be used from the serializer.
+     */
+    TimeoutWheel getTimeouts() {
+        if (timeouts == null) {
+            timeouts = new TimeoutWheel(serializer);
+        }
+
+        return timeouts;
+    }
+
+    /**
+     * @return the executor used to decode incoming messages, or null if messages are
+     *         decoded on the connection thread.
+     */
+    ExecutorService getDecoder() {
+        if (decoder == null && decodeThreads > 0 && !closed.get()) {
+            decoder = Executors.newFixedThreadPool(decodeThreads, new ThreadFactory() {
+
+                private final AtomicInteger decoderSequence = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runner) {
+                    Thread decode = new Thread(runner);
+                    decode.setDaemon(true);
+                    decode.setName(AmqpProvider.this.getClass().getSimpleName() + ":[" +
+                                   getRemoteURI() + "]:decoder-" + decoderSequence.incrementAndGet());
+                    return decode;
+                }
+            });
+        }
+
+        return decoder;
+    }
+
     @Override
     public AmqpProvider getProvider() {
         return this;
@@ -1273,7 +1677,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
      */
     public ScheduledFuture<?> scheduleRequestTimeout(final AsyncResult request, long timeout, final Exception error) {
         if (timeout != JmsConnectionInfo.INFINITE) {
-            return serializer.schedule(new Runnable() {
+            return getTimeouts().schedule(new Runnable() {
 
                 @Override
                 public void run() {
@@ -1281,7 +1685,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                     pumpToProtonTransport();
                 }
 
-            }, timeout, TimeUnit.MILLISECONDS);
+            }, timeout);
         }
 
         return null;
@@ -1303,7 +1707,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
      */
     public ScheduledFuture<?> scheduleRequestTimeout(final AsyncResult request, long timeout, final AmqpExceptionBuilder builder) {
         if (timeout != JmsConnectionInfo.INFINITE) {
-            return serializer.schedule(new Runnable() {
+            return getTimeouts().schedule(new Runnable() {
 
                 @Override
                 public void run() {
@@ -1311,7 +1715,7 @@ public class AmqpProvider implements Provider, TransportListener , AmqpResourceP
                     pumpToProtonTransport();
                 }
 
-            }, timeout, TimeUnit.MILLISECONDS);
+            }, timeout);
         }
 
         return null;
@@ -23,6 +23,7 @@ import java.util.Set;
 import javax.jms.IllegalStateException;
 import javax.jms.TransactionRolledBackException;
 
+import org.apache.qpid.jms.meta.JmsConnectionId;
 import org.apache.qpid.jms.meta.JmsSessionInfo;
 import org.apache.qpid.jms.meta.JmsTransactionId;
 import org.apache.qpid.jms.meta.JmsTransactionInfo;
@@ -48,6 +49,7 @@ public class AmqpTransactionContext implements AmqpResourceParent {
 
     private JmsTransactionId current;
     private AmqpTransactionCoordinator coordinator;
+    private DeclareAhead declareAhead;
 
     /**
      * Creates a new AmqpTransactionContext instance.
@@ -66,6 +68,17 @@ public class AmqpTransactionContext implements AmqpResourceParent {
             throw new IOException("Begin called while a TX is still Active.");
         }
 
+        // Take over a transaction declared along with the last commit unless that declare
+        // has already failed, in which case a new one is declared the usual way.
+        if (declareAhead != null) {
+            DeclareAhead declared = declareAhead;
+            declareAhead = null;
+
+            if (declared.claim(txId, request)) {
+                return;
+            }
+        }
+
         final AsyncResult declareCompletion = new AsyncResult() {
 
             @Override
@@ -133,6 +146,7 @@ public class AmqpTransactionContext implements AmqpResourceParent {
         if (txProducers.isEmpty()) {
             LOG.trace("TX Context[{}] committing current TX[[]]", this, current);
             coordinator.discharge(current, dischargeResult, true);
+            declareNextTransaction();
         } else {
             SendCompletion producersSendCompletion = new SendCompletion(transactionInfo, dischargeResult, txProducers.size(), true);
             for (AmqpProducer producer : txProducers) {
@@ -243,6 +257,28 @@ public class AmqpTransactionContext implements AmqpResourceParent {
         txProducers.clear();
     }
 
+    //----- Declare ahead of the next begin ----------------------------------//
+
+    /*
+     * A commit is always followed by a begin, so when enabled the next transaction is declared
+     * straight after the discharge and handed over to that begin once it arrives.
+     */
+    private void declareNextTransaction() {
+        if (!getProvider().isDeclareAhead() || coordinator == null || coordinator.isClosed()) {
+            return;
+        }
+
+        JmsConnectionId connectionId = session.getResourceInfo().getId().getParentId();
+        DeclareAhead declared = new DeclareAhead(new JmsTransactionId(connectionId, -1));
+
+        try {
+            coordinator.declare(declared.placeholder, declared);
+            declareAhead = declared;
+        } catch (Exception error) {
+            LOG.debug("TX Context[{}] could not declare ahead of next begin: {}", this, error.getMessage());
+        }
+    }
+
     //----- Resource Parent implementation -----------------------------------//
 
     @Override
@@ -303,6 +339,76 @@ public class AmqpTransactionContext implements AmqpResourceParent {
         }
     }
 
+    //----- Completion of a transaction declared ahead of its begin ----------//
+
+    private class DeclareAhead implements AsyncResult {
+
+        private final JmsTransactionId placeholder;
+
+        private JmsTransactionId txId;
+        private AsyncResult request;
+        private Throwable failure;
+        private boolean complete;
+
+        public DeclareAhead(JmsTransactionId placeholder) {
+            this.placeholder = placeholder;
+        }
+
+        /*
+         * Hands the declared transaction to the given begin request, returns false if the
+         * declare already failed and the begin should declare a new transaction itself.
+         */
+        public boolean claim(JmsTransactionId txId, AsyncResult request) {
+            if (complete && failure != null) {
+                return false;
+            }
+
+            this.txId = txId;
+            this.request = request;
+
+            if (complete) {
+                signalBegin();
+            }
+
+            return true;
+        }
+
+        @Override
+        public void onFailure(Throwable result) {
+            complete = true;
+            failure = result;
+
+            if (request != null) {
+                signalBegin();
+            }
+        }
+
+        @Override
+        public void onSuccess() {
+            complete = true;
+
+            if (request != null) {
+                signalBegin();
+            }
+        }
+
+        @Override
+        public boolean isComplete() {
+            return complete;
+        }
+
+        private void signalBegin() {
+            if (failure == null) {
+                txId.setProviderHint(placeholder.getProviderHint());
+                current = txId;
+                request.onSuccess();
+            } else {
+                current = null;
+                request.onFailure(failure);
+            }
+        }
+    }
+
     //----- Completion result for Producers ----------------------------------//
 
     @SuppressWarnings("unused")
@@ -312,6 +418,7 @@ public class AmqpTransactionContext implements AmqpResourceParent {
 
         private final JmsTransactionInfo info;
         private final DischargeCompletion request;
+        private final boolean declareNext;
 
         private boolean commit;
 
@@ -320,6 +427,7 @@ public class AmqpTransactionContext implements AmqpResourceParent {
             this.request = request;
             this.pendingCompletions = pendingCompletions;
             this.commit = commit;
+            this.declareNext = commit;
         }
 
         @Override
@@ -328,6 +436,9 @@ public class AmqpTransactionContext implements AmqpResourceParent {
                 try {
                     LOG.trace("TX Context[{}] rolling back current TX[[]]", this, current);
                     coordinator.discharge(current, request, false);
+                    if (declareNext) {
+                        declareNextTransaction();
+                    }
                 } catch (Throwable error) {
                     request.onFailure(error);
                 }
@@ -342,6 +453,9 @@ public class AmqpTransactionContext implements AmqpResourceParent {
                 try {
                     LOG.trace("TX Context[{}] {} current TX[[]]", this, commit ? "committing" : "rolling back" ,current);
                     coordinator.discharge(current, request, commit);
+                    if (declareNext) {
+                        declareNextTransaction();
+                    }
                 } catch (Throwable error) {
                     request.onFailure(error);
                 }
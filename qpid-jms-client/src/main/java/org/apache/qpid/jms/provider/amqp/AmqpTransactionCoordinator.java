@@ -18,6 +18,10 @@ package org.apache.qpid.jms.provider.amqp;
 
 import java.io.IOException;
 import java.nio.BufferOverflowException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ScheduledFuture;
 
 import javax.jms.IllegalStateException;
@@ -46,6 +50,9 @@ import org.slf4j.LoggerFactory;
 /**
  * Represents the AMQP Transaction coordinator link used by the transaction context
  * of a session to control the lifetime of a given transaction.
+ *
+ * More than one declare or discharge may be outstanding on the link at a time, each is
+ * completed when the remote settles the delivery that carried it.
  */
 public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionInfo, Sender> {
 
@@ -58,9 +65,7 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
 
     private final AmqpTransferTagGenerator tagGenerator = new AmqpTransferTagGenerator();
 
-    private Delivery pendingDelivery;
-    private AsyncResult pendingRequest;
-    private ScheduledFuture<?> pendingTimeout;
+    private final Set<OperationContext> pendingOperations = new LinkedHashSet<OperationContext>();
 
     public AmqpTransactionCoordinator(JmsSessionInfo resourceInfo, Sender endpoint, AmqpResourceParent parent) {
         super(resourceInfo, endpoint, parent);
@@ -69,40 +74,38 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
     @Override
     public void processDeliveryUpdates(AmqpProvider provider, Delivery delivery) throws IOException {
         try {
-            if (pendingDelivery != null && pendingDelivery.remotelySettled()) {
-                DeliveryState state = pendingDelivery.getRemoteState();
-                JmsTransactionId txId = (JmsTransactionId) pendingDelivery.getContext();
+            if (delivery.remotelySettled() && delivery.getContext() instanceof OperationContext) {
+                OperationContext operation = (OperationContext) delivery.getContext();
+                DeliveryState state = delivery.getRemoteState();
+                JmsTransactionId txId = operation.getTransactionId();
+
+                // Reset state for next TX action.
+                delivery.settle();
+                delivery.setContext(null);
+                pendingOperations.remove(operation);
+                operation.cancelTimeout();
+
                 if (state instanceof Declared) {
                     LOG.debug("New TX started: {}", txId);
                     Declared declared = (Declared) state;
                     txId.setProviderHint(declared.getTxnId());
-                    pendingRequest.onSuccess();
+                    operation.getRequest().onSuccess();
                 } else if (state instanceof Rejected) {
                     LOG.debug("Last TX request failed: {}", txId);
                     Rejected rejected = (Rejected) state;
                     Exception cause = AmqpSupport.convertToException(
                         getParent().getProvider(), getEndpoint(), rejected.getError());
                     JMSException failureCause = null;
-                    if (txId.getProviderContext().equals(COMMIT_MARKER)) {
+                    if (COMMIT_MARKER.equals(txId.getProviderContext())) {
                         failureCause = new TransactionRolledBackException(cause.getMessage());
                     } else {
                         failureCause = new JMSException(cause.getMessage());
                     }
 
-                    pendingRequest.onFailure(failureCause);
+                    operation.getRequest().onFailure(failureCause);
                 } else {
                     LOG.debug("Last TX request succeeded: {}", txId);
-                    pendingRequest.onSuccess();
-                }
-
-                // Reset state for next TX action.
-                pendingDelivery.settle();
-                pendingRequest = null;
-                pendingDelivery = null;
-
-                if (pendingTimeout != null) {
-                    pendingTimeout.cancel(false);
-                    pendingTimeout = null;
+                    operation.getRequest().onSuccess();
                 }
             }
 
@@ -126,13 +129,7 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
         Declare declare = new Declare();
         message.setBody(new AmqpValue(declare));
 
-        pendingDelivery = getEndpoint().delivery(tagGenerator.getNextTag());
-        pendingDelivery.setContext(txId);
-        pendingRequest = request;
-
-        scheduleTimeoutIfNeeded("Timed out waiting for declare of new TX.");
-
-        sendTxCommand(message);
+        sendTxCommand(message, new OperationContext(txId, request), "Timed out waiting for declare of new TX.");
     }
 
     public void discharge(JmsTransactionId txId, AsyncResult request, boolean commit) throws Exception {
@@ -162,13 +159,7 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
         discharge.setTxnId((Binary) txId.getProviderHint());
         message.setBody(new AmqpValue(discharge));
 
-        pendingDelivery = getEndpoint().delivery(tagGenerator.getNextTag());
-        pendingDelivery.setContext(txId);
-        pendingRequest = request;
-
-        scheduleTimeoutIfNeeded("Timed out waiting for discharge of TX.");
-
-        sendTxCommand(message);
+        sendTxCommand(message, new OperationContext(txId, request), "Timed out waiting for discharge of TX.");
     }
 
     //----- Base class overrides ---------------------------------------------//
@@ -176,11 +167,13 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
     @Override
     public void closeResource(AmqpProvider provider, Throwable cause, boolean localClose) {
 
-        // Alert any pending operation that the link failed to complete the pending
+        // Alert any pending operations that the link failed to complete the pending
         // begin / commit / rollback operation.
-        if (pendingRequest != null) {
-            pendingRequest.onFailure(cause);
-            pendingRequest = null;
+        List<OperationContext> operations = new ArrayList<OperationContext>(pendingOperations);
+        pendingOperations.clear();
+        for (OperationContext operation : operations) {
+            operation.cancelTimeout();
+            operation.getRequest().onFailure(cause);
         }
 
         // Override the base class version because we do not want to propagate
@@ -202,14 +195,7 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
 
     //----- Internal implementation ------------------------------------------//
 
-    private void scheduleTimeoutIfNeeded(String cause) {
-        AmqpProvider provider = getParent().getProvider();
-        if (provider.getRequestTimeout() != JmsConnectionInfo.INFINITE) {
-            provider.scheduleRequestTimeout(pendingRequest, provider.getRequestTimeout(), new JmsOperationTimedOutException(cause));
-        }
-    }
-
-    private void sendTxCommand(Message message) throws IOException {
+    private void sendTxCommand(Message message, OperationContext operation, String timeoutMessage) throws IOException {
         int encodedSize = 0;
         byte[] buffer = OUTBOUND_BUFFER;
         while (true) {
@@ -222,7 +208,47 @@ public class AmqpTransactionCoordinator extends AmqpAbstractResource<JmsSessionI
         }
 
         Sender sender = getEndpoint();
+        Delivery delivery = sender.delivery(tagGenerator.getNextTag());
+        delivery.setContext(operation);
+        pendingOperations.add(operation);
+
+        AmqpProvider provider = getParent().getProvider();
+        if (provider.getRequestTimeout() != JmsConnectionInfo.INFINITE) {
+            operation.timeout = provider.scheduleRequestTimeout(
+                operation.getRequest(), provider.getRequestTimeout(), new JmsOperationTimedOutException(timeoutMessage));
+        }
+
         sender.send(buffer, 0, encodedSize);
         sender.advance();
     }
+
+    //----- State of an outstanding declare or discharge ---------------------//
+
+    private static final class OperationContext {
+
+        private final JmsTransactionId txId;
+        private final AsyncResult request;
+
+        private ScheduledFuture<?> timeout;
+
+        public OperationContext(JmsTransactionId txId, AsyncResult request) {
+            this.txId = txId;
+            this.request = request;
+        }
+
+        public JmsTransactionId getTransactionId() {
+            return txId;
+        }
+
+        public AsyncResult getRequest() {
+            return request;
+        }
+
+        public void cancelTimeout() {
+            if (timeout != null) {
+                timeout.cancel(false);
+                timeout = null;
+            }
+        }
+    }
 }
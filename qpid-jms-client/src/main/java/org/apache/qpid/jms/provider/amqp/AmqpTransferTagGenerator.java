@@ -17,33 +17,34 @@
 package org.apache.qpid.jms.provider.amqp;
 
 import java.io.UnsupportedEncodingException;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.Set;
 
 /**
  * Utility class that can generate and if enabled pool the binary tag values
  * used to identify transfers over an AMQP link.
+ * <p>
+ * Pooled tags are held in a ring that grows on demand up to the max pool size
+ * and are handed out again in the order they were returned.
  */
 public final class AmqpTransferTagGenerator {
 
     public static final int DEFAULT_TAG_POOL_SIZE = 1024;
 
+    private static final int INITIAL_RING_SIZE = 16;
+
     private long nextTagId;
     private int maxPoolSize = DEFAULT_TAG_POOL_SIZE;
 
-    private final Set<byte[]> tagPool;
+    private final boolean pool;
+    private byte[][] tagRing;
+    private int head;
+    private int pooled;
 
     public AmqpTransferTagGenerator() {
         this(false);
     }
 
     public AmqpTransferTagGenerator(boolean pool) {
-        if (pool) {
-            this.tagPool = new LinkedHashSet<byte[]>();
-        } else {
-            this.tagPool = null;
-        }
+        this.pool = pool;
     }
 
     /**
@@ -53,10 +54,11 @@ public final class AmqpTransferTagGenerator {
      */
     public byte[] getNextTag() {
         byte[] rc;
-        if (tagPool != null && !tagPool.isEmpty()) {
-            final Iterator<byte[]> iterator = tagPool.iterator();
-            rc = iterator.next();
-            iterator.remove();
+        if (pooled > 0) {
+            rc = tagRing[head];
+            tagRing[head] = null;
+            head = (head + 1) & (tagRing.length - 1);
+            pooled--;
         } else {
             try {
                 rc = Long.toHexString(nextTagId++).getBytes("UTF-8");
@@ -76,11 +78,23 @@ public final class AmqpTransferTagGenerator {
      *        a previously borrowed tag that is no longer in use.
      */
     public void returnTag(byte[] data) {
-        if (tagPool != null && tagPool.size() < maxPoolSize) {
-            tagPool.add(data);
+        if (pool && pooled < maxPoolSize) {
+            if (tagRing == null || pooled == tagRing.length) {
+                growRing();
+            }
+
+            tagRing[(head + pooled) & (tagRing.length - 1)] = data;
+            pooled++;
         }
     }
 
+    /**
+     * @return the number of tags currently held in the pool.
+     */
+    public int getPooledTagCount() {
+        return pooled;
+    }
+
     /**
      * Gets the current max pool size value.
      *
@@ -100,4 +114,16 @@ public final class AmqpTransferTagGenerator {
     public void setMaxPoolSize(int maxPoolSize) {
         this.maxPoolSize = maxPoolSize;
     }
+
+    private void growRing() {
+        int capacity = tagRing == null ? INITIAL_RING_SIZE : tagRing.length << 1;
+        byte[][] ring = new byte[capacity][];
+
+        for (int i = 0; i < pooled; ++i) {
+            ring[i] = tagRing[(head + i) & (tagRing.length - 1)];
+        }
+
+        tagRing = ring;
+        head = 0;
+    }
 }
@@ -32,6 +32,7 @@ import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
+import org.apache.qpid.jms.provider.amqp.AmqpConnection;
 import org.apache.qpid.jms.provider.amqp.AmqpConsumer;
 import org.apache.qpid.jms.util.ContentTypeSupport;
 import org.apache.qpid.jms.util.InvalidContentTypeException;
@@ -53,6 +54,8 @@ import org.apache.qpid.proton.codec.EncoderImpl;
 import org.apache.qpid.proton.codec.WritableBuffer;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
 
 /**
  * AMQP Codec class used to hide the details of encode / decode
@@ -67,6 +70,26 @@ public final class AmqpCodec {
         }
     }
 
+    private static final int MIN_POOLED_ENCODE_BUFFER_SIZE = 256;
+
+    // Format codes and section descriptor codes used when scanning an encoded message.
+    private static final int DESCRIBED_TYPE_CONSTRUCTOR = 0x00;
+    private static final int SMALL_ULONG_TYPE = 0x53;
+    private static final int ULONG_TYPE = 0x80;
+
+    private static final long HEADER_CODE = 0x70L;
+    private static final long DELIVERY_ANNOTATIONS_CODE = 0x71L;
+    private static final long MESSAGE_ANNOTATIONS_CODE = 0x72L;
+    private static final long PROPERTIES_CODE = 0x73L;
+    private static final long APPLICATION_PROPERTIES_CODE = 0x74L;
+    private static final long DATA_CODE = 0x75L;
+    private static final long AMQP_SEQUENCE_CODE = 0x76L;
+    private static final long AMQP_VALUE_CODE = 0x77L;
+    private static final long FOOTER_CODE = 0x78L;
+
+    // Pooled heap buffers as the encoded bytes are handed to Proton as an array.
+    private static final ByteBufAllocator ENCODE_BUFFER_POOL = new PooledByteBufAllocator(false);
+
     private static final ThreadLocal<EncoderDecoderPair> TLS_CODEC = new ThreadLocal<EncoderDecoderPair>() {
         @Override
         protected EncoderDecoderPair initialValue() {
@@ -143,8 +166,45 @@ public final class AmqpCodec {
      * @return a buffer containing the wire level representation of the input Message.
      */
     public static ByteBuf encodeMessage(AmqpJmsMessageFacade message) {
-        AmqpWritableBuffer buffer = new AmqpWritableBuffer();
+        return encodeMessage(message, new AmqpWritableBuffer());
+    }
+
+    /**
+     * Given a Message instance, encode the Message to the wire level representation
+     * of that Message using a buffer taken from a pool of encode buffers.  The returned
+     * buffer must be released once the encoded bytes are no longer needed.
+     *
+     * @param message
+     *      The Message that is to be encoded into the wire level representation.
+     * @param sizeEstimate
+     *      The expected size of the encoded message used to size the initial buffer.
+     *
+     * @return a pooled buffer containing the wire level representation of the input Message.
+     */
+    public static ByteBuf encodeMessageToPooledBuffer(AmqpJmsMessageFacade message, int sizeEstimate) {
+        ByteBuf pooled = ENCODE_BUFFER_POOL.heapBuffer(Math.max(sizeEstimate, MIN_POOLED_ENCODE_BUFFER_SIZE));
+        try {
+            return encodeMessage(message, new AmqpWritableBuffer(pooled));
+        } catch (RuntimeException e) {
+            pooled.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks if the given encoded message payload was created from the pool of encode
+     * buffers and must therefore be released when no longer needed.
+     *
+     * @param encoded
+     *      The encoded message payload to check.
+     *
+     * @return true if the given payload came from the pool of encode buffers.
+     */
+    public static boolean isPooledEncodeBuffer(Object encoded) {
+        return encoded instanceof ByteBuf && ((ByteBuf) encoded).alloc() == ENCODE_BUFFER_POOL;
+    }
 
+    private static ByteBuf encodeMessage(AmqpJmsMessageFacade message, AmqpWritableBuffer buffer) {
         EncoderImpl encoder = getEncoder();
         encoder.setByteBuffer(buffer);
 
@@ -198,6 +258,14 @@ public final class AmqpCodec {
      */
     public static AmqpJmsMessageFacade decodeMessage(AmqpConsumer consumer, ByteBuf messageBytes) throws IOException {
 
+        AmqpConnection connection = consumer.getConnection();
+        if (connection != null && connection.isLazyMessageDecoding()) {
+            AmqpJmsMessageFacade result = decodeMessageLazily(consumer, messageBytes);
+            if (result != null) {
+                return result;
+            }
+        }
+
         DecoderImpl decoder = getDecoder();
         ByteBuffer buffer = messageBytes.nioBuffer();
         decoder.setByteBuffer(buffer);
@@ -304,6 +372,142 @@ public final class AmqpCodec {
         throw new IOException("Could not create a JMS message from incoming message");
     }
 
+    /**
+     * Scans the encoded message for its section boundaries and decodes only the sections
+     * needed to create and dispatch the message, the remaining sections are left in their
+     * encoded form in the facade and decoded on first access.
+     *
+     * @return the new message facade, or null if the message must be decoded in full.
+     */
+    private static AmqpJmsMessageFacade decodeMessageLazily(AmqpConsumer consumer, ByteBuf messageBytes) throws IOException {
+        // The consumer reuses the incoming buffer for the next delivery so the message
+        // must own a copy of the bytes backing any section left encoded.
+        ByteBuf encoded = messageBytes.copy();
+
+        Header header = null;
+        MessageAnnotations messageAnnotations = null;
+        Properties properties = null;
+        ByteBuf deliveryAnnotations = null;
+        ByteBuf applicationProperties = null;
+        ByteBuf body = null;
+        ByteBuf footer = null;
+
+        int index = encoded.readerIndex();
+        final int limit = encoded.writerIndex();
+
+        try {
+            while (index < limit) {
+                long descriptor = readSectionDescriptor(encoded, index);
+                int end = skipEncodedValue(encoded, index);
+                if (end <= index || end > limit || (body != null && descriptor != FOOTER_CODE)) {
+                    return null;
+                }
+
+                ByteBuf section = encoded.slice(index, end - index);
+
+                if (descriptor == HEADER_CODE) {
+                    header = (Header) decode(section);
+                } else if (descriptor == DELIVERY_ANNOTATIONS_CODE) {
+                    deliveryAnnotations = section;
+                } else if (descriptor == MESSAGE_ANNOTATIONS_CODE) {
+                    messageAnnotations = (MessageAnnotations) decode(section);
+                } else if (descriptor == PROPERTIES_CODE) {
+                    properties = (Properties) decode(section);
+                } else if (descriptor == APPLICATION_PROPERTIES_CODE) {
+                    applicationProperties = section;
+                } else if (descriptor == DATA_CODE || descriptor == AMQP_SEQUENCE_CODE || descriptor == AMQP_VALUE_CODE) {
+                    body = section;
+                } else if (descriptor == FOOTER_CODE) {
+                    footer = section;
+                } else {
+                    return null;
+                }
+
+                index = end;
+            }
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ClassCastException e) {
+            return null;
+        }
+
+        AmqpJmsMessageFacade result = createFromMsgAnnotation(messageAnnotations);
+        Section decodedBody = null;
+        if (result == null) {
+            // Without the annotation the body is needed to select the message type.
+            decodedBody = decode(body);
+            result = createWithoutAnnotation(decodedBody, properties);
+            if (result == null) {
+                throw new IOException("Could not create a JMS message from incoming message");
+            }
+        }
+
+        result.setHeader(header);
+        result.setEncodedDeliveryAnnotations(deliveryAnnotations);
+        result.setMessageAnnotations(messageAnnotations);
+        result.setProperties(properties);
+        result.setEncodedApplicationProperties(applicationProperties);
+        if (body != null && decodedBody == null) {
+            result.setEncodedBody(body);
+        } else {
+            result.setBody(decodedBody);
+        }
+        result.setEncodedFooter(footer);
+        result.initialize(consumer);
+
+        return result;
+    }
+
+    private static long readSectionDescriptor(ByteBuf buffer, int index) {
+        if (buffer.getUnsignedByte(index) != DESCRIBED_TYPE_CONSTRUCTOR) {
+            throw new IllegalArgumentException("Message section is not a described type");
+        }
+
+        switch (buffer.getUnsignedByte(index + 1)) {
+            case SMALL_ULONG_TYPE:
+                return buffer.getUnsignedByte(index + 2);
+            case ULONG_TYPE:
+                return buffer.getLong(index + 2);
+            default:
+                // Symbolic descriptors are left to the full decoder.
+                return -1;
+        }
+    }
+
+    /**
+     * Returns the index just past the encoded value that starts at the given index
+     * using the width category of the value's format code to find its size.
+     */
+    private static int skipEncodedValue(ByteBuf buffer, int index) {
+        int formatCode = buffer.getUnsignedByte(index++);
+        if (formatCode == DESCRIBED_TYPE_CONSTRUCTOR) {
+            return skipEncodedValue(buffer, skipEncodedValue(buffer, index));
+        }
+
+        switch (formatCode >>> 4) {
+            case 0x4:
+                return index;
+            case 0x5:
+                return index + 1;
+            case 0x6:
+                return index + 2;
+            case 0x7:
+                return index + 4;
+            case 0x8:
+                return index + 8;
+            case 0x9:
+                return index + 16;
+            case 0xA:
+            case 0xC:
+            case 0xE:
+                return index + 1 + buffer.getUnsignedByte(index);
+            case 0xB:
+            case 0xD:
+            case 0xF:
+                return index + 4 + buffer.getInt(index);
+            default:
+                throw new IllegalArgumentException("Invalid format code: " + formatCode);
+        }
+    }
+
     private static AmqpJmsMessageFacade createFromMsgAnnotation(MessageAnnotations messageAnnotations) throws IOException {
         Object annotation = AmqpMessageSupport.getMessageAnnotation(JMS_MSG_TYPE, messageAnnotations);
         if (annotation != null) {
@@ -48,6 +48,7 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
 
     @Override
     public AmqpJmsMapMessageFacade copy() {
+        decodeLazyBody();
         AmqpJmsMapMessageFacade copy = new AmqpJmsMapMessageFacade();
         copyInto(copy);
         copy.initializeEmptyBody();
@@ -57,16 +58,19 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
 
     @Override
     public Enumeration<String> getMapNames() {
+        decodeLazyBody();
         return Collections.enumeration(messageBodyMap.keySet());
     }
 
     @Override
     public boolean itemExists(String key) {
+        decodeLazyBody();
         return messageBodyMap.containsKey(key);
     }
 
     @Override
     public Object get(String key) {
+        decodeLazyBody();
         Object value = messageBodyMap.get(key);
         if (value instanceof Binary) {
             // Copy to a byte[], ensure we copy only the required portion.
@@ -79,6 +83,7 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
 
     @Override
     public void put(String key, Object value) {
+        decodeLazyBody();
         Object entry = value;
         if (value instanceof byte[]) {
             entry = new Binary((byte[]) value);
@@ -89,16 +94,19 @@ public class AmqpJmsMapMessageFacade extends AmqpJmsMessageFacade implements Jms
 
     @Override
     public Object remove(String key) {
+        decodeLazyBody();
         return messageBodyMap.remove(key);
     }
 
     @Override
     public void clearBody() {
+        decodeLazyBody();
         messageBodyMap.clear();
     }
 
     @Override
     public boolean hasBody() {
+        decodeLazyBody();
         return !messageBodyMap.isEmpty();
     }
 
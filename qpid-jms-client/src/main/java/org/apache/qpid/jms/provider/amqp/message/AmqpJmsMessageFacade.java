@@ -65,6 +65,12 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     private Map<Symbol, Object> deliveryAnnotationsMap;
     private Map<Symbol, Object> footerMap;
 
+    // Sections of a received message that remain encoded until first accessed.
+    private ByteBuf encodedDeliveryAnnotations;
+    private ByteBuf encodedApplicationProperties;
+    private ByteBuf encodedBody;
+    private ByteBuf encodedFooter;
+
     private JmsDestination replyTo;
     private JmsDestination destination;
     private JmsDestination consumerDestination;
@@ -154,6 +160,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public boolean applicationPropertyExists(String key) throws JMSException {
+        decodeLazyApplicationProperties();
         if (applicationPropertiesMap != null) {
             return applicationPropertiesMap.containsKey(key);
         }
@@ -174,6 +181,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public Set<String> getApplicationPropertyNames(Set<String> propertyNames) {
+        decodeLazyApplicationProperties();
         if (applicationPropertiesMap != null) {
             propertyNames.addAll(applicationPropertiesMap.keySet());
         }
@@ -187,6 +195,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     public Object getApplicationProperty(String key) throws JMSException {
+        decodeLazyApplicationProperties();
         if (applicationPropertiesMap != null) {
             return applicationPropertiesMap.get(key);
         }
@@ -291,14 +300,18 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
             target.setProperties(targetProperties);
         }
 
-        target.setBody(body);
+        target.setBody(getBody());
 
-        if (deliveryAnnotationsMap != null) {
+        if (encodedDeliveryAnnotations != null) {
+            target.encodedDeliveryAnnotations = encodedDeliveryAnnotations;
+        } else if (deliveryAnnotationsMap != null) {
             target.lazyCreateDeliveryAnnotations();
             target.deliveryAnnotationsMap.putAll(deliveryAnnotationsMap);
         }
 
-        if (applicationPropertiesMap != null) {
+        if (encodedApplicationProperties != null) {
+            target.encodedApplicationProperties = encodedApplicationProperties;
+        } else if (applicationPropertiesMap != null) {
             target.lazyCreateApplicationProperties();
             target.applicationPropertiesMap.putAll(applicationPropertiesMap);
         }
@@ -308,7 +321,9 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
             target.messageAnnotationsMap.putAll(messageAnnotationsMap);
         }
 
-        if (footerMap != null) {
+        if (encodedFooter != null) {
+            target.encodedFooter = encodedFooter;
+        } else if (footerMap != null) {
             target.lazyCreateFooter();
             target.footerMap.putAll(footerMap);
         }
@@ -772,7 +787,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @Override
     public boolean hasBody() {
-        return body != null;
+        return body != null || encodedBody != null;
     }
 
     /**
@@ -861,6 +876,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
      */
     void clearAllApplicationProperties() {
         applicationPropertiesMap = null;
+        encodedApplicationProperties = null;
     }
 
     String getToAddress() {
@@ -911,6 +927,12 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @Override
     public ByteBuf encodeMessage() {
+        if (connection != null && connection.isPooledEncodeBuffers()) {
+            ByteBuf encoded = AmqpCodec.encodeMessageToPooledBuffer(this, connection.getEncodeSizeEstimate());
+            connection.updateEncodeSizeEstimate(encoded.readableBytes());
+            return encoded;
+        }
+
         return AmqpCodec.encodeMessage(this);
     }
 
@@ -941,10 +963,12 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     Section getBody() {
+        decodeLazyBody();
         return body;
     }
 
     void setBody(Section body) {
+        this.encodedBody = null;
         this.body = body;
     }
 
@@ -964,6 +988,7 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     DeliveryAnnotations getDeliveryAnnotations() {
+        decodeLazyDeliveryAnnotations();
         DeliveryAnnotations result = null;
         if (deliveryAnnotationsMap != null && !deliveryAnnotationsMap.isEmpty()) {
             result = new DeliveryAnnotations(deliveryAnnotationsMap);
@@ -973,12 +998,14 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     void setDeliveryAnnotations(DeliveryAnnotations deliveryAnnotations) {
+        this.encodedDeliveryAnnotations = null;
         if (deliveryAnnotations != null) {
             this.deliveryAnnotationsMap = deliveryAnnotations.getValue();
         }
     }
 
     ApplicationProperties getApplicationProperties() {
+        decodeLazyApplicationProperties();
         ApplicationProperties result = null;
         if (applicationPropertiesMap != null && !applicationPropertiesMap.isEmpty()) {
             result = new ApplicationProperties(applicationPropertiesMap);
@@ -988,12 +1015,14 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @SuppressWarnings("unchecked")
     void setApplicationProperties(ApplicationProperties applicationProperties) {
+        this.encodedApplicationProperties = null;
         if (applicationProperties != null) {
             this.applicationPropertiesMap = applicationProperties.getValue();
         }
     }
 
     Footer getFooter() {
+        decodeLazyFooter();
         Footer result = null;
         if (footerMap != null && !footerMap.isEmpty()) {
             result = new Footer(footerMap);
@@ -1003,13 +1032,58 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
 
     @SuppressWarnings("unchecked")
     void setFooter(Footer footer) {
+        this.encodedFooter = null;
         if (footer != null) {
             this.footerMap = footer.getValue();
         }
     }
 
+    void setEncodedDeliveryAnnotations(ByteBuf encoded) {
+        this.encodedDeliveryAnnotations = encoded;
+    }
+
+    void setEncodedApplicationProperties(ByteBuf encoded) {
+        this.encodedApplicationProperties = encoded;
+    }
+
+    void setEncodedBody(ByteBuf encoded) {
+        this.encodedBody = encoded;
+    }
+
+    void setEncodedFooter(ByteBuf encoded) {
+        this.encodedFooter = encoded;
+    }
+
+    /**
+     * Decodes the body section of a received message if it has been left in its encoded
+     * form, subclasses that hold their own view of the body must call this before using it.
+     */
+    void decodeLazyBody() {
+        if (encodedBody != null) {
+            setBody(AmqpCodec.decode(encodedBody));
+        }
+    }
+
     //----- Internal Message Utility Methods ---------------------------------//
 
+    private void decodeLazyDeliveryAnnotations() {
+        if (encodedDeliveryAnnotations != null) {
+            setDeliveryAnnotations((DeliveryAnnotations) AmqpCodec.decode(encodedDeliveryAnnotations));
+        }
+    }
+
+    private void decodeLazyApplicationProperties() {
+        if (encodedApplicationProperties != null) {
+            setApplicationProperties((ApplicationProperties) AmqpCodec.decode(encodedApplicationProperties));
+        }
+    }
+
+    private void decodeLazyFooter() {
+        if (encodedFooter != null) {
+            setFooter((Footer) AmqpCodec.decode(encodedFooter));
+        }
+    }
+
     private Long getAbsoluteExpiryTime() {
         Long result = null;
         if (properties != null) {
@@ -1055,18 +1129,21 @@ public class AmqpJmsMessageFacade implements JmsMessageFacade {
     }
 
     private void lazyCreateDeliveryAnnotations() {
+        decodeLazyDeliveryAnnotations();
         if (deliveryAnnotationsMap == null) {
             deliveryAnnotationsMap = new HashMap<Symbol, Object>();
         }
     }
 
     private void lazyCreateApplicationProperties() {
+        decodeLazyApplicationProperties();
         if (applicationPropertiesMap == null) {
             applicationPropertiesMap = new HashMap<String, Object>();
         }
     }
 
     private void lazyCreateFooter() {
+        decodeLazyFooter();
         if (footerMap == null) {
             footerMap = new HashMap<Symbol, Object>();
         }
@@ -42,6 +42,7 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public AmqpJmsStreamMessageFacade copy() {
+        decodeLazyBody();
         AmqpJmsStreamMessageFacade copy = new AmqpJmsStreamMessageFacade();
         copyInto(copy);
         copy.initializeEmptyBodyList(getBody() instanceof AmqpSequence);
@@ -59,11 +60,13 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public boolean hasNext() {
+        decodeLazyBody();
         return !list.isEmpty() && position < list.size();
     }
 
     @Override
     public Object peek() throws MessageEOFException {
+        decodeLazyBody();
         if (list.isEmpty() || position >= list.size()) {
             throw new MessageEOFException("Attempt to read past end of stream");
         }
@@ -80,6 +83,7 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public void pop() throws MessageEOFException {
+        decodeLazyBody();
         if (list.isEmpty() || position >= list.size()) {
             throw new MessageEOFException("Attempt to read past end of stream");
         }
@@ -89,6 +93,7 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public void put(Object value) {
+        decodeLazyBody();
         Object entry = value;
         if (entry instanceof byte[]) {
             entry = new Binary((byte[]) value);
@@ -104,12 +109,14 @@ public class AmqpJmsStreamMessageFacade extends AmqpJmsMessageFacade implements
 
     @Override
     public void clearBody() {
+        decodeLazyBody();
         list.clear();
         position = 0;
     }
 
     @Override
     public boolean hasBody() {
+        decodeLazyBody();
         return !list.isEmpty();
     }
 
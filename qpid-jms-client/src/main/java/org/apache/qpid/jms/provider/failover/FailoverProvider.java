@@ -26,7 +26,9 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -53,8 +55,10 @@ import org.apache.qpid.jms.provider.ProviderFactory;
 import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.provider.ProviderListener;
 import org.apache.qpid.jms.provider.ProviderRedirectedException;
+import org.apache.qpid.jms.provider.ProviderWrapper;
 import org.apache.qpid.jms.provider.WrappedAsyncResult;
 import org.apache.qpid.jms.util.IOExceptionSupport;
+import org.apache.qpid.jms.util.IdGenerator;
 import org.apache.qpid.jms.util.ThreadPoolUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,6 +79,8 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     private static final int DISABLED = 0;
     private static final int MINIMUM_TIMEOUT = 1000;
 
+    private static final IdGenerator STANDBY_CONTAINER_ID_GENERATOR = new IdGenerator();
+
     public static final int DEFAULT_MAX_RECONNECT_ATTEMPTS = UNLIMITED;
     public static final int DEFAULT_STARTUP_MAX_RECONNECT_ATTEMPTS = UNDEFINED;
     public static final long DEFAULT_INITIAL_RECONNECT_DELAY = 0;
@@ -83,6 +89,10 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     public static final boolean DEFAULT_USE_RECONNECT_BACKOFF = true;
     public static final double DEFAULT_RECONNECT_BACKOFF_MULTIPLIER = 2.0d;
     public static final int DEFAULT_WARN_AFTER_RECONNECT_ATTEMPTS = 10;
+    public static final int DEFAULT_PARALLEL_CONNECT_ATTEMPTS = 1;
+    public static final long DEFAULT_PARALLEL_CONNECT_DELAY = 250;
+    public static final boolean DEFAULT_WARM_STANDBY = false;
+    public static final int DEFAULT_WARM_STANDBY_MAX_ATTEMPTS = 3;
 
     private ProviderListener listener;
     private Provider provider;
@@ -91,6 +101,7 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
 
     private final ScheduledThreadPoolExecutor serializer;
     private final ScheduledThreadPoolExecutor connectionHub;
+    private volatile ThreadPoolExecutor connectionWorkers;
     private final AtomicBoolean closed = new AtomicBoolean();
     private final AtomicBoolean failed = new AtomicBoolean();
     private final AtomicBoolean closingConnection = new AtomicBoolean(false);
@@ -106,6 +117,9 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     private long nextReconnectDelay = -1;
     private IOException failureCause;
     private URI connectedURI;
+    private StandbyProvider standby;
+    private boolean standbyConnecting;
+    private int standbyAttempts;
     private volatile JmsConnectionInfo connectionInfo;
 
     // Timeout values configured via JmsConnectionInfo
@@ -122,6 +136,10 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     private int maxReconnectAttempts = DEFAULT_MAX_RECONNECT_ATTEMPTS;
     private int startupMaxReconnectAttempts = DEFAULT_STARTUP_MAX_RECONNECT_ATTEMPTS;
     private int warnAfterReconnectAttempts = DEFAULT_WARN_AFTER_RECONNECT_ATTEMPTS;
+    private int parallelConnectAttempts = DEFAULT_PARALLEL_CONNECT_ATTEMPTS;
+    private long parallelConnectDelay = DEFAULT_PARALLEL_CONNECT_DELAY;
+    private boolean warmStandby = DEFAULT_WARM_STANDBY;
+    private int warmStandbyMaxAttempts = DEFAULT_WARM_STANDBY_MAX_ATTEMPTS;
 
     private FailoverServerListBehaviour amqpOpenServerListBehaviour = FailoverServerListBehaviour.REPLACE;
 
@@ -207,10 +225,15 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                         if (provider != null) {
                             provider.close();
                         }
+
+                        closeStandby();
                     } catch (Exception e) {
                         LOG.debug("Caught exception while closing connection");
                     } finally {
                         ThreadPoolUtils.shutdownGraceful(connectionHub);
+                        if (connectionWorkers != null) {
+                            connectionWorkers.shutdownNow();
+                        }
                         if (serializer != null) {
                             serializer.shutdown();
                         }
@@ -350,7 +373,61 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
     @Override
     public void send(final JmsOutboundMessageDispatch envelope, AsyncResult request) throws IOException, JMSException {
         checkClosed();
-        final FailoverRequest pending = new FailoverRequest(request, sendTimeout) {
+        serializer.execute(createSendRequest(envelope, request));
+    }
+
+    @Override
+    public void send(final List<JmsOutboundMessageDispatch> envelopes, List<? extends AsyncResult> results) throws IOException, JMSException {
+        checkClosed();
+
+        final List<FailoverRequest> pending = new ArrayList<FailoverRequest>(envelopes.size());
+        for (int i = 0; i < envelopes.size(); ++i) {
+            pending.add(createSendRequest(envelopes.get(i), results.get(i)));
+        }
+
+        serializer.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                // Each send is tracked as its own request so that only those that have not
+                // completed are replayed after a failover, one at a time, while the connected
+                // provider is handed the whole batch.
+                for (FailoverRequest request : pending) {
+                    requests.put(request.id, request);
+                }
+
+                if (provider == null) {
+                    for (FailoverRequest request : pending) {
+                        request.whenOffline(new IOException("Connection failed."));
+                    }
+                    return;
+                }
+
+                try {
+                    LOG.debug("Executing batch of {} sends", pending.size());
+                    provider.send(envelopes, pending);
+                } catch (UnsupportedOperationException | JMSException e) {
+                    for (FailoverRequest request : pending) {
+                        request.failRequest(e);
+                    }
+                } catch (Throwable e) {
+                    LOG.debug("Caught exception while executing batch of sends: {}", e.getMessage());
+                    IOException error = IOExceptionSupport.create(e);
+                    for (FailoverRequest request : pending) {
+                        request.whenOffline(error);
+                    }
+                    handleProviderFailure(error);
+                }
+            }
+        });
+    }
+
+    private FailoverRequest createSendRequest(final JmsOutboundMessageDispatch envelope, AsyncResult request) {
+        // The send is replayed after a failover unless it failed with a JMSException, so the
+        // provider must keep its payload on other failures and it is released here instead.
+        envelope.setRetryable(true);
+
+        return new FailoverRequest(request, sendTimeout) {
             @Override
             public void doTask() throws Exception {
                 provider.send(envelope, this);
@@ -365,9 +442,13 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
             public JMSException createTimedOutException() {
                 return new JmsSendTimedOutException("Timed out waiting on " + this, envelope.getMessage());
             }
-        };
 
-        serializer.execute(pending);
+            @Override
+            protected void releaseResources() {
+                envelope.releaseSendWindow();
+                envelope.releasePayload();
+            }
+        };
     }
 
     @Override
@@ -580,8 +661,23 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     }
                 }
 
-                triggerReconnectionAttempt();
+                if (standby != null && !(cause instanceof ProviderRedirectedException)) {
+                    StandbyProvider next = standby;
+                    standby = null;
+                    if (next.canPromote(connectionInfo)) {
+                        LOG.info("Failing over to standby connection: {}", next.getRemoteURI());
+                        initializeNewConnection(next);
+                    } else {
+                        LOG.debug("Standby connection to: {} was opened before the client ID was set", next.getRemoteURI());
+                        closeQuietly(next);
+                        triggerReconnectionAttempt();
+                    }
+                } else {
+                    triggerReconnectionAttempt();
+                }
             } else {
+                closeStandby();
+
                 ProviderListener listener = this.listener;
                 if (listener != null) {
                     listener.onConnectionFailure(cause);
@@ -643,6 +739,8 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                         requestTimeoutTask = null;
                     }
 
+                    standbyAttempts = 0;
+                    connectStandby(0);
                 } catch (Throwable error) {
                     handleProviderFailure(IOExceptionSupport.create(error));
                 }
@@ -692,10 +790,21 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     return;
                 }
 
-                reconnectAttempts++;
                 Throwable failure = null;
-                URI target = uris.getNext();
-                if (target != null) {
+                List<URI> targets = nextConnectTargets(reconnectLimit);
+                reconnectAttempts += Math.max(1, targets.size());
+                if (targets.size() > 1) {
+                    try {
+                        LOG.debug("Connection attempt:[{}] racing: {} in-progress", reconnectAttempts, targets);
+                        Provider provider = new ConnectionRace(targets).awaitWinner();
+                        initializeNewConnection(provider);
+                        return;
+                    } catch (Throwable e) {
+                        LOG.info("Connection attempt:[{}] racing: {} failed", reconnectAttempts, targets);
+                        failure = e;
+                    }
+                } else if (!targets.isEmpty()) {
+                    URI target = targets.get(0);
                     Provider provider = null;
                     try {
                         LOG.debug("Connection attempt:[{}] to: {} in-progress", reconnectAttempts, target);
@@ -743,6 +852,156 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         });
     }
 
+    /*
+     * Takes the URIs for the next connection attempt from the pool, a single one unless
+     * parallel connect is enabled in which case up to the configured number of distinct
+     * URIs are taken, never more than the attempts remaining before the reconnect limit.
+     */
+    private List<URI> nextConnectTargets(int reconnectLimit) {
+        int count = Math.min(Math.max(1, parallelConnectAttempts), Math.max(1, uris.size()));
+        if (reconnectLimit != UNLIMITED) {
+            count = (int) Math.min(count, reconnectLimit - reconnectAttempts);
+        }
+
+        List<URI> targets = new ArrayList<URI>(count);
+        for (int i = 0; i < count; ++i) {
+            URI target = uris.getNext();
+            if (target == null) {
+                break;
+            }
+
+            if (!targets.contains(target)) {
+                targets.add(target);
+            }
+        }
+
+        return targets;
+    }
+
+    private ThreadPoolExecutor getConnectionWorkers() {
+        if (connectionWorkers == null) {
+            connectionWorkers = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+
+                @Override
+                public Thread newThread(Runnable runner) {
+                    Thread worker = new Thread(runner);
+                    worker.setDaemon(true);
+                    worker.setName("FailoverProvider: connect worker thread");
+                    return worker;
+                }
+            });
+        }
+
+        return connectionWorkers;
+    }
+
+    /*
+     * Called on the serializer thread to open a standby connection to the URI that the pool
+     * returns next, if warm standby is enabled and there is not one already.  The connect
+     * and open happen on a worker thread, the resulting provider is then handed back to the
+     * serializer thread and kept until the active provider fails.
+     *
+     * The standby is opened under a container-id of its own so that heartbeats keep it alive
+     * and show that it still works, with an explicit client ID it is only connected, see
+     * StandbyProvider.  Each standby that fails to connect or open counts as an attempt, once the limit
+     * is reached in a row no further standby is tried until the active connection next
+     * changes.  A standby that opens resets the count.
+     */
+    private void connectStandby(long delay) {
+        if (!warmStandby || standby != null || standbyConnecting || provider == null ||
+            closingConnection.get() || closed.get() || failed.get()) {
+            return;
+        }
+
+        if (uris.size() < 2) {
+            LOG.trace("No alternate URI to open a standby connection to");
+            return;
+        }
+
+        if (warmStandbyMaxAttempts >= 0 && standbyAttempts >= warmStandbyMaxAttempts) {
+            LOG.debug("Not opening a standby connection after {} attempts", standbyAttempts);
+            return;
+        }
+
+        // Take the target in the pool's rotation order so that the standby is the URI
+        // the reconnect loop would have tried next.
+        URI next = null;
+        for (int i = 0; i < uris.size() && next == null; ++i) {
+            URI candidate = uris.getNext();
+            if (candidate != null && !candidate.equals(connectedURI)) {
+                next = candidate;
+            }
+        }
+
+        if (next == null) {
+            LOG.trace("No alternate URI to open a standby connection to");
+            return;
+        }
+
+        final URI target = next;
+        standbyConnecting = true;
+        standbyAttempts++;
+
+        connectionHub.schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                getConnectionWorkers().execute(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        StandbyProvider candidate = null;
+                        try {
+                            LOG.debug("Standby connection to: {} in-progress", target);
+                            candidate = new StandbyProvider(ProviderFactory.create(target));
+                            candidate.setProviderListener(new StandbyListener(candidate));
+                            candidate.open(connectionInfo);
+                        } catch (Throwable e) {
+                            LOG.debug("Standby connection to: {} failed", target);
+                            closeQuietly(candidate);
+                            candidate = null;
+                        }
+
+                        final StandbyProvider result = candidate;
+                        serializer.execute(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                standbyConnecting = false;
+                                if (result == null) {
+                                    connectStandby(maxReconnectDelay);
+                                } else if (provider == null || standby != null ||
+                                           closingConnection.get() || closed.get() || failed.get()) {
+                                    closeQuietly(result);
+                                } else {
+                                    LOG.debug("Standby connection to: {} established", result.getRemoteURI());
+                                    standby = result;
+                                    standbyAttempts = 0;
+                                }
+                            }
+                        });
+                    }
+                });
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void closeStandby() {
+        if (standby != null) {
+            closeQuietly(standby);
+            standby = null;
+        }
+    }
+
+    private static void closeQuietly(Provider provider) {
+        try {
+            if (provider != null) {
+                provider.close();
+            }
+        } catch (Throwable ex) {}
+    }
+
     private boolean reconnectAllowed(IOException cause) {
         // If a connection attempts fail due to Security errors than
         // we abort reconnection as there is a configuration issue and
@@ -1050,6 +1309,74 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         this.amqpOpenServerListBehaviour = FailoverServerListBehaviour.valueOf(amqpOpenServerListBehaviour.toUpperCase(Locale.ENGLISH));
     }
 
+    public int getParallelConnectAttempts() {
+        return parallelConnectAttempts;
+    }
+
+    /**
+     * Sets the number of failover URIs that a connection attempt is made to concurrently.
+     * The attempts are started one after the other, separated by the parallel connect delay
+     * or as soon as the previous attempt fails, the first provider to connect is used and
+     * the others are closed.  A value of {@literal <= 1} disables parallel connects.
+     *
+     * @param parallelConnectAttempts
+     *        The number of URIs that are raced against each other in a connection attempt.
+     */
+    public void setParallelConnectAttempts(int parallelConnectAttempts) {
+        this.parallelConnectAttempts = parallelConnectAttempts;
+    }
+
+    public long getParallelConnectDelay() {
+        return parallelConnectDelay;
+    }
+
+    /**
+     * Sets the time in milliseconds that a parallel connect waits for the attempts that are
+     * already running before it starts an attempt to the next URI.
+     *
+     * @param parallelConnectDelay
+     *        The delay between the start of successive parallel connection attempts.
+     */
+    public void setParallelConnectDelay(long parallelConnectDelay) {
+        this.parallelConnectDelay = parallelConnectDelay;
+    }
+
+    public boolean isWarmStandby() {
+        return warmStandby;
+    }
+
+    /**
+     * Controls whether a second, opened connection is kept to the URI that would be tried
+     * next while connected.  When the active connection fails the standby connection is used
+     * right away and only the state of the JMS resources has to be recovered.  The standby
+     * is opened with a generated container-id and sends heartbeats while idle, a standby that
+     * fails is replaced, see {@link #setWarmStandbyMaxAttempts(int)}.  When an explicit client
+     * ID is set the standby is only connected, as it must not claim the client ID while the
+     * active connection holds it, and is opened on failover.
+     *
+     * @param warmStandby
+     *        true if a standby connection should be kept open.
+     */
+    public void setWarmStandby(boolean warmStandby) {
+        this.warmStandby = warmStandby;
+    }
+
+    public int getWarmStandbyMaxAttempts() {
+        return warmStandbyMaxAttempts;
+    }
+
+    /**
+     * Sets how many standby connections in a row may fail to connect or open before giving
+     * up until the active connection next changes.  A standby that opens resets the count,
+     * so one that is later dropped is always replaced.
+     *
+     * @param warmStandbyMaxAttempts
+     *        the number of standby connections to try, or -1 for no limit.
+     */
+    public void setWarmStandbyMaxAttempts(int warmStandbyMaxAttempts) {
+        this.warmStandbyMaxAttempts = warmStandbyMaxAttempts;
+    }
+
     public Map<String, String> getNestedOptions() {
         return uris.getNestedOptions();
     }
@@ -1090,6 +1417,198 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         }
     }
 
+    //--------------- Parallel connection attempts ---------------------------//
+
+    /*
+     * Races connection attempts to a set of URIs against each other.  The thread awaiting
+     * the winner starts each attempt in turn, the next one after the parallel connect delay
+     * or right away when all attempts started so far have failed.  Attempts that connect
+     * after a winner was chosen close the provider they created.
+     */
+    private final class ConnectionRace {
+
+        private final List<URI> targets;
+
+        private int started;
+        private int failed;
+        private boolean finished;
+        private Provider winner;
+        private Throwable failure;
+
+        public ConnectionRace(List<URI> targets) {
+            this.targets = targets;
+        }
+
+        public synchronized Provider awaitWinner() throws Throwable {
+            try {
+                long nextStart = System.nanoTime();
+                while (winner == null && failed < targets.size()) {
+                    long now = System.nanoTime();
+                    if (started < targets.size()) {
+                        if (failed == started || nextStart - now <= 0) {
+                            start(targets.get(started++));
+                            nextStart = now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, parallelConnectDelay));
+                        } else {
+                            TimeUnit.NANOSECONDS.timedWait(this, nextStart - now);
+                        }
+                    } else {
+                        wait();
+                    }
+                }
+            } finally {
+                finished = true;
+            }
+
+            if (winner == null) {
+                throw failure;
+            }
+
+            return winner;
+        }
+
+        private void start(final URI target) {
+            getConnectionWorkers().execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    Provider provider = null;
+                    try {
+                        LOG.debug("Parallel connection attempt to: {} in-progress", target);
+                        provider = ProviderFactory.create(target);
+                        provider.connect(connectionInfo);
+                    } catch (Throwable e) {
+                        LOG.debug("Parallel connection attempt to: {} failed", target);
+                        closeQuietly(provider);
+                        onAttemptFailed(e);
+                        return;
+                    }
+
+                    if (!onAttemptConnected(provider)) {
+                        LOG.debug("Closing connection to: {} that lost the race", target);
+                        closeQuietly(provider);
+                    }
+                }
+            });
+        }
+
+        private synchronized boolean onAttemptConnected(Provider provider) {
+            if (winner != null || finished) {
+                return false;
+            }
+
+            winner = provider;
+            notifyAll();
+            return true;
+        }
+
+        private synchronized void onAttemptFailed(Throwable cause) {
+            failed++;
+            failure = cause;
+            notifyAll();
+        }
+    }
+
+    /*
+     * Connects and opens a standby connection ahead of its use.  Recovery on a promoted
+     * standby then skips the connection create, since the connection is already open.
+     *
+     * The open is sent with a generated container-id so that the standby does not claim the
+     * container of the active connection, which would have a broker that enforces the sole
+     * connection capability refuse the standby or close the active connection.  The AMQP
+     * container-id cannot be changed once sent, so with an explicit client ID the standby is
+     * only connected and is opened with that client ID when it is promoted.
+     */
+    private final class StandbyProvider extends ProviderWrapper<Provider> {
+
+        private volatile JmsConnectionInfo standbyInfo;
+
+        public StandbyProvider(Provider next) {
+            super(next);
+        }
+
+        public void open(JmsConnectionInfo connectionInfo) throws IOException, JMSException {
+            next.connect(connectionInfo);
+
+            if (connectionInfo.isExplicitClientID()) {
+                return;
+            }
+
+            JmsConnectionInfo standbyInfo = connectionInfo.copy();
+            standbyInfo.setClientId(STANDBY_CONTAINER_ID_GENERATOR.generateId(), false);
+
+            ProviderFuture request = new ProviderFuture();
+            next.create(standbyInfo, request);
+
+            long connectTimeout = connectionInfo.getConnectTimeout();
+            if (connectTimeout > 0) {
+                request.sync(connectTimeout, TimeUnit.MILLISECONDS);
+                if (!request.isComplete()) {
+                    throw new IOException("Timed out opening standby connection to: " + next.getRemoteURI());
+                }
+            } else {
+                request.sync();
+            }
+
+            this.standbyInfo = standbyInfo;
+        }
+
+        /**
+         * @return false if the standby was opened but the client ID has since been set, the
+         *         open of the standby then does not carry the client ID as its container-id.
+         */
+        public boolean canPromote(JmsConnectionInfo connectionInfo) {
+            return standbyInfo == null || !connectionInfo.isExplicitClientID();
+        }
+
+        @Override
+        public void create(JmsResource resource, AsyncResult request) throws IOException, JMSException, UnsupportedOperationException {
+            JmsConnectionInfo standbyInfo = this.standbyInfo;
+            if (standbyInfo != null && resource instanceof JmsConnectionInfo) {
+                this.standbyInfo = null;
+
+                // The remote may have offered its own destination prefixes on open.
+                JmsConnectionInfo connectionInfo = (JmsConnectionInfo) resource;
+                connectionInfo.setQueuePrefix(standbyInfo.getQueuePrefix());
+                connectionInfo.setTopicPrefix(standbyInfo.getTopicPrefix());
+
+                request.onSuccess();
+            } else {
+                super.create(resource, request);
+            }
+        }
+    }
+
+    /*
+     * Watches the standby provider, a standby that fails is dropped and replaced.
+     */
+    private final class StandbyListener extends DefaultProviderListener {
+
+        private final Provider owner;
+
+        public StandbyListener(Provider owner) {
+            this.owner = owner;
+        }
+
+        @Override
+        public void onConnectionFailure(final IOException ex) {
+            if (closingConnection.get() || closed.get() || failed.get()) {
+                return;
+            }
+
+            serializer.execute(new Runnable() {
+
+                @Override
+                public void run() {
+                    if (standby == owner) {
+                        LOG.debug("Standby connection to: {} failed: {}", owner.getRemoteURI(), ex.getMessage());
+                        closeStandby();
+                        connectStandby(reconnectDelay);
+                    }
+                }
+            });
+        }
+    }
+
     //--------------- FailoverProvider Asynchronous Request ------------------//
 
     /**
@@ -1124,11 +1643,9 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
                     LOG.debug("Executing Failover Task: {} ({})", this, id);
                     doTask();
                 } catch (UnsupportedOperationException e) {
-                    requests.remove(id);
-                    getWrappedRequest().onFailure(e);
+                    failRequest(e);
                 } catch (JMSException jmsEx) {
-                    requests.remove(id);
-                    getWrappedRequest().onFailure(jmsEx);
+                    failRequest(jmsEx);
                 } catch (Throwable e) {
                     LOG.debug("Caught exception while executing task: {} - {}", this, e.getMessage());
                     whenOffline(IOExceptionSupport.create(e));
@@ -1140,8 +1657,7 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
         @Override
         public void onFailure(final Throwable error) {
             if (error instanceof JMSException || closingConnection.get() || closed.get() || failed.get()) {
-                requests.remove(id);
-                super.onFailure(error);
+                failRequest(error);
             } else {
                 LOG.debug("Request received error: {}", error.getMessage());
                 serializer.execute(new Runnable() {
@@ -1201,10 +1717,22 @@ public class FailoverProvider extends DefaultProviderListener implements Provide
             return new JmsOperationTimedOutException("Timed out waiting on " +  this);
         }
 
+        /**
+         * Called once the request has failed and will not be retried, allows any state that
+         * was held so that the request could be retried after a failover to be released.
+         */
+        protected void releaseResources() {
+        }
+
+        private void failRequest(Throwable error) {
+            requests.remove(id);
+            releaseResources();
+            getWrappedRequest().onFailure(error);
+        }
+
         private void whenOffline(IOException error) {
             if (failureWhenOffline()) {
-                requests.remove(id);
-                getWrappedRequest().onFailure(IOExceptionSupport.create(error));
+                failRequest(IOExceptionSupport.create(error));
             } else if (succeedsWhenOffline()) {
                 onSuccess();
             } else {
@@ -23,6 +23,7 @@ import java.security.Principal;
 import javax.net.ssl.SSLContext;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoop;
 
 /**
  * Base class for all QpidJMS Transport instances.
@@ -60,7 +61,8 @@ public interface Transport {
 
     /**
      * Request that the Transport provide an output buffer sized for the given
-     * value.
+     * value.  The returned buffer may come from a pool and so must either be
+     * passed to one of the send or write methods or be released by the caller.
      *
      * @param size
      *        the size necessary to hold the outgoing bytes.
@@ -72,7 +74,8 @@ public interface Transport {
     ByteBuf allocateSendBuffer(int size) throws IOException;
 
     /**
-     * Sends a chunk of data over the Transport connection.
+     * Sends a chunk of data over the Transport connection, this is equivalent to
+     * a {@link #write(ByteBuf)} followed by a {@link #flush()}.
      *
      * @param output
      *        The buffer of data that is to be transmitted.
@@ -81,6 +84,25 @@ public interface Transport {
      */
     void send(ByteBuf output) throws IOException;
 
+    /**
+     * Queues a chunk of data for transmission over the Transport connection, the
+     * data is not guaranteed to be written until the next call to {@link #flush()}.
+     *
+     * @param output
+     *        The buffer of data that is to be transmitted.
+     *
+     * @throws IOException if an error occurs during the write operation.
+     */
+    void write(ByteBuf output) throws IOException;
+
+    /**
+     * Flushes any data previously queued by calls to {@link #write(ByteBuf)} out
+     * to the Transport connection.
+     *
+     * @throws IOException if an error occurs during the flush operation.
+     */
+    void flush() throws IOException;
+
     /**
      * Gets the currently set TransportListener instance
      *
@@ -114,4 +136,16 @@ public interface Transport {
      */
     Principal getLocalPrincipal();
 
+    /**
+     * Gets the event loop that will service this Transport's I/O, selecting it from the
+     * transport's event loop group if the Transport has not yet connected.  Work that is
+     * executed on the returned event loop runs on the same thread that delivers incoming
+     * data to the {@link TransportListener}.
+     *
+     * @return the event loop of this Transport or null if it does not use one.
+     *
+     * @throws IOException if an error occurs while selecting the event loop.
+     */
+    EventLoop getEventLoop() throws IOException;
+
 }
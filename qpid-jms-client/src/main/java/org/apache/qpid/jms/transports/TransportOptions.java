@@ -30,6 +30,10 @@ public class TransportOptions implements Cloneable {
     public static final int DEFAULT_SO_TIMEOUT = -1;
     public static final int DEFAULT_CONNECT_TIMEOUT = 60000;
     public static final int DEFAULT_TCP_PORT = 5672;
+    public static final int DEFAULT_SHARED_EVENT_LOOP_THREADS = -1;
+    public static final boolean DEFAULT_USE_EPOLL = false;
+    public static final boolean DEFAULT_TCP_QUICK_ACK = false;
+    public static final boolean DEFAULT_TCP_CORK = false;
 
     private int sendBufferSize = DEFAULT_SEND_BUFFER_SIZE;
     private int receiveBufferSize = DEFAULT_RECEIVE_BUFFER_SIZE;
@@ -40,6 +44,10 @@ public class TransportOptions implements Cloneable {
     private boolean tcpKeepAlive = DEFAULT_TCP_KEEP_ALIVE;
     private boolean tcpNoDelay = DEFAULT_TCP_NO_DELAY;
     private int defaultTcpPort = DEFAULT_TCP_PORT;
+    private int sharedEventLoopThreads = DEFAULT_SHARED_EVENT_LOOP_THREADS;
+    private boolean useEpoll = DEFAULT_USE_EPOLL;
+    private boolean tcpQuickAck = DEFAULT_TCP_QUICK_ACK;
+    private boolean tcpCork = DEFAULT_TCP_CORK;
 
     /**
      * @return the currently set send buffer size in bytes.
@@ -161,6 +169,82 @@ public class TransportOptions implements Cloneable {
         this.defaultTcpPort = defaultTcpPort;
     }
 
+    /**
+     * @return the number of threads in the shared event loop group, or a negative value if disabled.
+     */
+    public int getSharedEventLoopThreads() {
+        return sharedEventLoopThreads;
+    }
+
+    /**
+     * Configures whether the transport draws its connection from an event loop group
+     * that is shared with all other transports configured with the same value instead
+     * of creating its own single threaded group.  A negative value (the default) disables
+     * sharing, a value of zero sizes the shared group to the number of available processors
+     * and any positive value is used as the number of threads in the shared group.
+     *
+     * @param sharedEventLoopThreads
+     *        the number of threads in the shared event loop group.
+     */
+    public void setSharedEventLoopThreads(int sharedEventLoopThreads) {
+        this.sharedEventLoopThreads = sharedEventLoopThreads;
+    }
+
+    /**
+     * @return true if the native epoll transport should be used when it is available.
+     */
+    public boolean isUseEpoll() {
+        return useEpoll;
+    }
+
+    /**
+     * Configures whether the transport uses the Netty native epoll transport in place
+     * of NIO.  When the native library cannot be loaded on the current platform the
+     * transport falls back to NIO.
+     *
+     * @param useEpoll
+     *        should the native epoll transport be used when available.
+     */
+    public void setUseEpoll(boolean useEpoll) {
+        this.useEpoll = useEpoll;
+    }
+
+    /**
+     * @return true if TCP_QUICKACK is enabled when using the native epoll transport.
+     */
+    public boolean isTcpQuickAck() {
+        return tcpQuickAck;
+    }
+
+    /**
+     * Configures the TCP_QUICKACK socket option, only applied when the native epoll
+     * transport is in use.
+     *
+     * @param tcpQuickAck
+     *        should TCP_QUICKACK be enabled.
+     */
+    public void setTcpQuickAck(boolean tcpQuickAck) {
+        this.tcpQuickAck = tcpQuickAck;
+    }
+
+    /**
+     * @return true if TCP_CORK is enabled when using the native epoll transport.
+     */
+    public boolean isTcpCork() {
+        return tcpCork;
+    }
+
+    /**
+     * Configures the TCP_CORK socket option, only applied when the native epoll
+     * transport is in use.
+     *
+     * @param tcpCork
+     *        should TCP_CORK be enabled.
+     */
+    public void setTcpCork(boolean tcpCork) {
+        this.tcpCork = tcpCork;
+    }
+
     @Override
     public TransportOptions clone() {
         return copyOptions(new TransportOptions());
@@ -180,6 +264,10 @@ public class TransportOptions implements Cloneable {
         copy.setTcpNoDelay(isTcpNoDelay());
         copy.setTrafficClass(getTrafficClass());
         copy.setDefaultTcpPort(getDefaultTcpPort());
+        copy.setSharedEventLoopThreads(getSharedEventLoopThreads());
+        copy.setUseEpoll(isUseEpoll());
+        copy.setTcpQuickAck(isTcpQuickAck());
+        copy.setTcpCork(isTcpCork());
 
         return copy;
     }
@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.transports.netty;
+
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.qpid.jms.transports.TransportOptions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+
+/**
+ * Isolates use of the Netty native epoll transport so that its classes are only
+ * loaded when it has been requested and the native library is present.
+ */
+final class EpollSupport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EpollSupport.class);
+
+    private EpollSupport() {}
+
+    /**
+     * Checks if the native epoll transport should be used for the given options, which
+     * requires that it was requested and that the native library could be loaded.
+     *
+     * @param options
+     *        the transport options that control whether epoll should be used.
+     *
+     * @return true if the native epoll transport should be used.
+     */
+    public static boolean isAvailable(TransportOptions options) {
+        try {
+            return options.isUseEpoll() && Epoll.isAvailable();
+        } catch (NoClassDefFoundError ncdfe) {
+            LOG.debug("Unable to check for Epoll support due to missing class definition", ncdfe);
+            return false;
+        }
+    }
+
+    public static EventLoopGroup createGroup(int threads, ThreadFactory threadFactory) {
+        return new EpollEventLoopGroup(threads, threadFactory);
+    }
+
+    public static void createChannel(Bootstrap bootstrap, TransportOptions options) {
+        bootstrap.channel(EpollSocketChannel.class);
+        bootstrap.option(EpollChannelOption.TCP_QUICKACK, options.isTcpQuickAck());
+        bootstrap.option(EpollChannelOption.TCP_CORK, options.isTcpCork());
+    }
+}
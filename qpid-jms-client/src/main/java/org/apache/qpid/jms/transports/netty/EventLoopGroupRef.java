@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.transports.netty;
+
+import io.netty.channel.EventLoopGroup;
+
+/**
+ * A reference to an {@link EventLoopGroup} that a transport is using, closing the
+ * reference releases the group which may or may not result in it being shut down
+ * depending on whether the group is shared with other transports.
+ */
+interface EventLoopGroupRef extends AutoCloseable {
+
+    /**
+     * @return the {@link EventLoopGroup} that this reference is holding.
+     */
+    EventLoopGroup group();
+
+    /**
+     * Releases this reference to the group, once closed the group should not
+     * be used by the holder again.
+     */
+    @Override
+    void close();
+
+}
@@ -20,7 +20,6 @@ import java.io.IOException;
 import java.net.URI;
 import java.security.Principal;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.net.ssl.SSLContext;
@@ -44,10 +43,9 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
-import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoop;
 import io.netty.channel.FixedRecvByteBufAllocator;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.util.concurrent.Future;
@@ -60,10 +58,7 @@ public class NettyTcpTransport implements Transport {
 
     private static final Logger LOG = LoggerFactory.getLogger(NettyTcpTransport.class);
 
-    private static final int SHUTDOWN_TIMEOUT = 50;
-
     protected Bootstrap bootstrap;
-    protected EventLoopGroup group;
     protected Channel channel;
     protected TransportListener listener;
 
@@ -73,6 +68,8 @@ public class NettyTcpTransport implements Transport {
     private final AtomicBoolean closed = new AtomicBoolean();
     private final CountDownLatch connectLatch = new CountDownLatch(1);
     private volatile IOException failureCause;
+    private EventLoopGroupRef groupRef;
+    private volatile EventLoop eventLoop;
 
     /**
      * Create a new transport instance
@@ -132,11 +129,18 @@ public class NettyTcpTransport implements Transport {
             sslHandler = null;
         }
 
-        group = new NioEventLoopGroup(1);
+        boolean useEpoll = EpollSupport.isAvailable(options);
+        if (options.isUseEpoll() && !useEpoll) {
+            LOG.debug("Native epoll transport requested but not available, falling back to NIO");
+        }
 
         bootstrap = new Bootstrap();
-        bootstrap.group(group);
-        bootstrap.channel(NioSocketChannel.class);
+        bootstrap.group(getEventLoop());
+        if (useEpoll) {
+            EpollSupport.createChannel(bootstrap, options);
+        } else {
+            bootstrap.channel(NioSocketChannel.class);
+        }
         bootstrap.handler(new ChannelInitializer<Channel>() {
             @Override
             public void initChannel(Channel connectedChannel) throws Exception {
@@ -171,12 +175,12 @@ public class NettyTcpTransport implements Transport {
                 channel.close().syncUninterruptibly();
                 channel = null;
             }
-            if (group != null) {
-                Future<?> fut = group.shutdownGracefully(0, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
-                if (!fut.awaitUninterruptibly(2 * SHUTDOWN_TIMEOUT)) {
-                    LOG.trace("Channel group shutdown failed to complete in allotted time");
+            synchronized (this) {
+                if (groupRef != null) {
+                    groupRef.close();
+                    groupRef = null;
+                    eventLoop = null;
                 }
-                group = null;
             }
 
             throw failureCause;
@@ -194,6 +198,24 @@ public class NettyTcpTransport implements Transport {
         }
     }
 
+    @Override
+    public synchronized EventLoop getEventLoop() {
+        if (eventLoop == null) {
+            boolean useEpoll = EpollSupport.isAvailable(options);
+            if (options.getSharedEventLoopThreads() >= 0) {
+                groupRef = SharedEventLoopGroup.retain(useEpoll, options.getSharedEventLoopThreads());
+            } else {
+                groupRef = SharedEventLoopGroup.unshared(useEpoll, 1);
+            }
+
+            // The channel is registered with this loop on connect, selecting it up front
+            // lets the transport user run its own work on the channel's I/O thread.
+            eventLoop = groupRef.group().next();
+        }
+
+        return eventLoop;
+    }
+
     @Override
     public boolean isConnected() {
         return connected.get();
@@ -213,11 +235,8 @@ public class NettyTcpTransport implements Transport {
                     channel.close().syncUninterruptibly();
                 }
             } finally {
-                if (group != null) {
-                    Future<?> fut = group.shutdownGracefully(0, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
-                    if (!fut.awaitUninterruptibly(2 * SHUTDOWN_TIMEOUT)) {
-                        LOG.trace("Channel group shutdown failed to complete in allotted time");
-                    }
+                if (groupRef != null) {
+                    groupRef.close();
                 }
             }
         }
@@ -231,6 +250,12 @@ public class NettyTcpTransport implements Transport {
 
     @Override
     public void send(ByteBuf output) throws IOException {
+        write(output);
+        flush();
+    }
+
+    @Override
+    public void write(ByteBuf output) throws IOException {
         checkConnected();
         int length = output.readableBytes();
         if (length == 0) {
@@ -239,7 +264,13 @@ public class NettyTcpTransport implements Transport {
 
         LOG.trace("Attempted write of: {} bytes", length);
 
-        channel.writeAndFlush(output);
+        channel.write(output);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        checkConnected();
+        channel.flush();
     }
 
     @Override
@@ -79,7 +79,7 @@ public class NettyWsTransport extends NettyTcpTransport {
     }
 
     @Override
-    public void send(ByteBuf output) throws IOException {
+    public void write(ByteBuf output) throws IOException {
         checkConnected();
         int length = output.readableBytes();
         if (length == 0) {
@@ -88,7 +88,7 @@ public class NettyWsTransport extends NettyTcpTransport {
 
         LOG.trace("Attempted write of: {} bytes", length);
 
-        channel.writeAndFlush(new BinaryWebSocketFrame(output));
+        channel.write(new BinaryWebSocketFrame(output));
     }
 
     @Override
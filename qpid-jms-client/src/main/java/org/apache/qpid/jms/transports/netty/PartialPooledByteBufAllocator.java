@@ -21,11 +21,13 @@ import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.util.internal.PlatformDependent;
 
 
 /**
  * A {@link ByteBufAllocator} which is partial pooled. Which means only direct {@link ByteBuf}s are pooled. The rest
- * is unpooled.
+ * is unpooled.  IO buffers are taken from the direct pool where the platform allows so that data written to or
+ * read from the socket does not need an additional copy to and from a heap buffer.
  *
  * @author <a href="mailto:nmaurer@redhat.com">Norman Maurer</a>
  */
@@ -33,6 +35,7 @@ public class PartialPooledByteBufAllocator implements ByteBufAllocator
 {
    private static final ByteBufAllocator POOLED = new PooledByteBufAllocator(false);
    private static final ByteBufAllocator UNPOOLED = new UnpooledByteBufAllocator(false);
+   private static final boolean DIRECT_IO_BUFFERS = PlatformDependent.hasUnsafe();
 
    public static final PartialPooledByteBufAllocator INSTANCE = new PartialPooledByteBufAllocator();
 
@@ -61,18 +64,30 @@ public class PartialPooledByteBufAllocator implements ByteBufAllocator
    @Override
    public ByteBuf ioBuffer()
    {
+      if (DIRECT_IO_BUFFERS)
+      {
+         return POOLED.directBuffer();
+      }
       return UNPOOLED.heapBuffer();
    }
 
    @Override
    public ByteBuf ioBuffer(int initialCapacity)
    {
+      if (DIRECT_IO_BUFFERS)
+      {
+         return POOLED.directBuffer(initialCapacity);
+      }
       return UNPOOLED.heapBuffer(initialCapacity);
    }
 
    @Override
    public ByteBuf ioBuffer(int initialCapacity, int maxCapacity)
    {
+      if (DIRECT_IO_BUFFERS)
+      {
+         return POOLED.directBuffer(initialCapacity, maxCapacity);
+      }
       return UNPOOLED.heapBuffer(initialCapacity, maxCapacity);
    }
 
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.transports.netty;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+
+/**
+ * Reference counted {@link EventLoopGroup} that is shared between all transports that
+ * request a shared group of the same type with the same number of threads.  The group
+ * is created when the first reference is taken and shut down once the last reference
+ * is closed.
+ */
+final class SharedEventLoopGroup {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SharedEventLoopGroup.class);
+
+    private static final int SHUTDOWN_TIMEOUT = 50;
+
+    private static final Map<Integer, SharedEventLoopGroup> SHARED_NIO_GROUPS = new HashMap<>();
+    private static final Map<Integer, SharedEventLoopGroup> SHARED_EPOLL_GROUPS = new HashMap<>();
+
+    private final Map<Integer, SharedEventLoopGroup> owner;
+    private final EventLoopGroup group;
+    private final int threads;
+    private int refCount;
+
+    private SharedEventLoopGroup(Map<Integer, SharedEventLoopGroup> owner, boolean useEpoll, int threads) {
+        this.owner = owner;
+        this.threads = threads;
+        this.group = createGroup(useEpoll, threads, new DefaultThreadFactory("QpidJMS-SharedEventLoop"));
+    }
+
+    /**
+     * Acquires a reference to the shared group sized to the given number of threads,
+     * creating it if no other transport currently holds a reference to one.
+     *
+     * @param useEpoll
+     *        should the shared group be backed by the native epoll transport.
+     * @param threads
+     *        the number of threads in the shared group, zero or less uses the number of
+     *        available processors.
+     *
+     * @return a new {@link EventLoopGroupRef} that must be closed when no longer needed.
+     */
+    static EventLoopGroupRef retain(boolean useEpoll, int threads) {
+        if (threads <= 0) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
+
+        final Map<Integer, SharedEventLoopGroup> groups = useEpoll ? SHARED_EPOLL_GROUPS : SHARED_NIO_GROUPS;
+
+        synchronized (groups) {
+            SharedEventLoopGroup shared = groups.get(threads);
+            if (shared == null) {
+                LOG.trace("Creating new shared {} event loop group with {} threads", useEpoll ? "epoll" : "nio", threads);
+                shared = new SharedEventLoopGroup(groups, useEpoll, threads);
+                groups.put(threads, shared);
+            }
+
+            shared.refCount++;
+
+            return new SharedGroupRef(shared);
+        }
+    }
+
+    /**
+     * Creates a reference to a new group which is owned solely by the caller and
+     * is shut down when the reference is closed.
+     *
+     * @param useEpoll
+     *        should the new group be backed by the native epoll transport.
+     * @param threads
+     *        the number of threads in the new group.
+     *
+     * @return a new {@link EventLoopGroupRef} that must be closed when no longer needed.
+     */
+    static EventLoopGroupRef unshared(boolean useEpoll, int threads) {
+        return new UnsharedGroupRef(createGroup(useEpoll, threads, null));
+    }
+
+    /**
+     * @param useEpoll
+     *        the type of the shared group to query.
+     * @param threads
+     *        the thread count of the shared group to query.
+     *
+     * @return the number of open references to the shared group of the given type and size.
+     */
+    static int getReferenceCount(boolean useEpoll, int threads) {
+        final Map<Integer, SharedEventLoopGroup> groups = useEpoll ? SHARED_EPOLL_GROUPS : SHARED_NIO_GROUPS;
+
+        synchronized (groups) {
+            SharedEventLoopGroup shared = groups.get(threads);
+            return shared != null ? shared.refCount : 0;
+        }
+    }
+
+    private void release() {
+        synchronized (owner) {
+            if (--refCount == 0) {
+                LOG.trace("Last reference released, shutting down shared event loop group with {} threads", threads);
+                owner.remove(threads);
+                shutdown(group);
+            }
+        }
+    }
+
+    private static EventLoopGroup createGroup(boolean useEpoll, int threads, ThreadFactory threadFactory) {
+        if (useEpoll) {
+            return EpollSupport.createGroup(threads, threadFactory);
+        } else {
+            return new NioEventLoopGroup(threads, threadFactory);
+        }
+    }
+
+    private static void shutdown(EventLoopGroup group) {
+        Future<?> fut = group.shutdownGracefully(0, SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        // Waiting from within the group would block one of its own threads.
+        for (EventExecutor executor : group) {
+            if (executor.inEventLoop()) {
+                return;
+            }
+        }
+
+        if (!fut.awaitUninterruptibly(2 * SHUTDOWN_TIMEOUT)) {
+            LOG.trace("Channel group shutdown failed to complete in allotted time");
+        }
+    }
+
+    //----- Reference implementations ----------------------------------------//
+
+    private static final class SharedGroupRef implements EventLoopGroupRef {
+
+        private final SharedEventLoopGroup shared;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        public SharedGroupRef(SharedEventLoopGroup shared) {
+            this.shared = shared;
+        }
+
+        @Override
+        public EventLoopGroup group() {
+            if (closed.get()) {
+                throw new IllegalStateException("Group reference is already closed");
+            }
+
+            return shared.group;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                shared.release();
+            }
+        }
+    }
+
+    private static final class UnsharedGroupRef implements EventLoopGroupRef {
+
+        private final EventLoopGroup group;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        public UnsharedGroupRef(EventLoopGroup group) {
+            this.group = group;
+        }
+
+        @Override
+        public EventLoopGroup group() {
+            if (closed.get()) {
+                throw new IllegalStateException("Group reference is already closed");
+            }
+
+            return group;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                shutdown(group);
+            }
+        }
+    }
+}
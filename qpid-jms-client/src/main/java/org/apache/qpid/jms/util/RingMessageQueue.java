@@ -0,0 +1,296 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+
+/**
+ * First in / first out Message Queue backed by a bounded array ring.
+ * <p>
+ * The queue is written by a single producer, the connection thread, and read by a single
+ * consumer at a time.  Appending to the tail never takes a lock or allocates, and a reader
+ * waiting for a message spins briefly before parking until the producer unparks it.  The
+ * ring is sized from the consumer prefetch, any messages beyond its capacity and those put
+ * back at the front of the queue are held in small locked overflow queues that are only
+ * used on those less common paths.
+ */
+public final class RingMessageQueue implements MessageQueue {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int MAX_CAPACITY = 1 << 15;
+    private static final int SPIN_TRIES = 100;
+
+    private final AtomicReferenceArray<JmsInboundMessageDispatch> ring;
+    private final int mask;
+
+    // Next slot to read, advanced only by the reader.
+    private final AtomicLong head = new AtomicLong();
+    // Next slot to write, advanced only by the producer.
+    private final AtomicLong tail = new AtomicLong();
+    // Producer's view of head, refreshed only when the ring appears full.
+    private long headCache;
+
+    // Messages put back at the front of the queue, e.g. on recover.
+    private final ArrayDeque<JmsInboundMessageDispatch> front = new ArrayDeque<JmsInboundMessageDispatch>();
+    private volatile int frontSize;
+
+    // Messages that arrived while the ring was full, always newer than those in the ring.
+    private final ArrayDeque<JmsInboundMessageDispatch> overflow = new ArrayDeque<JmsInboundMessageDispatch>();
+    private volatile int overflowSize;
+
+    private final Object lock = new Object();
+    private volatile Thread waiter;
+
+    private volatile boolean closed;
+    private volatile boolean running;
+
+    /**
+     * Creates a new queue whose ring can hold at least the given number of messages.
+     *
+     * @param capacity
+     *      the expected number of messages held at once, usually the consumer prefetch.
+     */
+    public RingMessageQueue(int capacity) {
+        int size = MIN_CAPACITY;
+        while (size < capacity && size < MAX_CAPACITY) {
+            size <<= 1;
+        }
+
+        this.ring = new AtomicReferenceArray<JmsInboundMessageDispatch>(size);
+        this.mask = size - 1;
+    }
+
+    @Override
+    public void enqueue(JmsInboundMessageDispatch envelope) {
+        long currentTail = tail.get();
+
+        if (overflowSize == 0 && (currentTail - headCache < ring.length() || currentTail - (headCache = head.get()) < ring.length())) {
+            ring.lazySet((int) currentTail & mask, envelope);
+            // A full volatile write so a reader that has just registered as the
+            // waiter either sees this message or is seen by signalWaiter below.
+            tail.set(currentTail + 1);
+        } else {
+            synchronized (lock) {
+                overflow.addLast(envelope);
+                overflowSize++;
+            }
+        }
+
+        signalWaiter();
+    }
+
+    @Override
+    public void enqueueFirst(JmsInboundMessageDispatch envelope) {
+        synchronized (lock) {
+            front.addFirst(envelope);
+            frontSize++;
+        }
+
+        signalWaiter();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return frontSize == 0 && head.get() == tail.get() && overflowSize == 0;
+    }
+
+    @Override
+    public JmsInboundMessageDispatch peek() {
+        synchronized (lock) {
+            if (frontSize > 0) {
+                return front.peekFirst();
+            }
+
+            long currentHead = head.get();
+            if (currentHead != tail.get()) {
+                return ring.get((int) currentHead & mask);
+            }
+
+            return overflow.peekFirst();
+        }
+    }
+
+    @Override
+    public JmsInboundMessageDispatch dequeue(long timeout) throws InterruptedException {
+        long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+        int spins = SPIN_TRIES;
+
+        while (true) {
+            if (closed || !running) {
+                return null;
+            }
+
+            JmsInboundMessageDispatch envelope = poll();
+            if (envelope != null || timeout == 0) {
+                return envelope;
+            }
+
+            if (spins > 0) {
+                spins--;
+                Thread.yield();
+                continue;
+            }
+
+            waiter = Thread.currentThread();
+            try {
+                // Check again now that the producer can see we are waiting.
+                if (!isEmpty() || closed || !running) {
+                    continue;
+                }
+
+                if (timeout < 0) {
+                    LockSupport.park(this);
+                } else {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    LockSupport.parkNanos(this, remaining);
+                }
+            } finally {
+                waiter = null;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    @Override
+    public JmsInboundMessageDispatch dequeueNoWait() {
+        if (closed || !running) {
+            return null;
+        }
+
+        return poll();
+    }
+
+    @Override
+    public void start() {
+        if (!closed) {
+            running = true;
+        }
+        signalWaiter();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        signalWaiter();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        closed = true;
+        signalWaiter();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    @Override
+    public int size() {
+        return (int) (tail.get() - head.get()) + frontSize + overflowSize;
+    }
+
+    @Override
+    public void clear() {
+        synchronized (lock) {
+            while (pollLocked() != null) {
+            }
+        }
+    }
+
+    @Override
+    public List<JmsInboundMessageDispatch> removeAll() {
+        synchronized (lock) {
+            ArrayList<JmsInboundMessageDispatch> rc = new ArrayList<JmsInboundMessageDispatch>(size());
+            JmsInboundMessageDispatch envelope;
+            while ((envelope = pollLocked()) != null) {
+                rc.add(envelope);
+            }
+            return rc;
+        }
+    }
+
+    @Override
+    public Object getLock() {
+        return lock;
+    }
+
+    @Override
+    public String toString() {
+        return "RingMessageQueue { size = " + size() + " }";
+    }
+
+    //----- Internal implementation ------------------------------------------//
+
+    private JmsInboundMessageDispatch poll() {
+        // The lock is uncontended on the read path, the producer only takes it
+        // to use the overflow or front queues.
+        synchronized (lock) {
+            return pollLocked();
+        }
+    }
+
+    private JmsInboundMessageDispatch pollLocked() {
+        if (frontSize > 0) {
+            frontSize--;
+            return front.pollFirst();
+        }
+
+        long currentHead = head.get();
+        if (currentHead != tail.get()) {
+            int index = (int) currentHead & mask;
+            JmsInboundMessageDispatch envelope = ring.get(index);
+            ring.lazySet(index, null);
+            head.lazySet(currentHead + 1);
+            return envelope;
+        }
+
+        if (overflowSize > 0) {
+            overflowSize--;
+            return overflow.pollFirst();
+        }
+
+        return null;
+    }
+
+    private void signalWaiter() {
+        Thread waiting = waiter;
+        if (waiting != null) {
+            LockSupport.unpark(waiting);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashed wheel of timeouts driven by a single periodic tick on an executor.
+ * <p>
+ * Adding a timeout places it in the wheel bucket of the tick it expires on and cancelling
+ * one only marks it, so both are constant time regardless of how many timeouts are pending,
+ * cancelled timeouts are dropped when their bucket is next visited.  Timeouts fire on the
+ * first tick at or after their deadline, so they can run up to one tick late.  The tick is
+ * only scheduled while there are timeouts in the wheel.
+ * <p>
+ * The wheel is not thread safe, timeouts must be added from the thread of the executor that
+ * drives it, which is also the thread that the timeout tasks are run on.
+ */
+public final class TimeoutWheel {
+
+    public static final long DEFAULT_TICK_DURATION = 10;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private final ScheduledExecutorService executor;
+    private final long tickNanos;
+    private final Timeout[] wheel;
+    private final int mask;
+
+    private long startTime;
+    // The next tick to be processed, timeouts are never added to a tick before it.
+    private long tick;
+    private int pending;
+    private ScheduledFuture<?> ticker;
+
+    /**
+     * Creates a new wheel with the default tick duration and size.
+     *
+     * @param executor
+     *      the executor that drives the wheel and runs the timeout tasks.
+     */
+    public TimeoutWheel(ScheduledExecutorService executor) {
+        this(executor, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * Creates a new wheel.
+     *
+     * @param executor
+     *      the executor that drives the wheel and runs the timeout tasks.
+     * @param tickDuration
+     *      the duration of a tick in milliseconds.
+     * @param wheelSize
+     *      the number of buckets in the wheel, rounded up to a power of two.
+     */
+    public TimeoutWheel(ScheduledExecutorService executor, long tickDuration, int wheelSize) {
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Tick duration must be greater than zero");
+        }
+
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+
+        this.executor = executor;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        this.wheel = new Timeout[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Schedules a task to be run once the given delay has elapsed.
+     *
+     * @param task
+     *      the task to run when the timeout expires.
+     * @param delay
+     *      the time in milliseconds after which the task is run.
+     *
+     * @return a {@link ScheduledFuture} that can be used to cancel the timeout.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay) {
+        long now = System.nanoTime();
+
+        if (ticker == null) {
+            startTime = now;
+            tick = 0;
+            ticker = executor.scheduleWithFixedDelay(new Runnable() {
+
+                @Override
+                public void run() {
+                    expireTimeouts();
+                }
+            }, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+
+        Timeout timeout = new Timeout(task, now + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+
+        long expiresOn = (timeout.deadline - startTime + tickNanos - 1) / tickNanos;
+        timeout.tick = Math.max(expiresOn, tick);
+
+        int index = (int) timeout.tick & mask;
+        timeout.next = wheel[index];
+        wheel[index] = timeout;
+        pending++;
+
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts held in the wheel, including cancelled ones not yet dropped.
+     */
+    public int size() {
+        return pending;
+    }
+
+    /**
+     * Cancels the wheel tick and drops all timeouts without running them.
+     */
+    public void stop() {
+        if (ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+
+        for (int i = 0; i < wheel.length; ++i) {
+            wheel[i] = null;
+        }
+
+        pending = 0;
+    }
+
+    private void expireTimeouts() {
+        long currentTick = (System.nanoTime() - startTime) / tickNanos;
+
+        while (tick <= currentTick && pending > 0) {
+            long expiring = tick++;
+            int index = (int) expiring & mask;
+
+            Timeout timeout = wheel[index];
+            wheel[index] = null;
+
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.next = null;
+
+                if (timeout.isCancelled()) {
+                    pending--;
+                } else if (timeout.tick <= expiring) {
+                    pending--;
+                    timeout.run();
+                } else {
+                    // Expires on a later turn of the wheel.
+                    timeout.next = wheel[index];
+                    wheel[index] = timeout;
+                }
+
+                timeout = next;
+            }
+        }
+
+        // Processing only the ticks that have passed keeps the start time, and so the
+        // bucket of every pending timeout, fixed until the wheel empties.
+        if (pending == 0 && ticker != null) {
+            ticker.cancel(false);
+            ticker = null;
+        }
+    }
+
+    private static final class Timeout extends FutureTask<Void> implements ScheduledFuture<Void> {
+
+        private final long deadline;
+        private long tick;
+        private Timeout next;
+
+        public Timeout(Runnable task, long deadline) {
+            super(task, null);
+            this.deadline = deadline;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) {
+                return 0;
+            }
+
+            long difference = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+            return difference < 0 ? -1 : difference > 0 ? 1 : 0;
+        }
+    }
+}
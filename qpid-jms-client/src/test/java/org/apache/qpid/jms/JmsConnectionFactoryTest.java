@@ -92,6 +92,12 @@ public class JmsConnectionFactoryTest extends QpidJmsTestCase {
         factory.setConnectTimeout(TimeUnit.SECONDS.toMillis(30));
         factory.setCloseTimeout(TimeUnit.SECONDS.toMillis(45));
         factory.setUseDaemonThread(true);
+        factory.setMaxInFlightMessages(100);
+        factory.setMaxInFlightBytes(65536);
+        factory.setProducerMaxInFlightMessages(10);
+        factory.setProducerMaxInFlightBytes(4096);
+        factory.setSendWindowFailFast(true);
+        factory.setProviderFutureType("aggressive");
 
         JmsConnection connection = (JmsConnection) factory.createConnection();
         assertNotNull(connection);
@@ -111,6 +117,13 @@ public class JmsConnectionFactoryTest extends QpidJmsTestCase {
         assertEquals(TimeUnit.SECONDS.toMillis(30), connection.getConnectTimeout());
         assertEquals(TimeUnit.SECONDS.toMillis(45), connection.getCloseTimeout());
 
+        assertEquals(100, connection.getMaxInFlightMessages());
+        assertEquals(65536, connection.getMaxInFlightBytes());
+        assertEquals(10, connection.getProducerMaxInFlightMessages());
+        assertEquals(4096, connection.getProducerMaxInFlightBytes());
+        assertTrue(connection.isSendWindowFailFast());
+        assertEquals("AGGRESSIVE", connection.getProviderFutureType());
+
         connection.close();
     }
 
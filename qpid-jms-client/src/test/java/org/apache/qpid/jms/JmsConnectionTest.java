@@ -26,6 +26,10 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.jms.ConnectionMetaData;
 import javax.jms.ExceptionListener;
@@ -36,10 +40,15 @@ import javax.jms.Session;
 import javax.jms.TemporaryQueue;
 import javax.jms.TemporaryTopic;
 
+import org.apache.qpid.jms.message.JmsInboundMessageDispatch;
+import org.apache.qpid.jms.message.facade.test.JmsTestMessageFactory;
 import org.apache.qpid.jms.meta.JmsConnectionId;
 import org.apache.qpid.jms.meta.JmsConnectionInfo;
+import org.apache.qpid.jms.meta.JmsConsumerId;
 import org.apache.qpid.jms.policy.JmsDefaultPrefetchPolicy;
+import org.apache.qpid.jms.provider.AsyncResult;
 import org.apache.qpid.jms.provider.ProviderConstants.ACK_TYPE;
+import org.apache.qpid.jms.provider.ProviderWrapper;
 import org.apache.qpid.jms.provider.mock.MockProvider;
 import org.apache.qpid.jms.provider.mock.MockProviderFactory;
 import org.apache.qpid.jms.util.IdGenerator;
@@ -306,6 +315,79 @@ public class JmsConnectionTest {
         assertTrue("Expected non-zero provider major(" + major + ") / minor(" + minor +") version.", (major + minor) != 0);
     }
 
+    @Test(timeout=30000)
+    public void testReceiveDoesNotWaitForDeliveredAcknowledgement() throws Exception {
+        final List<AsyncResult> pendingDeliveredAcks = new CopyOnWriteArrayList<AsyncResult>();
+
+        ProviderWrapper<MockProvider> wrapper = new ProviderWrapper<MockProvider>(provider) {
+
+            @Override
+            public void acknowledge(JmsInboundMessageDispatch envelope, ACK_TYPE ackType, AsyncResult request) throws IOException, JMSException {
+                if (ackType == ACK_TYPE.DELIVERED) {
+                    // Never complete it, a receive that waits on the provider would hang.
+                    pendingDeliveredAcks.add(request);
+                } else {
+                    super.acknowledge(envelope, ackType, request);
+                }
+            }
+        };
+
+        connection = new JmsConnection(connectionInfo, wrapper);
+        connection.start();
+
+        Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+        JmsMessageConsumer consumer = (JmsMessageConsumer) session.createConsumer(session.createQueue("test"));
+
+        wrapper.onInboundMessage(createEnvelope(consumer.getConsumerId()));
+
+        assertNotNull(consumer.receive(5000));
+        assertEquals(1, pendingDeliveredAcks.size());
+    }
+
+    @Test(timeout=30000)
+    public void testDeliveredAcknowledgementFailureNotifiesExceptionListener() throws Exception {
+        final CountDownLatch failed = new CountDownLatch(1);
+
+        ProviderWrapper<MockProvider> wrapper = new ProviderWrapper<MockProvider>(provider) {
+
+            @Override
+            public void acknowledge(JmsInboundMessageDispatch envelope, ACK_TYPE ackType, AsyncResult request) throws IOException, JMSException {
+                if (ackType == ACK_TYPE.DELIVERED) {
+                    request.onFailure(new IOException("Delivered ack failed"));
+                } else {
+                    super.acknowledge(envelope, ackType, request);
+                }
+            }
+        };
+
+        connection = new JmsConnection(connectionInfo, wrapper);
+        connection.setExceptionListener(new ExceptionListener() {
+
+            @Override
+            public void onException(JMSException exception) {
+                if ("Delivered ack failed".equals(exception.getMessage())) {
+                    failed.countDown();
+                }
+            }
+        });
+        connection.start();
+
+        Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+        JmsMessageConsumer consumer = (JmsMessageConsumer) session.createConsumer(session.createQueue("test"));
+
+        wrapper.onInboundMessage(createEnvelope(consumer.getConsumerId()));
+
+        assertNotNull(consumer.receive(5000));
+        assertTrue("Exception listener was not notified", failed.await(5, TimeUnit.SECONDS));
+    }
+
+    private JmsInboundMessageDispatch createEnvelope(JmsConsumerId consumerId) {
+        JmsInboundMessageDispatch envelope = new JmsInboundMessageDispatch(1);
+        envelope.setConsumerId(consumerId);
+        envelope.setMessage(new JmsTestMessageFactory().createTextMessage("content"));
+        return envelope;
+    }
+
     //----- Currently these are unimplemented, these will fail after that ----//
 
     @Test(timeout=30000, expected=JMSException.class)
@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.jms.IllegalStateException;
+import javax.jms.ResourceAllocationException;
+
+import org.junit.Test;
+
+/**
+ * Test for the JmsSendWindow class.
+ */
+public class JmsSendWindowTest {
+
+    @Test(timeout = 10000)
+    public void testAcquireAndReleaseUpdatesParent() throws Exception {
+        JmsSendWindow parent = new JmsSendWindow(0, 0, false);
+        JmsSendWindow window = new JmsSendWindow(parent, 10, 0, false);
+
+        long epoch = window.acquire(100, 0);
+        window.acquire(50, 0);
+
+        assertEquals(2, window.getInFlightMessages());
+        assertEquals(150, window.getInFlightBytes());
+        assertEquals(2, parent.getInFlightMessages());
+        assertEquals(150, parent.getInFlightBytes());
+
+        window.release(100, epoch);
+
+        assertEquals(1, window.getInFlightMessages());
+        assertEquals(50, window.getInFlightBytes());
+        assertEquals(1, parent.getInFlightMessages());
+        assertEquals(50, parent.getInFlightBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailFastWhenParentIsFull() throws Exception {
+        JmsSendWindow parent = new JmsSendWindow(0, 100, true);
+        JmsSendWindow window1 = new JmsSendWindow(parent, 0, 0, true);
+        JmsSendWindow window2 = new JmsSendWindow(parent, 0, 0, true);
+
+        window1.acquire(80, 0);
+
+        try {
+            window2.acquire(40, 0);
+            fail("Should not be able to exceed the byte limit of the parent");
+        } catch (ResourceAllocationException ex) {
+        }
+
+        assertEquals(1, window2.getRejectedSendCount());
+        assertEquals(0, window2.getInFlightMessages());
+    }
+
+    @Test(timeout = 10000)
+    public void testOversizedMessageAllowedWhenWindowIsEmpty() throws Exception {
+        JmsSendWindow window = new JmsSendWindow(0, 100, true);
+
+        window.acquire(1000, 0);
+        assertEquals(1000, window.getInFlightBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchAcquireTakesAllOrNothing() throws Exception {
+        JmsSendWindow parent = new JmsSendWindow(0, 0, true);
+        JmsSendWindow window = new JmsSendWindow(parent, 3, 0, true);
+
+        long epoch = window.acquire(10, 0);
+
+        try {
+            window.acquire(3, 30, 0);
+            fail("Should not be able to take capacity for more messages than are free");
+        } catch (ResourceAllocationException ex) {
+        }
+
+        assertEquals(1, window.getInFlightMessages());
+        assertEquals(10, parent.getInFlightBytes());
+
+        window.release(10, epoch);
+        epoch = window.acquire(3, 30, 0);
+
+        assertEquals(3, window.getInFlightMessages());
+        assertEquals(30, parent.getInFlightBytes());
+
+        for (int i = 0; i < 3; ++i) {
+            window.release(10, epoch);
+        }
+
+        assertEquals(0, window.getInFlightMessages());
+        assertEquals(0, parent.getInFlightBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testOversizedBatchAllowedWhenWindowIsEmpty() throws Exception {
+        JmsSendWindow window = new JmsSendWindow(2, 100, true);
+
+        window.acquire(5, 1000, 0);
+        assertEquals(5, window.getInFlightMessages());
+        assertEquals(1000, window.getInFlightBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockedSendProceedsOnRelease() throws Exception {
+        final JmsSendWindow window = new JmsSendWindow(1, 0, false);
+        final long epoch = window.acquire(10, 0);
+        final CountDownLatch acquired = new CountDownLatch(1);
+
+        Thread sender = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    window.acquire(10, 0);
+                    acquired.countDown();
+                } catch (Exception e) {
+                }
+            }
+        });
+        sender.start();
+
+        assertFalse(acquired.await(50, TimeUnit.MILLISECONDS));
+        window.release(10, epoch);
+        assertTrue(acquired.await(5, TimeUnit.SECONDS));
+
+        assertEquals(1, window.getInFlightMessages());
+        assertEquals(1, window.getBlockedSendCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testBlockedSendTimesOut() throws Exception {
+        JmsSendWindow window = new JmsSendWindow(1, 0, false);
+        window.acquire(10, 0);
+
+        try {
+            window.acquire(10, 50);
+            fail("Should have timed out waiting for capacity");
+        } catch (JmsSendTimedOutException ex) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testReleaseAfterResetIsIgnored() throws Exception {
+        JmsSendWindow parent = new JmsSendWindow(0, 0, false);
+        JmsSendWindow window = new JmsSendWindow(parent, 2, 0, false);
+        JmsSendWindow other = new JmsSendWindow(parent, 2, 0, false);
+
+        long epoch = window.acquire(10, 0);
+        other.acquire(10, 0);
+
+        window.reset();
+
+        assertEquals(0, window.getInFlightMessages());
+        assertEquals(1, parent.getInFlightMessages());
+        assertEquals(10, parent.getInFlightBytes());
+
+        window.release(10, epoch);
+
+        assertEquals(0, window.getInFlightMessages());
+        assertEquals(1, parent.getInFlightMessages());
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseFailsBlockedSend() throws Exception {
+        final JmsSendWindow window = new JmsSendWindow(1, 0, false);
+        window.acquire(10, 0);
+
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        Thread sender = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    window.acquire(10, 0);
+                } catch (Exception e) {
+                    failure.set(e);
+                }
+            }
+        });
+        sender.start();
+
+        while (window.getBlockedSendCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        window.close();
+        sender.join(5000);
+
+        assertTrue(failure.get() instanceof IllegalStateException);
+    }
+}
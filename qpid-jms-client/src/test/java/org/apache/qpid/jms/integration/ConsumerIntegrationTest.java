@@ -910,6 +910,178 @@ public class ConsumerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout=20000)
+    public void testCreditRefillThresholdIsConfigurable() throws Exception {
+        int prefetch = 10;
+        int messageCount = 5;
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?jms.prefetchPolicy.all=" + prefetch + "&jms.prefetchPolicy.creditRefillThreshold=50");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount);
+
+            // Half the credit is used so the window should be opened back up to the full prefetch.
+            testPeer.expectLinkFlow(false, false, equalTo(UnsignedInteger.valueOf(prefetch)));
+
+            MessageConsumer consumer = session.createConsumer(queue);
+            for (int i = 1; i <= messageCount; i++) {
+                assertNotNull("Should have received message " + i, consumer.receive(3000));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testDupsOkAckDispositionsAreBatched() throws Exception {
+        int batchSize = 5;
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?amqp.ackBatchSize=" + batchSize + "&amqp.ackBatchDelay=60000");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.DUPS_OK_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), batchSize);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+            for (int i = 1; i < batchSize; i++) {
+                assertNotNull("Should have received message " + i, consumer.receive(3000));
+            }
+
+            // Nothing should have been settled until the batch is full.
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // Delivery ids from the test peer are 1-based.
+            for (int i = 1; i <= batchSize; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher(), i, i);
+            }
+
+            assertNotNull("Should have received last message", consumer.receive(3000));
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testAutoAckDispositionsAreNotBatched() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?amqp.ackBatchSize=5&amqp.ackBatchDelay=60000");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), 2);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+
+            // Each message is settled as it is consumed despite batching being configured.
+            testPeer.expectDisposition(true, new AcceptedMatcher(), 1, 1);
+            assertNotNull("Should have received message 1", consumer.receive(3000));
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectDisposition(true, new AcceptedMatcher(), 2, 2);
+            assertNotNull("Should have received message 2", consumer.receive(3000));
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testBatchedAcksSettledAfterDelay() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?amqp.ackBatchSize=100&amqp.ackBatchDelay=10");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.DUPS_OK_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), 2);
+            testPeer.expectDisposition(true, new AcceptedMatcher(), 1, 1);
+            testPeer.expectDisposition(true, new AcceptedMatcher(), 2, 2);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+            assertNotNull("Should have received message 1", consumer.receive(3000));
+            assertNotNull("Should have received message 2", consumer.receive(3000));
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testReceiveMessagesWithProviderOnTransportEventLoop() throws Exception {
+        int messageCount = 5;
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.useTransportEventLoop=true");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount);
+            for (int i = 1; i <= messageCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher(), i, i);
+            }
+
+            MessageConsumer consumer = session.createConsumer(queue);
+            for (int i = 1; i <= messageCount; i++) {
+                assertNotNull("Should have received message " + i, consumer.receive(3000));
+            }
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectDetach(true, true, true);
+            consumer.close();
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
     @Test(timeout=20000)
     public void testMessageListenerCallsConnectionCloseThrowsIllegalStateException() throws Exception {
         final CountDownLatch latch = new CountDownLatch(1);
@@ -1431,6 +1603,99 @@ public class ConsumerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout=20000)
+    public void testClientAcknowledgeSettlesOnlyDeliveredMessages() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer);
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            int messageCount = 5;
+            int consumeCount = 3;
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), messageCount);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+            Message receivedMessage = null;
+
+            for (int i = 1; i <= consumeCount; i++) {
+                receivedMessage = consumer.receive(3000);
+                assertNotNull(receivedMessage);
+            }
+
+            // Only the messages delivered so far should be accepted, the rest remain prefetched.
+            // Delivery ids from the test peer are 1-based.
+            for (int i = 1; i <= consumeCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher(), i, i);
+            }
+
+            receivedMessage.acknowledge();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            for (int i = consumeCount + 1; i <= messageCount; i++) {
+                receivedMessage = consumer.receive(3000);
+                assertNotNull(receivedMessage);
+            }
+
+            for (int i = consumeCount + 1; i <= messageCount; i++) {
+                testPeer.expectDisposition(true, new AcceptedMatcher(), i, i);
+            }
+
+            receivedMessage.acknowledge();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testDeliveredAckStillReachesProviderWithoutWaiting() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.prefetchPolicy.all=1");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"), 1);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+
+            // The delivered ack for the received message frees the link credit again, so the
+            // provider must still process it even though the receive does not wait for it.
+            testPeer.expectLinkFlow(false, false, equalTo(UnsignedInteger.ONE));
+
+            Message receivedMessage = consumer.receive(3000);
+            assertNotNull(receivedMessage);
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectDisposition(true, new AcceptedMatcher(), 1, 1);
+
+            receivedMessage.acknowledge();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
+
     @Test(timeout=20000)
     public void testConsumerWithDeferredCloseActsAsClosed() throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
@@ -1606,4 +1871,37 @@ public class ConsumerIntegrationTest extends QpidJmsTestCase {
             testPeer.waitForAllHandlersToComplete(3000);
         }
     }
+
+    @Test(timeout=20000)
+    public void testMessagesDecodedOffConnectionThreadArriveInOrder() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.decodeThreads=4");
+            connection.start();
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+            Queue queue = session.createQueue(getTestName());
+
+            int messageCount = 50;
+            testPeer.expectReceiverAttach();
+            testPeer.expectLinkFlowRespondWithTransfer(null, null, null, null, new AmqpValueDescribedType("content"),
+                    messageCount, false, false, Matchers.greaterThanOrEqualTo(UnsignedInteger.valueOf(messageCount)), 1, true);
+
+            MessageConsumer consumer = session.createConsumer(queue);
+
+            for (int i = 0; i < messageCount; i++) {
+                Message receivedMessage = consumer.receive(3000);
+
+                assertNotNull("Message " + i + " was not received", receivedMessage);
+                assertTrue(receivedMessage instanceof TextMessage);
+                assertEquals("Received Message Out Of Order", i, receivedMessage.getIntProperty(TestAmqpPeer.MESSAGE_NUMBER));
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(3000);
+        }
+    }
 }
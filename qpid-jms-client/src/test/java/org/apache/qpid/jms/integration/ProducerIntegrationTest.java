@@ -28,6 +28,7 @@ import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
@@ -35,10 +36,12 @@ import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
@@ -63,8 +66,10 @@ import javax.jms.Topic;
 import org.apache.qpid.jms.JmsConnection;
 import org.apache.qpid.jms.JmsConnectionFactory;
 import org.apache.qpid.jms.JmsDefaultConnectionListener;
+import org.apache.qpid.jms.JmsMessageProducer;
 import org.apache.qpid.jms.JmsOperationTimedOutException;
 import org.apache.qpid.jms.JmsSendTimedOutException;
+import org.apache.qpid.jms.JmsSendWindow;
 import org.apache.qpid.jms.message.foreign.ForeignJmsMessage;
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageIdHelper;
 import org.apache.qpid.jms.provider.amqp.message.AmqpMessageSupport;
@@ -2677,6 +2682,360 @@ public class ProducerIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testAnonymousFallbackProducerCachesLinkAndKeepsSendsAsync() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+
+            // DO NOT add capability to indicate server support for ANONYMOUS-RELAY
+
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.forceAsyncSend=true&amqp.anonymousFallbackCacheSize=10");
+            connection.start();
+
+            testPeer.expectBegin();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            String topicName = "myTopic";
+            Topic dest = session.createTopic(topicName);
+
+            MessageProducer producer = session.createProducer(null);
+
+            // Expect a single link to be attached for the destination with every send
+            // written over it and the link left open until the producer is closed.
+            TargetMatcher targetMatcher = new TargetMatcher();
+            targetMatcher.withAddress(equalTo(topicName));
+
+            testPeer.expectSenderAttach(targetMatcher, false, false);
+            for (int i = 0; i < 3; ++i) {
+                testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+            }
+
+            for (int i = 0; i < 3; ++i) {
+                producer.send(dest, session.createMessage());
+            }
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectDetach(true, true, true);
+            producer.close();
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAnonymousFallbackProducerClosesIdleCachedLink() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+
+            // DO NOT add capability to indicate server support for ANONYMOUS-RELAY
+
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?amqp.anonymousFallbackCacheSize=10&amqp.anonymousFallbackCacheTimeout=100");
+            connection.start();
+
+            testPeer.expectBegin();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            String topicName = "myTopic";
+            Topic dest = session.createTopic(topicName);
+
+            MessageProducer producer = session.createProducer(null);
+
+            TargetMatcher targetMatcher = new TargetMatcher();
+            targetMatcher.withAddress(equalTo(topicName));
+
+            testPeer.expectSenderAttach(targetMatcher, false, false);
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+            testPeer.expectDetach(true, true, true);
+
+            producer.send(dest, session.createMessage());
+
+            // The link should be closed once it has gone unused for the idle timeout.
+            testPeer.waitForAllHandlersToComplete(2000);
+
+            // A further send attaches a new link.
+            testPeer.expectSenderAttach(targetMatcher, false, false);
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+
+            producer.send(dest, session.createMessage());
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAnonymousFallbackProducerKeepsIdleCachedLinkWithUnsettledSends() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+
+            // DO NOT add capability to indicate server support for ANONYMOUS-RELAY
+
+            Connection connection = testFixture.establishConnecton(testPeer,
+                "?jms.forceAsyncSend=true&amqp.anonymousFallbackCacheSize=10&amqp.anonymousFallbackCacheTimeout=50");
+            connection.start();
+
+            testPeer.expectBegin();
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            String topicName = "myTopic";
+            Topic dest = session.createTopic(topicName);
+
+            MessageProducer producer = session.createProducer(null);
+
+            TargetMatcher targetMatcher = new TargetMatcher();
+            targetMatcher.withAddress(equalTo(topicName));
+
+            testPeer.expectSenderAttach(targetMatcher, false, false);
+            testPeer.expectTransferButDoNotRespond(new TransferPayloadCompositeMatcher());
+
+            producer.send(dest, session.createMessage());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            // Let several idle sweeps pass, the link must stay cached while its send is
+            // still awaiting settlement so a further send goes over it without a new attach.
+            Thread.sleep(300);
+
+            testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+
+            producer.send(dest, session.createMessage());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncSendMessageCanBeReusedBeforeSettlement() throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.forceAsyncSend=true");
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+
+            MessageProducer producer = session.createProducer(queue);
+
+            // The first transfer is left unsettled so that the message is reused while
+            // its earlier send is still in flight.
+            testPeer.expectTransferButDoNotRespond(createTextTransferMatcher("first"));
+            testPeer.expectTransfer(createTextTransferMatcher("second"));
+
+            // The message is writable as soon as the asynchronous send returns and changing
+            // it must not affect what was already sent.
+            TextMessage message = session.createTextMessage("first");
+            producer.send(message);
+            String firstMessageId = message.getJMSMessageID();
+
+            message.setText("second");
+            producer.send(message);
+
+            assertFalse(firstMessageId.equals(message.getJMSMessageID()));
+            assertEquals("second", message.getText());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    private TransferPayloadCompositeMatcher createTextTransferMatcher(String text) {
+        TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+        messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+        messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+        messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+        messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher(text));
+        return messageMatcher;
+    }
+
+    @Test(timeout = 20000)
+    public void testSendBatchOfMessages() throws Exception {
+        doSendBatchOfMessagesTestImpl(false);
+    }
+
+    @Test(timeout = 20000)
+    public void testSendBatchOfMessagesAsync() throws Exception {
+        doSendBatchOfMessagesTestImpl(true);
+    }
+
+    private void doSendBatchOfMessagesTestImpl(boolean async) throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?jms.forceAsyncSend=" + async);
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+
+            final int MSG_COUNT = 5;
+            List<Message> messages = new ArrayList<Message>();
+            for (int i = 0; i < MSG_COUNT; ++i) {
+                String text = "message-" + i;
+                TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+                messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+                messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+                messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+                messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher(text));
+                testPeer.expectTransfer(messageMatcher);
+
+                messages.add(session.createTextMessage(text));
+            }
+
+            producer.send(messages);
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            for (Message message : messages) {
+                assertNotNull(message.getJMSMessageID());
+                assertEquals(queue, message.getJMSDestination());
+            }
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncSendsReleaseSendWindowOnSettlement() throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            JmsConnection connection = (JmsConnection) testFixture.establishConnecton(testPeer,
+                "?jms.forceAsyncSend=true&jms.producerMaxInFlightMessages=1&jms.maxInFlightBytes=1048576");
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+
+            final JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+            final JmsSendWindow sendWindow = producer.getSendWindow();
+            assertNotNull(sendWindow);
+            assertEquals(1, sendWindow.getMaxInFlightMessages());
+            assertEquals(1048576, connection.getSendWindow().getMaxInFlightBytes());
+
+            // Each send must wait for the previous one to be settled before it can go.
+            for (int i = 0; i < 5; ++i) {
+                testPeer.expectTransfer(new TransferPayloadCompositeMatcher());
+                producer.send(session.createTextMessage("text"));
+            }
+
+            assertTrue("Send window was not emptied", Wait.waitFor(new Wait.Condition() {
+
+                @Override
+                public boolean isSatisified() throws Exception {
+                    return sendWindow.getInFlightMessages() == 0 && connection.getSendWindow().getInFlightBytes() == 0;
+                }
+            }, 5000, 10));
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncSendFailsFastWhenSendWindowIsFull() throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            JmsConnection connection = (JmsConnection) testFixture.establishConnecton(testPeer,
+                "?jms.forceAsyncSend=true&jms.producerMaxInFlightMessages=1&jms.sendWindowFailFast=true");
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+            testPeer.expectTransferButDoNotRespond(new TransferPayloadCompositeMatcher());
+
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+            producer.send(session.createTextMessage("text"));
+
+            assertEquals(1, producer.getSendWindow().getInFlightMessages());
+
+            try {
+                producer.send(session.createTextMessage("text"));
+                fail("Send should fail when the send window is full.");
+            } catch (ResourceAllocationException jmsEx) {
+                LOG.info("Caught expected error: {}", jmsEx.getMessage());
+            }
+
+            assertEquals(1, producer.getSendWindow().getRejectedSendCount());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testAsyncBatchSendThatDoesNotFitSendWindowSendsNothing() throws Exception {
+        try(TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            JmsConnection connection = (JmsConnection) testFixture.establishConnecton(testPeer,
+                "?jms.forceAsyncSend=true&jms.producerMaxInFlightMessages=2&jms.sendWindowFailFast=true");
+
+            testPeer.expectBegin();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+            testPeer.expectTransferButDoNotRespond(new TransferPayloadCompositeMatcher());
+
+            JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(queue);
+            producer.send(session.createTextMessage("text"));
+
+            assertEquals(1, producer.getSendWindow().getInFlightMessages());
+
+            // Only one of the two messages fits in the window, neither may be sent.
+            List<Message> messages = new ArrayList<Message>();
+            messages.add(session.createTextMessage("batch-1"));
+            messages.add(session.createTextMessage("batch-2"));
+
+            try {
+                producer.send(messages);
+                fail("Batch send should fail when the send window cannot hold all of it.");
+            } catch (ResourceAllocationException jmsEx) {
+                LOG.info("Caught expected error: {}", jmsEx.getMessage());
+            }
+
+            assertEquals(1, producer.getSendWindow().getInFlightMessages());
+
+            testPeer.waitForAllHandlersToComplete(1000);
+
+            testPeer.expectClose();
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     private class TestJmsCompletionListener implements CompletionListener {
 
         private final CountDownLatch completed;
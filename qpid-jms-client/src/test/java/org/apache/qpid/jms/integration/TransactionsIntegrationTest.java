@@ -596,6 +596,68 @@ public class TransactionsIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout=20000)
+    public void testCommitDeclaresNextTransactionAheadOfBegin() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
+            Connection connection = testFixture.establishConnecton(testPeer, "?amqp.declareAhead=true");
+            connection.start();
+
+            testPeer.expectBegin();
+            testPeer.expectCoordinatorAttach();
+
+            Binary txnId1 = new Binary(new byte[]{ (byte) 5, (byte) 6, (byte) 7, (byte) 8});
+            Binary txnId2 = new Binary(new byte[]{ (byte) 1, (byte) 2, (byte) 3, (byte) 4});
+            testPeer.expectDeclare(txnId1);
+
+            Session session = connection.createSession(true, Session.SESSION_TRANSACTED);
+            Queue queue = session.createQueue("myQueue");
+
+            testPeer.expectSenderAttach();
+            MessageProducer producer = session.createProducer(queue);
+
+            TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+            messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true));
+            messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+
+            TransactionalStateMatcher stateMatcher = new TransactionalStateMatcher();
+            stateMatcher.withTxnId(equalTo(txnId1));
+            stateMatcher.withOutcome(nullValue());
+
+            TransactionalState txState = new TransactionalState();
+            txState.setTxnId(txnId1);
+            txState.setOutcome(new Accepted());
+
+            testPeer.expectTransfer(messageMatcher, stateMatcher, false, txState, true);
+
+            producer.send(session.createMessage());
+
+            // The declare of the next transaction follows the discharge without waiting
+            // for its outcome, the next send must then carry the new transaction ID.
+            testPeer.expectDischarge(txnId1, false);
+            testPeer.expectDeclare(txnId2);
+
+            session.commit();
+
+            stateMatcher = new TransactionalStateMatcher();
+            stateMatcher.withTxnId(equalTo(txnId2));
+            stateMatcher.withOutcome(nullValue());
+
+            txState = new TransactionalState();
+            txState.setTxnId(txnId2);
+            txState.setOutcome(new Accepted());
+
+            testPeer.expectTransfer(messageMatcher, stateMatcher, false, txState, true);
+            testPeer.expectDischarge(txnId2, true);
+            testPeer.expectClose();
+
+            producer.send(session.createMessage());
+
+            connection.close();
+
+            testPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout=20000)
     public void testProducedMessagesOnTransactedSessionCanBeReused() throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer();) {
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.message;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.qpid.jms.provider.amqp.message.AmqpMessageIdHelper;
+import org.apache.qpid.proton.amqp.Binary;
+import org.apache.qpid.proton.amqp.UnsignedLong;
+import org.junit.Test;
+
+public class JmsMessageIDBuilderTest {
+
+    private static final String PRODUCER_1 = "ID:host-1234-1:1:1:1";
+    private static final String PRODUCER_2 = "ID:host-1234-1:1:1:2";
+    private static final String OTHER_CONNECTION_PRODUCER_1 = "ID:host-5678-1:1:1:1";
+
+    @Test
+    public void testCreateCompactBuilders() {
+        assertEquals("ULONG", JmsMessageIDBuilder.BUILTIN.create("ulong").toString());
+        assertEquals("BINARY", JmsMessageIDBuilder.BUILTIN.create("Binary").toString());
+    }
+
+    @Test
+    public void testUlongMessageIdFollowsSequence() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.ULONG.createBuilder();
+
+        Object first = builder.createMessageID(PRODUCER_1, 1);
+        Object second = builder.createMessageID(PRODUCER_1, 2);
+
+        assertTrue(first instanceof UnsignedLong);
+        assertEquals(((UnsignedLong) first).longValue() + 1, ((UnsignedLong) second).longValue());
+
+        String jmsMessageId = AmqpMessageIdHelper.INSTANCE.toMessageIdString(first);
+        assertTrue(jmsMessageId.startsWith(AmqpMessageIdHelper.JMS_ID_PREFIX + AmqpMessageIdHelper.AMQP_ULONG_PREFIX));
+    }
+
+    @Test
+    public void testBinaryMessageIdContainsProducerAndSequence() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder();
+
+        Object messageId = builder.createMessageID(PRODUCER_1, 42);
+        assertTrue(messageId instanceof Binary);
+
+        byte[] connectionId = "ID:host-1234-1:1".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ((Binary) messageId).asByteBuffer();
+        assertEquals(connectionId.length + 24, buffer.remaining());
+
+        byte[] encodedConnectionId = new byte[connectionId.length];
+        buffer.get(encodedConnectionId);
+        assertArrayEquals(connectionId, encodedConnectionId);
+        assertEquals(1, buffer.getLong());
+        assertEquals(1, buffer.getLong());
+        assertEquals(42, buffer.getLong());
+    }
+
+    @Test
+    public void testBinaryMessageIdsOfAdjacentProducersDoNotOverlap() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder();
+
+        // Producers with adjacent numbers on the same connection and producers with the
+        // same numbers on other connections must never share an ID for any sequence.
+        String[] producers = { PRODUCER_1, PRODUCER_2, OTHER_CONNECTION_PRODUCER_1, "ID:host-1234-1:1:2:1" };
+
+        Set<Object> messageIds = new HashSet<>();
+        for (long sequence = 0; sequence < 16; ++sequence) {
+            for (String producer : producers) {
+                assertTrue(messageIds.add(builder.createMessageID(producer, sequence)));
+            }
+        }
+    }
+
+    @Test
+    public void testBinaryMessageIdOfUnstructuredProducerId() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder();
+
+        Object id1 = builder.createMessageID("producer", 1);
+        Object id2 = builder.createMessageID("producer:a", 1);
+
+        ByteBuffer buffer = ((Binary) id1).asByteBuffer();
+        assertEquals("producer".length() + 8, buffer.remaining());
+        assertFalse(id1.equals(id2));
+    }
+
+    @Test
+    public void testSharedBuilderUsesPrefixOfEachProducer() {
+        JmsMessageIDBuilder builder = JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder();
+
+        Object id1 = builder.createMessageID(PRODUCER_1, 1);
+        Object id2 = builder.createMessageID(PRODUCER_2, 1);
+        Object id3 = builder.createMessageID(PRODUCER_1, 1);
+
+        assertFalse(id1.equals(id2));
+        assertEquals(id1, id3);
+    }
+
+    @Test
+    public void testInterleavedProducersComputeTheirPrefixOnce() {
+        CountingBinaryBuilder builder1 = new CountingBinaryBuilder();
+        CountingBinaryBuilder builder2 = new CountingBinaryBuilder();
+
+        // Each producer has a builder of its own, as the default policy gives it one, so
+        // sends that alternate between producers keep the prefix of each cached.
+        for (long sequence = 1; sequence <= 8; ++sequence) {
+            Binary id1 = (Binary) builder1.createMessageID(PRODUCER_1, sequence);
+            Binary id2 = (Binary) builder2.createMessageID(PRODUCER_2, sequence);
+
+            assertEquals(JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder().createMessageID(PRODUCER_1, sequence), id1);
+            assertEquals(JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder().createMessageID(PRODUCER_2, sequence), id2);
+        }
+
+        assertEquals(1, builder1.prefixesCreated);
+        assertEquals(1, builder2.prefixesCreated);
+    }
+
+    private static final class CountingBinaryBuilder extends JmsCompactMessageIDBuilder<byte[]> {
+
+        private int prefixesCreated;
+
+        @Override
+        protected byte[] createPrefix(String producerId) {
+            prefixesCreated++;
+            return encodeProducerId(producerId);
+        }
+
+        @Override
+        protected Object createMessageID(byte[] prefix, long messageSequence) {
+            byte[] messageId = new byte[prefix.length + 8];
+            System.arraycopy(prefix, 0, messageId, 0, prefix.length);
+            writeLong(messageSequence, messageId, prefix.length);
+            return new Binary(messageId);
+        }
+    }
+}
@@ -20,6 +20,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.apache.qpid.jms.JmsTopic;
@@ -28,6 +29,9 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
 public class JmsOutboundMessageDispatchTest {
 
     private JmsOutboundMessageDispatch envelope;
@@ -58,6 +62,41 @@ public class JmsOutboundMessageDispatchTest {
         assertNotNull(envelope.getDispatchId());
     }
 
+    @Test
+    public void testCapturedMessageIdIsUsed() {
+        JmsMessage message = Mockito.mock(JmsMessage.class);
+        envelope.setMessage(message);
+        envelope.setMessageId("ID:captured");
+        envelope.setMessageDetached(true);
+
+        assertEquals("ID:captured", envelope.getMessageId());
+        assertTrue(envelope.isMessageDetached());
+        assertTrue(envelope.toString().contains("ID:captured"));
+        Mockito.verifyZeroInteractions(message);
+    }
+
+    @Test
+    public void testReleasePayloadReleasesOnlyOnce() {
+        ByteBuf payload = Unpooled.buffer(16);
+        envelope.setPayload(payload);
+
+        envelope.releasePayload();
+        envelope.releasePayload();
+
+        assertEquals(0, payload.refCnt());
+        assertNull(envelope.getPayload());
+    }
+
+    @Test
+    public void testReleasePayloadIgnoresPayloadThatIsNotReferenceCounted() {
+        byte[] payload = new byte[16];
+        envelope.setPayload(payload);
+
+        envelope.releasePayload();
+
+        assertSame(payload, envelope.getPayload());
+    }
+
     @Test
     public void testToString() {
         envelope.setDispatchId(42);
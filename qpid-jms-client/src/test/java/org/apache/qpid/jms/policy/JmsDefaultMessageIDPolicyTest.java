@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.policy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.apache.qpid.jms.JmsDestination;
+import org.apache.qpid.jms.JmsQueue;
+import org.apache.qpid.jms.message.JmsMessageIDBuilder;
+import org.junit.Test;
+
+/**
+ * Test basic behavior of the JmsDefaultMessageIDPolicy
+ */
+public class JmsDefaultMessageIDPolicyTest {
+
+    private static final String PRODUCER_1 = "ID:host-1234-1:1:1:1";
+    private static final String PRODUCER_2 = "ID:host-1234-1:1:1:2";
+
+    @Test
+    public void testBuiltinTypeGivesEachProducerItsOwnBuilder() {
+        JmsDestination destination = new JmsQueue("test");
+
+        JmsDefaultMessageIDPolicy policy = new JmsDefaultMessageIDPolicy();
+        policy.setMessageIDType("binary");
+        assertEquals("BINARY", policy.getMessageIDType());
+
+        JmsMessageIDBuilder builder1 = policy.getMessageIDBuilder(null, destination);
+        JmsMessageIDBuilder builder2 = policy.getMessageIDBuilder(null, destination);
+        assertNotSame(builder1, builder2);
+        assertEquals("BINARY", builder1.toString());
+
+        // Interleaved sends from the two producers each get the IDs of their own producer.
+        for (long sequence = 1; sequence <= 4; ++sequence) {
+            Object id1 = builder1.createMessageID(PRODUCER_1, sequence);
+            Object id2 = builder2.createMessageID(PRODUCER_2, sequence);
+
+            assertFalse(id1.equals(id2));
+            assertEquals(JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder().createMessageID(PRODUCER_1, sequence), id1);
+            assertEquals(JmsMessageIDBuilder.BUILTIN.BINARY.createBuilder().createMessageID(PRODUCER_2, sequence), id2);
+        }
+    }
+
+    @Test
+    public void testCopyKeepsBuiltinType() {
+        JmsDefaultMessageIDPolicy policy = new JmsDefaultMessageIDPolicy();
+        policy.setMessageIDType("ULONG");
+
+        JmsDefaultMessageIDPolicy copy = policy.copy();
+        assertEquals("ULONG", copy.getMessageIDType());
+        assertNotSame(copy.getMessageIDBuilder(null, null), copy.getMessageIDBuilder(null, null));
+    }
+
+    @Test
+    public void testCustomBuilderIsShared() {
+        JmsMessageIDBuilder custom = new JmsMessageIDBuilder() {
+
+            @Override
+            public Object createMessageID(String producerId, long messageSequence) {
+                return producerId + "-" + messageSequence;
+            }
+        };
+
+        JmsDefaultMessageIDPolicy policy = new JmsDefaultMessageIDPolicy();
+        policy.setMessageIDType("BINARY");
+        policy.setMessageIDBuilder(custom);
+
+        assertSame(custom, policy.getMessageIDBuilder(null, null));
+        assertSame(custom, policy.getMessageIDBuilder(null, null));
+    }
+}
@@ -58,6 +58,8 @@ public class JmsDefaultPrefetchPolicyTest {
         policy1.setQueueBrowserPrefetch(30);
         policy1.setQueuePrefetch(40);
         policy1.setMaxPrefetchSize(100);
+        policy1.setRingMessageQueue(true);
+        policy1.setCreditRefillThreshold(50);
 
         JmsDefaultPrefetchPolicy policy2 = new JmsDefaultPrefetchPolicy(policy1);
 
@@ -66,6 +68,8 @@ public class JmsDefaultPrefetchPolicyTest {
         assertEquals(policy1.getQueuePrefetch(), policy2.getQueuePrefetch());
         assertEquals(policy1.getQueueBrowserPrefetch(), policy2.getQueueBrowserPrefetch());
         assertEquals(policy1.getMaxPrefetchSize(), policy2.getMaxPrefetchSize());
+        assertEquals(policy1.isRingMessageQueue(), policy2.isRingMessageQueue());
+        assertEquals(policy1.getCreditRefillThreshold(), policy2.getCreditRefillThreshold());
     }
 
     @Test
@@ -94,6 +98,21 @@ public class JmsDefaultPrefetchPolicyTest {
         assertEquals(42, policy.getQueueBrowserPrefetch());
     }
 
+    @Test
+    public void testCreditRefillThreshold() {
+        JmsDefaultPrefetchPolicy policy = new JmsDefaultPrefetchPolicy();
+        assertEquals(JmsDefaultPrefetchPolicy.DEFAULT_CREDIT_REFILL_THRESHOLD, policy.getCreditRefillThreshold());
+        policy.setCreditRefillThreshold(75);
+        assertEquals(75, policy.getCreditRefillThreshold());
+        assertEquals(75, policy.getCreditRefillThreshold(null, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreditRefillThresholdMustBePercentage() {
+        JmsDefaultPrefetchPolicy policy = new JmsDefaultPrefetchPolicy();
+        policy.setCreditRefillThreshold(101);
+    }
+
     @Test
     public void testSetAll() {
         JmsDefaultPrefetchPolicy policy = new JmsDefaultPrefetchPolicy();
@@ -127,11 +146,17 @@ public class JmsDefaultPrefetchPolicyTest {
         policy5.setDurableTopicPrefetch(10);
         JmsDefaultPrefetchPolicy policy6 = new JmsDefaultPrefetchPolicy();
         policy6.setQueueBrowserPrefetch(10);
+        JmsDefaultPrefetchPolicy policy7 = new JmsDefaultPrefetchPolicy();
+        policy7.setRingMessageQueue(true);
+        JmsDefaultPrefetchPolicy policy8 = new JmsDefaultPrefetchPolicy();
+        policy8.setCreditRefillThreshold(50);
 
         assertFalse(policy1.equals(policy3));
         assertFalse(policy1.equals(policy4));
         assertFalse(policy1.equals(policy5));
         assertFalse(policy1.equals(policy6));
+        assertFalse(policy1.equals(policy7));
+        assertFalse(policy1.equals(policy8));
 
         assertFalse(policy1.equals(null));
         assertFalse(policy1.equals(""));
@@ -808,6 +808,128 @@ public class JmsMessageProducerTest extends JmsConnectionTestSupport {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testSendBatchOfMessages() throws Exception {
+        JmsDestination destination = new JmsQueue("explicitDestination");
+        JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(destination);
+
+        List<Message> messages = new ArrayList<Message>();
+        for (int i = 0; i < 3; ++i) {
+            messages.add(session.createMessage());
+        }
+
+        producer.send(messages);
+
+        for (Message message : messages) {
+            assertEquals(destination, message.getJMSDestination());
+        }
+
+        JmsOutboundMessageDispatch envelope = remotePeer.getLastReceivedMessage();
+        assertEquals(messages.get(2).getJMSMessageID(), envelope.getMessage().getJMSMessageID());
+
+        try {
+            producer.send(destination, messages);
+            fail("Should not be able to send to a different destination");
+        } catch (UnsupportedOperationException ex) {
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSendBatchOfMessagesFromAnonymousProducer() throws Exception {
+        JmsDestination destination = new JmsQueue("explicitDestination");
+        JmsMessageProducer producer = (JmsMessageProducer) session.createProducer(null);
+
+        List<Message> messages = new ArrayList<Message>();
+        messages.add(session.createMessage());
+
+        try {
+            producer.send(messages);
+            fail("Should require a destination");
+        } catch (UnsupportedOperationException ex) {
+        }
+
+        try {
+            producer.send(null, messages);
+            fail("Should require a destination");
+        } catch (InvalidDestinationException ex) {
+        }
+
+        messages.add(null);
+        try {
+            producer.send(destination, messages);
+            fail("Should not accept a null message");
+        } catch (MessageFormatException ex) {
+        }
+
+        messages.remove(1);
+        producer.send(destination, messages);
+        assertEquals(destination, messages.get(0).getJMSDestination());
+    }
+
+    @Test(timeout = 20000)
+    public void testConcurrentSendsOnSharedSessionKeepPerThreadOrder() throws Exception {
+        final int THREADS = 4;
+        final int MESSAGES = 100;
+
+        final CountDownLatch done = new CountDownLatch(THREADS * MESSAGES);
+        final List<List<Integer>> received = new ArrayList<List<Integer>>();
+        final List<Exception> errors = Collections.synchronizedList(new ArrayList<Exception>());
+        final List<Thread> senders = new ArrayList<Thread>();
+
+        for (int t = 0; t < THREADS; ++t) {
+            final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+            final MessageProducer producer = session.createProducer(new JmsQueue("queue-" + t));
+            received.add(order);
+
+            senders.add(new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < MESSAGES; ++i) {
+                            Message message = session.createMessage();
+                            message.setIntProperty("sequence", i);
+                            producer.send(message, new CompletionListener() {
+
+                                @Override
+                                public void onCompletion(Message message) {
+                                    try {
+                                        order.add(message.getIntProperty("sequence"));
+                                    } catch (JMSException e) {
+                                        errors.add(e);
+                                    }
+                                    done.countDown();
+                                }
+
+                                @Override
+                                public void onException(Message message, Exception exception) {
+                                    errors.add(exception);
+                                    done.countDown();
+                                }
+                            });
+                        }
+                    } catch (Exception ex) {
+                        errors.add(ex);
+                    }
+                }
+            }));
+        }
+
+        for (Thread sender : senders) {
+            sender.start();
+        }
+
+        assertTrue("Not all sends completed", done.await(15, TimeUnit.SECONDS));
+        assertTrue("Unexpected errors: " + errors, errors.isEmpty());
+
+        for (List<Integer> order : received) {
+            assertEquals(MESSAGES, order.size());
+            for (int i = 0; i < MESSAGES; ++i) {
+                assertEquals(Integer.valueOf(i), order.get(i));
+            }
+        }
+    }
+
     private class MyCompletionListener implements CompletionListener {
 
         private final List<Message> completed = new ArrayList<Message>();
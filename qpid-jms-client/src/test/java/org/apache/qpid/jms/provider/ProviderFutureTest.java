@@ -16,23 +16,32 @@
  */
 package org.apache.qpid.jms.provider;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 public class ProviderFutureTest {
 
+    protected ProviderFuture createFuture(ProviderSynchronization synchronization) {
+        return new ProviderFuture(synchronization);
+    }
+
     @Test
     public void testIsComplete() {
-        ProviderFuture future = new ProviderFuture();
+        ProviderFuture future = createFuture(null);
 
         assertFalse(future.isComplete());
         future.onSuccess();
@@ -41,7 +50,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testOnSuccess() {
-        ProviderFuture future = new ProviderFuture();
+        ProviderFuture future = createFuture(null);
 
         future.onSuccess();
         try {
@@ -53,7 +62,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testOnFailure() {
-        ProviderFuture future = new ProviderFuture();
+        ProviderFuture future = createFuture(null);
         IOException ex = new IOException();
 
         future.onFailure(ex);
@@ -68,7 +77,7 @@ public class ProviderFutureTest {
     @Test(timeout = 10000)
     public void testOnSuccessCallsSynchronization() {
         final AtomicBoolean syncCalled = new AtomicBoolean(false);
-        ProviderFuture future = new ProviderFuture(new ProviderSynchronization() {
+        ProviderFuture future = createFuture(new ProviderSynchronization() {
 
             @Override
             public void onPendingSuccess() {
@@ -93,7 +102,7 @@ public class ProviderFutureTest {
     @Test(timeout = 10000)
     public void testOnFailureCallsSynchronization() {
         final AtomicBoolean syncCalled = new AtomicBoolean(false);
-        ProviderFuture future = new ProviderFuture(new ProviderSynchronization() {
+        ProviderFuture future = createFuture(new ProviderSynchronization() {
 
             @Override
             public void onPendingSuccess() {
@@ -120,7 +129,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testSuccessfulStateIsFixed() {
-        ProviderFuture future = new ProviderFuture();
+        ProviderFuture future = createFuture(null);
         IOException ex = new IOException();
 
         future.onSuccess();
@@ -134,7 +143,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testFailedStateIsFixed() {
-        ProviderFuture future = new ProviderFuture();
+        ProviderFuture future = createFuture(null);
         IOException ex = new IOException();
 
         future.onFailure(ex);
@@ -149,7 +158,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testSyncHandlesInterruption() throws InterruptedException {
-        final ProviderFuture future = new ProviderFuture();
+        final ProviderFuture future = createFuture(null);
 
         final CountDownLatch syncing = new CountDownLatch(1);
         final CountDownLatch done = new CountDownLatch(1);
@@ -182,7 +191,7 @@ public class ProviderFutureTest {
 
     @Test(timeout = 10000)
     public void testTimedSyncHandlesInterruption() throws InterruptedException {
-        final ProviderFuture future = new ProviderFuture();
+        final ProviderFuture future = createFuture(null);
 
         final CountDownLatch syncing = new CountDownLatch(1);
         final CountDownLatch done = new CountDownLatch(1);
@@ -212,4 +221,226 @@ public class ProviderFutureTest {
 
         assertTrue(interrupted.get());
     }
+
+    @Test(timeout = 10000)
+    public void testSyncReturnsWhenCompletedAfterSyncStarted() throws Exception {
+        final ProviderFuture future = createFuture(null);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    future.sync();
+                } catch (Throwable cause) {
+                    error.set(cause);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        runner.start();
+
+        // Give the runner time to get past any spinning and park.
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        future.onSuccess();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedSyncReturnsWhenCompletedAfterSyncStarted() throws Exception {
+        final ProviderFuture future = createFuture(null);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    future.sync(20, TimeUnit.SECONDS);
+                } catch (Throwable cause) {
+                    error.set(cause);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        runner.start();
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        future.onSuccess();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertNull(error.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailureAfterSyncStartedIsThrownToWaiter() throws Exception {
+        final ProviderFuture future = createFuture(null);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        final CountDownLatch done = new CountDownLatch(1);
+        final IOException ex = new IOException();
+
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    future.sync(20, TimeUnit.SECONDS);
+                } catch (Throwable cause) {
+                    error.set(cause);
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        runner.start();
+
+        assertFalse(done.await(100, TimeUnit.MILLISECONDS));
+
+        future.onFailure(ex);
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertSame(ex, error.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailureWithNonIOExceptionIsWrapped() {
+        ProviderFuture future = createFuture(null);
+        IllegalStateException ex = new IllegalStateException();
+
+        future.onFailure(ex);
+        try {
+            future.sync();
+            fail("Should throw an error");
+        } catch (IOException cause) {
+            assertSame(ex, cause.getCause());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedSyncExpiresWithoutCompleting() throws Exception {
+        ProviderFuture future = createFuture(null);
+
+        long start = System.nanoTime();
+        future.sync(100, TimeUnit.MILLISECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(future.isComplete());
+        assertTrue("Returned before the timeout: " + elapsed, elapsed >= 90);
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedSyncWithNoTimeDoesNotWait() throws Exception {
+        ProviderFuture future = createFuture(null);
+
+        future.sync(0, TimeUnit.MILLISECONDS);
+
+        assertFalse(future.isComplete());
+    }
+
+    @Test(timeout = 10000)
+    public void testSyncThrowsIfThreadAlreadyInterrupted() {
+        ProviderFuture future = createFuture(null);
+
+        Thread.currentThread().interrupt();
+        try {
+            future.sync();
+            fail("Should throw an error");
+        } catch (IOException cause) {
+            assertTrue(cause.getCause() instanceof InterruptedException);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCompletionRacesResolveToSingleOutcome() throws Exception {
+        final int COMPLETERS = 4;
+        final int WAITERS = 4;
+
+        for (int round = 0; round < 200; ++round) {
+            final AtomicInteger notifications = new AtomicInteger();
+            final ProviderFuture future = createFuture(new ProviderSynchronization() {
+
+                @Override
+                public void onPendingSuccess() {
+                    notifications.incrementAndGet();
+                }
+
+                @Override
+                public void onPendingFailure(Throwable cause) {
+                    notifications.incrementAndGet();
+                }
+            });
+
+            final CyclicBarrier start = new CyclicBarrier(COMPLETERS + WAITERS);
+            final CountDownLatch waitersDone = new CountDownLatch(WAITERS);
+            final AtomicInteger waiterFailures = new AtomicInteger();
+            final AtomicInteger waiterSuccesses = new AtomicInteger();
+            final IOException ex = new IOException();
+
+            Thread[] threads = new Thread[COMPLETERS + WAITERS];
+            for (int i = 0; i < COMPLETERS; ++i) {
+                final boolean succeed = i % 2 == 0;
+                threads[i] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                        } catch (Exception e) {
+                            return;
+                        }
+
+                        if (succeed) {
+                            future.onSuccess();
+                        } else {
+                            future.onFailure(ex);
+                        }
+                    }
+                });
+            }
+
+            for (int i = COMPLETERS; i < threads.length; ++i) {
+                threads[i] = new Thread(new Runnable() {
+
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            future.sync(5, TimeUnit.SECONDS);
+                            waiterSuccesses.incrementAndGet();
+                        } catch (IOException cause) {
+                            waiterFailures.incrementAndGet();
+                        } catch (Exception e) {
+                        } finally {
+                            waitersDone.countDown();
+                        }
+                    }
+                });
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            assertTrue("Waiters did not all return", waitersDone.await(5, TimeUnit.SECONDS));
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(future.isComplete());
+            assertEquals("Synchronization should be notified once", 1, notifications.get());
+            assertTrue("All waiters should see the same outcome",
+                waiterSuccesses.get() == WAITERS || waiterFailures.get() == WAITERS);
+        }
+    }
 }
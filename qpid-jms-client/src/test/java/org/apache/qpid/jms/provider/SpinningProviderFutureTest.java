@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+/**
+ * Runs the ProviderFuture tests against the spinning implementation, plus checks that are
+ * specific to its spin and yield phases.
+ */
+public class SpinningProviderFutureTest extends ProviderFutureTest {
+
+    @Override
+    protected ProviderFuture createFuture(ProviderSynchronization synchronization) {
+        return new SpinningProviderFuture(synchronization, 128, 16);
+    }
+
+    @Test
+    public void testFactoryCreatesConfiguredFutures() {
+        assertFalse(ProviderFutureFactory.CONSERVATIVE.createFuture(null) instanceof SpinningProviderFuture);
+
+        SpinningProviderFuture balanced = (SpinningProviderFuture) ProviderFutureFactory.BALANCED.createFuture(null);
+        assertEquals(128, balanced.getSpinIterations());
+        assertEquals(16, balanced.getYieldIterations());
+
+        SpinningProviderFuture aggressive = (SpinningProviderFuture) ProviderFutureFactory.AGGRESSIVE.createFuture(null);
+        assertEquals(65536, aggressive.getSpinIterations());
+        assertEquals(1024, aggressive.getYieldIterations());
+
+        assertEquals(ProviderFutureFactory.BALANCED, ProviderFutureFactory.create("balanced"));
+    }
+
+    @Test(timeout = 10000)
+    public void testTimedSyncExpiresDuringYieldPhase() throws Exception {
+        ProviderFuture future = new SpinningProviderFuture(null, 0, Integer.MAX_VALUE);
+
+        long start = System.nanoTime();
+        future.sync(100, TimeUnit.MILLISECONDS);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertFalse(future.isComplete());
+        assertTrue("Returned before the timeout: " + elapsed, elapsed >= 90);
+    }
+
+    @Test(timeout = 10000)
+    public void testInterruptDuringYieldPhase() throws Exception {
+        final ProviderFuture future = new SpinningProviderFuture(null, 0, Integer.MAX_VALUE);
+
+        final CountDownLatch syncing = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean(false);
+
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    syncing.countDown();
+                    future.sync();
+                } catch (IOException cause) {
+                    if (cause.getCause() instanceof InterruptedException) {
+                        interrupted.set(true);
+                    }
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        runner.start();
+        assertTrue(syncing.await(5, TimeUnit.SECONDS));
+        runner.interrupt();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+
+        assertTrue(interrupted.get());
+    }
+
+    @Test(timeout = 10000)
+    public void testCompletionSeenWhileYielding() throws Exception {
+        final ProviderFuture future = new SpinningProviderFuture(null, 0, Integer.MAX_VALUE);
+        final CountDownLatch done = new CountDownLatch(1);
+
+        Thread runner = new Thread(new Runnable() {
+
+            @Override
+            public void run() {
+                try {
+                    future.sync();
+                } catch (IOException cause) {
+                } finally {
+                    done.countDown();
+                }
+            }
+        });
+        runner.start();
+
+        assertFalse(done.await(50, TimeUnit.MILLISECONDS));
+        future.onSuccess();
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+    }
+}
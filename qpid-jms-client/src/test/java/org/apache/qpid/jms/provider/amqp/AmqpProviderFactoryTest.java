@@ -116,7 +116,14 @@ public class AmqpProviderFactoryTest extends QpidJmsTestCase {
         URI configuredURI = new URI(peerURI.toString() +
             "?amqp.traceFrames=true" +
             "&amqp.traceBytes=true" +
-            "&amqp.channelMax=32");
+            "&amqp.channelMax=32" +
+            "&amqp.coalesceWrites=true" +
+            "&amqp.pooledEncodeBuffers=true" +
+            "&amqp.lazyMessageDecoding=true" +
+            "&amqp.decodeThreads=2" +
+            "&amqp.ackBatchSize=16" +
+            "&amqp.ackBatchDelay=50" +
+            "&amqp.useTransportEventLoop=true");
         Provider provider = AmqpProviderFactory.create(configuredURI);
         assertNotNull(provider);
         assertTrue(provider instanceof AmqpProvider);
@@ -126,5 +133,12 @@ public class AmqpProviderFactoryTest extends QpidJmsTestCase {
         assertEquals(true, amqpProvider.isTraceBytes());
         assertEquals(true, amqpProvider.isTraceFrames());
         assertEquals(32, amqpProvider.getChannelMax());
+        assertEquals(true, amqpProvider.isCoalesceWrites());
+        assertEquals(true, amqpProvider.isPooledEncodeBuffers());
+        assertEquals(true, amqpProvider.isLazyMessageDecoding());
+        assertEquals(2, amqpProvider.getDecodeThreads());
+        assertEquals(16, amqpProvider.getAckBatchSize());
+        assertEquals(50, amqpProvider.getAckBatchDelay());
+        assertEquals(true, amqpProvider.isUseTransportEventLoop());
     }
 }
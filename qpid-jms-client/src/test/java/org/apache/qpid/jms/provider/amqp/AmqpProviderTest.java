@@ -24,11 +24,17 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import javax.net.ssl.SSLContext;
+
 import org.apache.qpid.jms.meta.JmsAbstractResource;
 import org.apache.qpid.jms.meta.JmsAbstractResourceId;
 import org.apache.qpid.jms.meta.JmsConnectionId;
@@ -40,12 +46,17 @@ import org.apache.qpid.jms.provider.DefaultProviderListener;
 import org.apache.qpid.jms.provider.ProviderFuture;
 import org.apache.qpid.jms.test.QpidJmsTestCase;
 import org.apache.qpid.jms.test.testpeer.TestAmqpPeer;
+import org.apache.qpid.jms.transports.TransportListener;
+import org.apache.qpid.jms.transports.TransportOptions;
+import org.apache.qpid.jms.transports.netty.NettyTcpTransport;
 import org.apache.qpid.jms.util.IdGenerator;
 import org.apache.qpid.proton.engine.impl.TransportImpl;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import io.netty.buffer.ByteBuf;
+
 /**
  * Test some basic functionality of the AmqpProvider
  */
@@ -156,6 +167,70 @@ public class AmqpProviderTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout=20000)
+    public void testCloseAfterFailedConnectOnTransportEventLoop() throws Exception {
+        try (TestAmqpPeer testPeer = new TestAmqpPeer()) {
+            URI peerURI = getPeerURI(testPeer);
+            testPeer.close();
+
+            provider = new AmqpProviderFactory().createProvider(peerURI);
+            provider.setUseTransportEventLoop(true);
+            try {
+                provider.connect(connectionInfo);
+                fail("Should have failed to connect.");
+            } catch (Exception ex) {
+            }
+
+            provider.close();
+            provider = null;
+        }
+    }
+
+    @Test(timeout=20000)
+    public void testDataReadDuringConnectIsProcessedOnTransportEventLoop() throws Exception {
+        // A peer that writes its SASL header as soon as it accepts.
+        try (final ServerSocket server = new ServerSocket(0)) {
+            Thread acceptor = new Thread(new Runnable() {
+
+                @Override
+                public void run() {
+                    try {
+                        Socket socket = server.accept();
+                        socket.getOutputStream().write(new byte[] { 'A', 'M', 'Q', 'P', 3, 1, 0, 0 });
+                        socket.getOutputStream().flush();
+                    } catch (IOException e) {
+                    }
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+
+            URI peerURI = new URI("tcp://localhost:" + server.getLocalPort());
+            DataBeforeConnectReturnsTransport transport = new DataBeforeConnectReturnsTransport(peerURI);
+
+            provider = new AmqpProvider(peerURI, transport);
+            provider.setUseTransportEventLoop(true);
+
+            ThreadPoolExecutor executor = (ThreadPoolExecutor) provider.getScheduler();
+
+            connectionInfo.setConnectTimeout(100);
+            connectionInfo.setCloseTimeout(100);
+            try {
+                provider.connect(connectionInfo);
+            } catch (Exception ex) {
+                // The peer never completes SASL, only where its data was handled matters.
+            }
+
+            assertTrue("Peer data was not read before connect returned", transport.dataRead);
+            assertTrue(provider.getScheduler() instanceof AmqpEventLoopScheduler);
+
+            // The data read while connecting must not have been queued on the provider's
+            // own executor to race with the work that follows on the event loop.
+            assertTrue(executor.isTerminated());
+            assertEquals(0, executor.getTaskCount());
+        }
+    }
+
     @Test(timeout=20000)
     public void testDisableSaslLayer() throws Exception {
         try (TestAmqpPeer testPeer = new TestAmqpPeer()) {
@@ -470,4 +545,50 @@ public class AmqpProviderTest extends QpidJmsTestCase {
     private URI getPeerURI(TestAmqpPeer peer) throws URISyntaxException {
         return new URI("amqp://localhost:" + peer.getServerPort());
     }
+
+    /**
+     * Holds back the return from connect until the event loop has read data from the peer.
+     */
+    private static class DataBeforeConnectReturnsTransport extends NettyTcpTransport {
+
+        private final CountDownLatch dataReadLatch = new CountDownLatch(1);
+        private volatile boolean dataRead;
+
+        public DataBeforeConnectReturnsTransport(URI remoteLocation) {
+            super(remoteLocation, new TransportOptions());
+        }
+
+        @Override
+        public void setTransportListener(final TransportListener listener) {
+            super.setTransportListener(new TransportListener() {
+
+                @Override
+                public void onData(ByteBuf incoming) {
+                    listener.onData(incoming);
+                    dataRead = true;
+                    dataReadLatch.countDown();
+                }
+
+                @Override
+                public void onTransportClosed() {
+                    listener.onTransportClosed();
+                }
+
+                @Override
+                public void onTransportError(Throwable cause) {
+                    listener.onTransportError(cause);
+                }
+            });
+        }
+
+        @Override
+        public void connect(SSLContext sslContextOverride) throws IOException {
+            super.connect(sslContextOverride);
+            try {
+                dataReadLatch.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
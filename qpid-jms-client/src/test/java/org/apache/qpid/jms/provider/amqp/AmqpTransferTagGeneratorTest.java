@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.provider.amqp;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AmqpTransferTagGeneratorTest {
+
+    @Test
+    public void testCreateUnpooled() {
+        AmqpTransferTagGenerator tagGen = new AmqpTransferTagGenerator(false);
+
+        byte[] tag1 = tagGen.getNextTag();
+        tagGen.returnTag(tag1);
+        byte[] tag2 = tagGen.getNextTag();
+
+        assertEquals(0, tagGen.getPooledTagCount());
+        assertFalse(Arrays.equals(tag1, tag2));
+    }
+
+    @Test
+    public void testPooledTagsReturnedInOrder() {
+        AmqpTransferTagGenerator tagGen = new AmqpTransferTagGenerator(true);
+
+        List<byte[]> tags = new ArrayList<byte[]>();
+        for (int i = 0; i < 100; ++i) {
+            tags.add(tagGen.getNextTag());
+        }
+
+        for (byte[] tag : tags) {
+            tagGen.returnTag(tag);
+        }
+
+        assertEquals(100, tagGen.getPooledTagCount());
+
+        for (byte[] tag : tags) {
+            assertSame(tag, tagGen.getNextTag());
+        }
+
+        assertEquals(0, tagGen.getPooledTagCount());
+    }
+
+    @Test
+    public void testPoolIsBoundedByMaxPoolSize() {
+        AmqpTransferTagGenerator tagGen = new AmqpTransferTagGenerator(true);
+        tagGen.setMaxPoolSize(10);
+
+        List<byte[]> tags = new ArrayList<byte[]>();
+        for (int i = 0; i < 20; ++i) {
+            tags.add(tagGen.getNextTag());
+        }
+
+        for (byte[] tag : tags) {
+            tagGen.returnTag(tag);
+        }
+
+        assertEquals(10, tagGen.getPooledTagCount());
+    }
+}
@@ -46,6 +46,7 @@ import org.apache.qpid.jms.message.JmsTextMessage;
 import org.apache.qpid.jms.message.facade.JmsMessageFacade;
 import org.apache.qpid.jms.meta.JmsConsumerId;
 import org.apache.qpid.jms.meta.JmsConsumerInfo;
+import org.apache.qpid.jms.provider.amqp.AmqpConnection;
 import org.apache.qpid.jms.provider.amqp.AmqpConsumer;
 import org.apache.qpid.jms.test.QpidJmsTestCase;
 import org.apache.qpid.proton.Proton;
@@ -54,7 +55,9 @@ import org.apache.qpid.proton.amqp.Symbol;
 import org.apache.qpid.proton.amqp.UnsignedInteger;
 import org.apache.qpid.proton.amqp.messaging.AmqpSequence;
 import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
 import org.apache.qpid.proton.amqp.messaging.Data;
+import org.apache.qpid.proton.amqp.messaging.Footer;
 import org.apache.qpid.proton.amqp.messaging.Header;
 import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.message.Message;
@@ -893,4 +896,104 @@ public class AmqpCodecTest extends QpidJmsTestCase {
         AmqpObjectTypeDelegate delegate = ((AmqpJmsObjectMessageFacade) facade).getDelegate();
         assertTrue("Unexpected delegate type: " + delegate, delegate instanceof AmqpTypedObjectDelegate);
     }
+
+    // --------- Pooled encode buffers ---------
+
+    @Test
+    public void testEncodeMessageToPooledBuffer() throws Exception {
+        AmqpJmsTextMessageFacade outbound = new AmqpJmsTextMessageFacade();
+        outbound.initialize(Mockito.mock(AmqpConnection.class));
+        outbound.setText("pooled-encode");
+
+        ByteBuf unpooled = AmqpCodec.encodeMessage(outbound);
+        assertFalse(AmqpCodec.isPooledEncodeBuffer(unpooled));
+
+        ByteBuf pooled = AmqpCodec.encodeMessageToPooledBuffer(outbound, 0);
+        assertTrue(AmqpCodec.isPooledEncodeBuffer(pooled));
+        assertEquals(unpooled, pooled);
+
+        JmsMessage jmsMessage = AmqpCodec.decodeMessage(mockConsumer, pooled.duplicate()).asJmsMessage();
+        assertEquals(JmsTextMessage.class, jmsMessage.getClass());
+        assertEquals("pooled-encode", ((JmsTextMessage) jmsMessage).getText());
+
+        assertTrue(pooled.release());
+    }
+
+    // --------- Lazy decoding of message sections ---------
+
+    @Test
+    public void testLazyDecodeTextMessageSections() throws Exception {
+        Message message = Proton.message();
+        message.setDurable(true);
+
+        Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+        annotations.put(Symbol.valueOf(AmqpMessageSupport.JMS_MSG_TYPE), AmqpMessageSupport.JMS_TEXT_MESSAGE);
+        message.setMessageAnnotations(new MessageAnnotations(annotations));
+
+        Map<String, Object> applicationProperties = new HashMap<String, Object>();
+        applicationProperties.put("property", "value");
+        message.setApplicationProperties(new ApplicationProperties(applicationProperties));
+        message.setMessageId("ID:lazy");
+        message.setBody(new AmqpValue("lazy-text"));
+
+        Map<Symbol, Object> footer = new HashMap<Symbol, Object>();
+        footer.put(Symbol.valueOf("footer"), "value");
+        message.setFooter(new Footer(footer));
+
+        ByteBuf encoded = encodeMessage(message);
+        AmqpJmsMessageFacade facade = AmqpCodec.decodeMessage(createLazyDecodingConsumer(), encoded);
+
+        // The incoming bytes are reused for the next delivery.
+        encoded.setZero(0, encoded.capacity());
+
+        assertEquals(AmqpJmsTextMessageFacade.class, facade.getClass());
+        assertTrue(facade.isPersistent());
+        assertEquals("ID:lazy", facade.getProperties().getMessageId());
+        assertEquals("value", facade.getApplicationProperty("property"));
+        assertEquals("lazy-text", ((AmqpJmsTextMessageFacade) facade).getText());
+        assertEquals("value", facade.getFooter().getValue().get(Symbol.valueOf("footer")));
+    }
+
+    @Test
+    public void testLazyDecodeMapMessageBody() throws Exception {
+        Message message = Proton.message();
+
+        Map<Symbol, Object> annotations = new HashMap<Symbol, Object>();
+        annotations.put(Symbol.valueOf(AmqpMessageSupport.JMS_MSG_TYPE), AmqpMessageSupport.JMS_MAP_MESSAGE);
+        message.setMessageAnnotations(new MessageAnnotations(annotations));
+
+        Map<String, Object> body = new HashMap<String, Object>();
+        body.put("entry", "value");
+        message.setBody(new AmqpValue(body));
+
+        AmqpJmsMessageFacade facade = AmqpCodec.decodeMessage(createLazyDecodingConsumer(), encodeMessage(message));
+
+        assertEquals(AmqpJmsMapMessageFacade.class, facade.getClass());
+        AmqpJmsMapMessageFacade mapFacade = (AmqpJmsMapMessageFacade) facade;
+        assertTrue(mapFacade.hasBody());
+        assertTrue(mapFacade.itemExists("entry"));
+        assertEquals("value", mapFacade.get("entry"));
+    }
+
+    @Test
+    public void testLazyDecodeWithoutTypeAnnotationUsesBody() throws Exception {
+        Message message = Proton.message();
+        message.setBody(new Data(new Binary(new byte[] { 1, 2, 3 })));
+
+        AmqpJmsMessageFacade facade = AmqpCodec.decodeMessage(createLazyDecodingConsumer(), encodeMessage(message));
+
+        assertEquals(AmqpJmsBytesMessageFacade.class, facade.getClass());
+        assertEquals(3, ((AmqpJmsBytesMessageFacade) facade).getBodyLength());
+    }
+
+    private AmqpConsumer createLazyDecodingConsumer() {
+        AmqpConnection connection = Mockito.mock(AmqpConnection.class);
+        Mockito.when(connection.isLazyMessageDecoding()).thenReturn(true);
+
+        AmqpConsumer consumer = Mockito.mock(AmqpConsumer.class);
+        Mockito.when(consumer.getConnection()).thenReturn(connection);
+        Mockito.when(consumer.getResourceInfo()).thenReturn(new JmsConsumerInfo(new JmsConsumerId("ID:MOCK:1", 1, 1)));
+
+        return consumer;
+    }
 }
@@ -16,9 +16,12 @@
  */
 package org.apache.qpid.jms.provider.failover;
 
+import static org.hamcrest.Matchers.allOf;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -26,6 +29,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.net.ServerSocket;
 import java.net.URI;
 import java.util.Enumeration;
 import java.util.concurrent.CountDownLatch;
@@ -65,7 +69,9 @@ import org.apache.qpid.jms.test.testpeer.describedtypes.sections.AmqpValueDescri
 import org.apache.qpid.jms.test.testpeer.matchers.SourceMatcher;
 import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageAnnotationsSectionMatcher;
 import org.apache.qpid.jms.test.testpeer.matchers.sections.MessageHeaderSectionMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.sections.MessagePropertiesSectionMatcher;
 import org.apache.qpid.jms.test.testpeer.matchers.sections.TransferPayloadCompositeMatcher;
+import org.apache.qpid.jms.test.testpeer.matchers.types.EncodedAmqpValueMatcher;
 import org.apache.qpid.jms.util.StopWatch;
 import org.apache.qpid.proton.amqp.Binary;
 import org.apache.qpid.proton.amqp.DescribedType;
@@ -385,6 +391,90 @@ public class FailoverIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testFailoverReplaysPooledSendFailedByRemoteConnectionClose() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer finalPeer = new TestAmqpPeer();) {
+
+            final CountDownLatch originalConnected = new CountDownLatch(1);
+            final CountDownLatch finalConnected = new CountDownLatch(1);
+
+            // Create a peer to connect to, then one to reconnect to
+            final String options = "amqp.pooledEncodeBuffers=true";
+            final String originalURI = createPeerURI(originalPeer, options);
+            final String finalURI = createPeerURI(finalPeer, options);
+
+            LOG.info("Original peer is at: {}", originalURI);
+            LOG.info("Final peer is at: {}", finalURI);
+
+            // Connect to the first peer
+            originalPeer.expectSaslAnonymous();
+            originalPeer.expectOpen();
+            originalPeer.expectBegin();
+
+            final JmsConnection connection = establishAnonymousConnecton(options, (String) null, originalPeer, finalPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionEstablished(URI remoteURI) {
+                    LOG.info("Connection Established: {}", remoteURI);
+                    if (originalURI.equals(remoteURI.toString())) {
+                        originalConnected.countDown();
+                    }
+                }
+
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    LOG.info("Connection Restored: {}", remoteURI);
+                    if (finalURI.equals(remoteURI.toString())) {
+                        finalConnected.countDown();
+                    }
+                }
+            });
+            connection.start();
+
+            assertTrue("Should connect to original peer", originalConnected.await(5, TimeUnit.SECONDS));
+
+            originalPeer.expectBegin();
+            originalPeer.expectSenderAttach();
+
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            Queue queue = session.createQueue("myQueue");
+            MessageProducer producer = session.createProducer(queue);
+
+            originalPeer.waitForAllHandlersToComplete(1000);
+
+            TransferPayloadCompositeMatcher messageMatcher = new TransferPayloadCompositeMatcher();
+            messageMatcher.setHeadersMatcher(new MessageHeaderSectionMatcher(true).withDurable(equalTo(true)));
+            messageMatcher.setMessageAnnotationsMatcher(new MessageAnnotationsSectionMatcher(true));
+            messageMatcher.setPropertiesMatcher(new MessagePropertiesSectionMatcher(true));
+            messageMatcher.setMessageContentMatcher(new EncodedAmqpValueMatcher("pooled"));
+
+            // The final peer gets the same encoded message when the send is replayed.
+            finalPeer.expectSaslAnonymous();
+            finalPeer.expectOpen();
+            finalPeer.expectBegin();
+            finalPeer.expectBegin();
+            finalPeer.expectSenderAttach();
+            finalPeer.expectTransfer(messageMatcher, nullValue(), false, true, new Accepted(), true);
+
+            // Closing the connection with a redirect that carries no details fails the in-flight
+            // send with an error that the failover provider recovers from by sending it again.
+            originalPeer.expectTransfer(messageMatcher, nullValue(), false, false, null, true);
+            originalPeer.remotelyCloseConnection(true, ConnectionError.REDIRECT, "Server is going away");
+
+            producer.send(session.createTextMessage("pooled"));
+
+            assertTrue("Should connect to final peer", finalConnected.await(5, TimeUnit.SECONDS));
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+
+            // Shut it down
+            finalPeer.expectClose();
+            connection.close();
+            finalPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testFailoverHandlesDropWithModifiedInitialReconnectDelay() throws Exception {
         try (TestAmqpPeer originalPeer = new TestAmqpPeer();
@@ -450,6 +540,192 @@ public class FailoverIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testFailoverRecoversAllSessionsBeforeTheirLinks() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer finalPeer = new TestAmqpPeer();) {
+
+            final CountDownLatch originalConnected = new CountDownLatch(1);
+            final CountDownLatch finalConnected = new CountDownLatch(1);
+
+            // Create a peer to connect to, then one to reconnect to
+            final String originalURI = createPeerURI(originalPeer);
+            final String finalURI = createPeerURI(finalPeer);
+
+            LOG.info("Original peer is at: {}", originalURI);
+            LOG.info("Final peer is at: {}", finalURI);
+
+            // Connect to the first peer
+            originalPeer.expectSaslAnonymous();
+            originalPeer.expectOpen();
+            originalPeer.expectBegin();
+
+            final JmsConnection connection = establishAnonymousConnecton(originalPeer, finalPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionEstablished(URI remoteURI) {
+                    LOG.info("Connection Established: {}", remoteURI);
+                    if (originalURI.equals(remoteURI.toString())) {
+                        originalConnected.countDown();
+                    }
+                }
+
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    LOG.info("Connection Restored: {}", remoteURI);
+                    if (finalURI.equals(remoteURI.toString())) {
+                        finalConnected.countDown();
+                    }
+                }
+            });
+            connection.start();
+
+            assertTrue("Should connect to original peer", originalConnected.await(5, TimeUnit.SECONDS));
+
+            // Create two sessions, each with a producer and a consumer
+            for (int i = 0; i < 2; ++i) {
+                originalPeer.expectBegin();
+                Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+                Queue queue = session.createQueue("myQueue" + i);
+
+                originalPeer.expectSenderAttach();
+                session.createProducer(queue);
+
+                originalPeer.expectReceiverAttach();
+                originalPeer.expectLinkFlow();
+                session.createConsumer(queue);
+            }
+
+            originalPeer.waitForAllHandlersToComplete(1000);
+
+            // The sessions are all recovered before any of their links, and the
+            // consumers are only started once every link has been attached.
+            finalPeer.expectSaslAnonymous();
+            finalPeer.expectOpen();
+            finalPeer.expectBegin();
+            finalPeer.expectBegin();
+            finalPeer.expectBegin();
+            finalPeer.expectSenderAttach();
+            finalPeer.expectReceiverAttach();
+            finalPeer.expectSenderAttach();
+            finalPeer.expectReceiverAttach();
+            finalPeer.expectLinkFlow();
+            finalPeer.expectLinkFlow();
+
+            originalPeer.close();
+
+            assertTrue("Should connect to final peer", finalConnected.await(5, TimeUnit.SECONDS));
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+
+            // Shut it down
+            finalPeer.expectClose();
+            connection.close();
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testFailoverRecoversTransactedSessionsWithoutWaitingOnEach() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer finalPeer = new TestAmqpPeer();) {
+
+            final CountDownLatch originalConnected = new CountDownLatch(1);
+            final CountDownLatch finalConnected = new CountDownLatch(1);
+
+            // Create a peer to connect to, then one to reconnect to
+            final String originalURI = createPeerURI(originalPeer);
+            final String finalURI = createPeerURI(finalPeer);
+
+            LOG.info("Original peer is at: {}", originalURI);
+            LOG.info("Final peer is at: {}", finalURI);
+
+            // Connect to the first peer
+            originalPeer.expectSaslAnonymous();
+            originalPeer.expectOpen();
+            originalPeer.expectBegin();
+
+            final JmsConnection connection = establishAnonymousConnecton(originalPeer, finalPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionEstablished(URI remoteURI) {
+                    LOG.info("Connection Established: {}", remoteURI);
+                    if (originalURI.equals(remoteURI.toString())) {
+                        originalConnected.countDown();
+                    }
+                }
+
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    LOG.info("Connection Restored: {}", remoteURI);
+                    if (finalURI.equals(remoteURI.toString())) {
+                        finalConnected.countDown();
+                    }
+                }
+            });
+            connection.start();
+
+            assertTrue("Should connect to original peer", originalConnected.await(5, TimeUnit.SECONDS));
+
+            Binary txnId1 = new Binary(new byte[]{ (byte) 1, (byte) 2, (byte) 3, (byte) 4});
+            Binary txnId2 = new Binary(new byte[]{ (byte) 5, (byte) 6, (byte) 7, (byte) 8});
+
+            // Create two transacted sessions, each with a producer
+            Session[] sessions = new Session[2];
+            for (int i = 0; i < sessions.length; ++i) {
+                originalPeer.expectBegin();
+                originalPeer.expectCoordinatorAttach();
+                originalPeer.expectDeclare(i == 0 ? txnId1 : txnId2);
+                sessions[i] = connection.createSession(true, Session.SESSION_TRANSACTED);
+
+                originalPeer.expectSenderAttach();
+                sessions[i].createProducer(sessions[i].createQueue("myQueue" + i));
+            }
+
+            originalPeer.waitForAllHandlersToComplete(1000);
+
+            // The response to the first coordinator attach is held back until the peer
+            // gets the next frame, so recovery only completes if the second session's
+            // links are attached without waiting for the first session's transaction.
+            finalPeer.expectSaslAnonymous();
+            finalPeer.expectOpen();
+            finalPeer.expectBegin();
+            finalPeer.expectBegin();
+            finalPeer.expectBegin();
+            finalPeer.expectSenderAttach();
+            finalPeer.expectCoordinatorAttach(false, true);
+            finalPeer.expectSenderAttach();
+            finalPeer.expectCoordinatorAttach();
+
+            // The two declares may arrive in either order, so both are given the same id.
+            Binary recoveredTxnId = new Binary(new byte[]{ (byte) 9, (byte) 10, (byte) 11, (byte) 12});
+            finalPeer.expectDeclare(recoveredTxnId);
+            finalPeer.expectDeclare(recoveredTxnId);
+
+            originalPeer.close();
+
+            assertTrue("Should connect to final peer", finalConnected.await(5, TimeUnit.SECONDS));
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+
+            // Each session rolls back its recovered transaction as it closes
+            finalPeer.expectDischarge(recoveredTxnId, true);
+            finalPeer.expectEnd();
+            sessions[0].close();
+
+            finalPeer.expectDischarge(recoveredTxnId, true);
+            finalPeer.expectEnd();
+            sessions[1].close();
+
+            // Shut it down
+            finalPeer.expectClose();
+            connection.close();
+
+            finalPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
     @Test(timeout = 30000)
     public void testFailoverInitialReconnectDelayDoesNotApplyToInitialConnect() throws Exception {
         try (TestAmqpPeer originalPeer = new TestAmqpPeer();) {
@@ -483,6 +759,164 @@ public class FailoverIntegrationTest extends QpidJmsTestCase {
         }
     }
 
+    @Test(timeout = 20000)
+    public void testFailoverToWarmStandbyConnection() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer standbyPeer = new TestAmqpPeer();) {
+
+            final CountDownLatch originalConnected = new CountDownLatch(1);
+            final CountDownLatch standbyConnected = new CountDownLatch(1);
+
+            final String originalURI = createPeerURI(originalPeer);
+            final String standbyURI = createPeerURI(standbyPeer);
+
+            LOG.info("Original peer is at: {}", originalURI);
+            LOG.info("Standby peer is at: {}", standbyURI);
+
+            originalPeer.expectSaslAnonymous();
+            originalPeer.expectOpenWithContainerId(startsWith("ID:active-"));
+            originalPeer.expectBegin();
+
+            // The standby is opened ahead of its use, along with the connection's own session,
+            // under a container-id of its own so that it does not claim the active one's.
+            standbyPeer.expectSaslAnonymous();
+            standbyPeer.expectOpenWithContainerId(allOf(startsWith("ID:"), not(startsWith("ID:active-"))));
+            standbyPeer.expectBegin();
+
+            final JmsConnection connection = establishAnonymousConnecton(
+                "jms.clientIDPrefix=ID:active-&failover.warmStandby=true&failover.maxReconnectAttempts=10", originalPeer, standbyPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionEstablished(URI remoteURI) {
+                    LOG.info("Connection Established: {}", remoteURI);
+                    if (originalURI.equals(remoteURI.toString())) {
+                        originalConnected.countDown();
+                    }
+                }
+
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    LOG.info("Connection Restored: {}", remoteURI);
+                    if (standbyURI.equals(remoteURI.toString())) {
+                        standbyConnected.countDown();
+                    }
+                }
+            });
+            connection.start();
+
+            assertTrue("Should connect to original peer", originalConnected.await(5, TimeUnit.SECONDS));
+            standbyPeer.waitForAllHandlersToComplete(5000);
+
+            // --- Post Failover Expectations of the standby peer, no new SASL or open --- //
+
+            standbyPeer.expectBegin();
+
+            originalPeer.expectBegin();
+            originalPeer.dropAfterLastHandler(200);
+
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            assertTrue("Should fail over to standby peer", standbyConnected.await(5, TimeUnit.SECONDS));
+
+            standbyPeer.waitForAllHandlersToComplete(2000);
+
+            standbyPeer.expectClose();
+            connection.close();
+
+            standbyPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testWarmStandbyWithExplicitClientIdIsOpenedOnFailover() throws Exception {
+        try (TestAmqpPeer originalPeer = new TestAmqpPeer();
+             TestAmqpPeer standbyPeer = new TestAmqpPeer();) {
+
+            final CountDownLatch standbyConnected = new CountDownLatch(1);
+
+            final String originalURI = createPeerURI(originalPeer);
+            final String standbyURI = createPeerURI(standbyPeer);
+
+            LOG.info("Original peer is at: {}", originalURI);
+            LOG.info("Standby peer is at: {}", standbyURI);
+
+            originalPeer.expectSaslAnonymous();
+            originalPeer.expectOpenWithContainerId(equalTo("myClientId"));
+            originalPeer.expectBegin();
+
+            // The client ID is held by the active connection so the standby is not opened.
+            standbyPeer.expectSaslAnonymous();
+
+            // With the client ID set the connection is opened before it is returned.
+            final JmsConnection connection = establishAnonymousConnecton(
+                "jms.clientID=myClientId&failover.warmStandby=true&failover.maxReconnectAttempts=10", originalPeer, standbyPeer);
+            connection.addConnectionListener(new JmsDefaultConnectionListener() {
+                @Override
+                public void onConnectionRestored(URI remoteURI) {
+                    LOG.info("Connection Restored: {}", remoteURI);
+                    if (standbyURI.equals(remoteURI.toString())) {
+                        standbyConnected.countDown();
+                    }
+                }
+            });
+            connection.start();
+
+            originalPeer.waitForAllHandlersToComplete(1000);
+            standbyPeer.waitForAllHandlersToComplete(5000);
+
+            // Allow time for an open of the standby, which must not be sent, to reach the peer.
+            Thread.sleep(200);
+
+            // --- Post Failover Expectations of the standby peer, opened with the client ID --- //
+
+            standbyPeer.expectOpenWithContainerId(equalTo("myClientId"));
+            standbyPeer.expectBegin();
+            standbyPeer.expectBegin();
+
+            originalPeer.expectBegin();
+            originalPeer.dropAfterLastHandler(200);
+
+            connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+
+            assertTrue("Should fail over to standby peer", standbyConnected.await(5, TimeUnit.SECONDS));
+
+            standbyPeer.waitForAllHandlersToComplete(2000);
+
+            standbyPeer.expectClose();
+            connection.close();
+
+            standbyPeer.waitForAllHandlersToComplete(1000);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testParallelConnectUsesPeerThatResponds() throws Exception {
+        // The silent peer accepts the TCP connection but never answers the AMQP header.
+        try (ServerSocket silentPeer = new ServerSocket(0);
+             TestAmqpPeer livePeer = new TestAmqpPeer();) {
+
+            livePeer.expectSaslAnonymous();
+            livePeer.expectOpen();
+            livePeer.expectBegin();
+
+            String remoteURI = "failover:(amqp://localhost:" + silentPeer.getLocalPort() + "," + createPeerURI(livePeer) + ")" +
+                               "?failover.parallelConnectAttempts=2&failover.parallelConnectDelay=50&failover.maxReconnectAttempts=2";
+
+            StopWatch watch = new StopWatch();
+
+            JmsConnection connection = (JmsConnection) new JmsConnectionFactory(remoteURI).createConnection();
+            connection.start();
+
+            long taken = watch.taken();
+            assertTrue("Connection should not have waited on the silent peer: " + taken, taken < 5000);
+
+            livePeer.expectClose();
+            connection.close();
+
+            livePeer.waitForAllHandlersToComplete(2000);
+        }
+    }
+
     @Test(timeout = 20000)
     public void testFailoverHandlesDropZeroPrefetchPullConsumerReceiveNoWait() throws Exception {
         try (TestAmqpPeer originalPeer = new TestAmqpPeer();
@@ -32,6 +32,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.jms.Connection;
 import javax.jms.Destination;
@@ -44,9 +45,12 @@ import org.apache.qpid.jms.JmsConnectionFactory;
 import org.apache.qpid.jms.meta.JmsConnectionInfo;
 import org.apache.qpid.jms.meta.JmsConsumerInfo;
 import org.apache.qpid.jms.meta.JmsProducerInfo;
+import org.apache.qpid.jms.meta.JmsResource;
 import org.apache.qpid.jms.meta.JmsSessionInfo;
 import org.apache.qpid.jms.provider.DefaultProviderListener;
 import org.apache.qpid.jms.provider.ProviderFuture;
+import org.apache.qpid.jms.provider.mock.MockProvider;
+import org.apache.qpid.jms.provider.mock.ResourceLifecycleFilter;
 import org.apache.qpid.jms.test.Wait;
 import org.junit.After;
 import org.junit.Before;
@@ -254,6 +258,32 @@ public class FailoverProviderTest extends FailoverProviderTestSupport {
         assertEquals(5, mockPeer.getContextStats().getCloseAttempts());
     }
 
+    @Test(timeout = 30000)
+    public void testMaxReconnectAttemptsWithParallelConnect() throws Exception {
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://localhost1?mock.failOnConnect=true,mock://localhost2?mock.failOnConnect=true)" +
+            "?failover.maxReconnectAttempts=5" +
+            "&failover.parallelConnectAttempts=2" +
+            "&failover.useReconnectBackOff=false");
+
+        Connection connection = null;
+        try {
+            connection = factory.createConnection();
+            connection.start();
+            fail("Should have stopped after five attempts.");
+        } catch (JMSException ex) {
+        } finally {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+
+        // Each URI raced counts as an attempt, the last race is cut down to the one remaining.
+        assertEquals(5, mockPeer.getContextStats().getProvidersCreated());
+        assertEquals(5, mockPeer.getContextStats().getConnectionAttempts());
+        assertEquals(5, mockPeer.getContextStats().getCloseAttempts());
+    }
+
     @Test(timeout = 30000)
     public void testMaxReconnectAttemptsWithBackOff() throws Exception {
         JmsConnectionFactory factory = new JmsConnectionFactory(
@@ -280,6 +310,158 @@ public class FailoverProviderTest extends FailoverProviderTestSupport {
         assertEquals(5, mockPeer.getContextStats().getCloseAttempts());
     }
 
+    @Test(timeout = 30000)
+    public void testWarmStandbyStopsAfterMaxAttempts() throws Exception {
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://localhost1,mock://localhost2?mock.failOnConnect=true)" +
+            "?failover.randomize=false" +
+            "&failover.warmStandby=true" +
+            "&failover.warmStandbyMaxAttempts=3" +
+            "&failover.maxReconnectDelay=10");
+
+        Connection connection = factory.createConnection();
+        connection.start();
+
+        assertTrue("Should have tried the standby three times", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return mockPeer.getContextStats().getConnectionAttempts() == 4;
+            }
+        }, 5000, 10));
+
+        // Give further standby attempts a chance to show up.
+        Thread.sleep(100);
+
+        assertEquals(4, mockPeer.getContextStats().getProvidersCreated());
+        assertEquals(4, mockPeer.getContextStats().getConnectionAttempts());
+
+        connection.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testWarmStandbyIsOpenedOnTheNextUriInRotation() throws Exception {
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://localhost1,mock://localhost2?mock.failOnConnect=true,mock://localhost3)" +
+            "?failover.randomize=false" +
+            "&failover.warmStandby=true" +
+            "&failover.maxReconnectDelay=10");
+
+        Connection connection = factory.createConnection();
+        connection.start();
+
+        // The standby to localhost2 fails, the next one goes on to localhost3 in the pool's
+        // rotation instead of trying localhost2 again.
+        assertTrue("Should have opened a standby connection", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return mockPeer.getContextStats().getCreateResourceCalls() == 2;
+            }
+        }, 5000, 10));
+
+        assertEquals(3, mockPeer.getContextStats().getConnectionAttempts());
+        assertEquals("localhost3", mockPeer.getLastRegistered().getRemoteURI().getHost());
+
+        connection.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testWarmStandbyThatOpenedIsAlwaysReplaced() throws Exception {
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://localhost1,mock://localhost2)" +
+            "?failover.randomize=false" +
+            "&failover.warmStandby=true" +
+            "&failover.warmStandbyMaxAttempts=1" +
+            "&failover.reconnectDelay=10");
+
+        Connection connection = factory.createConnection();
+        connection.start();
+
+        for (int i = 1; i <= 3; ++i) {
+            final int expected = i + 1;
+            assertTrue("Should have opened standby connection " + i, Wait.waitFor(new Wait.Condition() {
+
+                @Override
+                public boolean isSatisified() throws Exception {
+                    return mockPeer.getContextStats().getCreateResourceCalls() == expected;
+                }
+            }, 5000, 10));
+
+            // The standby is the last provider to connect, drop it.
+            mockPeer.getLastRegistered().signalConnectionFailed();
+        }
+
+        assertTrue("Should have replaced the dropped standby", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return mockPeer.getContextStats().getCreateResourceCalls() == 5;
+            }
+        }, 5000, 10));
+
+        connection.close();
+    }
+
+    @Test(timeout = 30000)
+    public void testWarmStandbyOpenedBeforeClientIdWasSetIsNotPromoted() throws Exception {
+        final AtomicInteger clientIdOpens = new AtomicInteger();
+        mockPeer.setResourceCreateFilter(new ResourceLifecycleFilter() {
+
+            @Override
+            public void onLifecycleEvent(JmsResource resource) throws Exception {
+                if (resource instanceof JmsConnectionInfo &&
+                    "myClientId".equals(((JmsConnectionInfo) resource).getClientId())) {
+                    clientIdOpens.incrementAndGet();
+                }
+            }
+        });
+
+        JmsConnectionFactory factory = new JmsConnectionFactory(
+            "failover:(mock://localhost1,mock://localhost2)" +
+            "?failover.randomize=false" +
+            "&failover.warmStandby=true" +
+            "&failover.reconnectDelay=10");
+
+        // The standby is opened while the connection still waits for its client ID.
+        Connection connection = factory.createConnection();
+
+        assertTrue("Should have opened a standby connection", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return mockPeer.getContextStats().getCreateResourceCalls() == 1;
+            }
+        }, 5000, 10));
+
+        final MockProvider standby = mockPeer.getLastRegistered();
+
+        connection.setClientID("myClientId");
+        assertEquals(1, clientIdOpens.get());
+
+        mockPeer.getProvider(new URI("mock://localhost1")).signalConnectionFailed();
+
+        // The standby's open does not carry the client ID, so it is closed and a new
+        // connection is opened instead.
+        assertTrue("Should have closed the standby connection", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return mockPeer.getProvider(standby.getProviderId()) == null;
+            }
+        }, 5000, 10));
+
+        assertTrue("Should have reopened the connection with the client ID", Wait.waitFor(new Wait.Condition() {
+
+            @Override
+            public boolean isSatisified() throws Exception {
+                return clientIdOpens.get() == 2;
+            }
+        }, 5000, 10));
+
+        connection.close();
+    }
+
     @Test(timeout = 30000)
     public void testFailureOnCloseIsSwallowed() throws Exception {
         JmsConnectionFactory factory = new JmsConnectionFactory(
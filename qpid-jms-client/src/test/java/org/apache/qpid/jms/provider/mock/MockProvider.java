@@ -283,7 +283,9 @@ public class MockProvider implements Provider {
                     }
 
                     // Put the message back to usable state following send complete
-                    envelope.getMessage().onSendComplete();
+                    if (!envelope.isMessageDetached()) {
+                        envelope.getMessage().onSendComplete();
+                    }
 
                     request.onSuccess();
                     if (envelope.isCompletionRequired()) {
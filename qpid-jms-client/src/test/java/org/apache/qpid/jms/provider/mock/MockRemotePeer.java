@@ -17,6 +17,7 @@
 package org.apache.qpid.jms.provider.mock;
 
 import java.io.IOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -137,6 +138,16 @@ public class MockRemotePeer {
         return activeProviders.get(providerId);
     }
 
+    public MockProvider getProvider(URI remoteURI) {
+        for (MockProvider provider : activeProviders.values()) {
+            if (provider.getRemoteURI().equals(remoteURI)) {
+                return provider;
+            }
+        }
+
+        return null;
+    }
+
     public MockProvider getLastRegistered() {
         return lastRegistered;
     }
@@ -593,9 +593,22 @@ public class TestAmqpPeer implements AutoCloseable
         expectOpen(desiredCapabilities, serverCapabilities, null, serverProperties, null, null, false);
     }
 
+    public void expectOpenWithContainerId(Matcher<?> containerIdMatcher) {
+        expectOpen(new Symbol[] { AmqpSupport.SOLE_CONNECTION_CAPABILITY }, new Symbol[] { AmqpSupport.SOLE_CONNECTION_CAPABILITY },
+                   null, null, null, null, containerIdMatcher, false);
+    }
+
     public void expectOpen(Symbol[] desiredCapabilities, Symbol[] serverCapabilities,
                            Matcher<?> clientPropertiesMatcher, Map<Symbol, Object> serverProperties,
                            Matcher<?> idleTimeoutMatcher, Matcher<?> hostnameMatcher, boolean deferOpened) {
+        expectOpen(desiredCapabilities, serverCapabilities, clientPropertiesMatcher, serverProperties,
+                   idleTimeoutMatcher, hostnameMatcher, notNullValue(String.class), deferOpened);
+    }
+
+    private void expectOpen(Symbol[] desiredCapabilities, Symbol[] serverCapabilities,
+                            Matcher<?> clientPropertiesMatcher, Map<Symbol, Object> serverProperties,
+                            Matcher<?> idleTimeoutMatcher, Matcher<?> hostnameMatcher,
+                            Matcher<?> containerIdMatcher, boolean deferOpened) {
 
         OpenFrame open = createOpenFrame();
         if (serverCapabilities != null) {
@@ -606,7 +619,7 @@ public class TestAmqpPeer implements AutoCloseable
             open.setProperties(serverProperties);
         }
 
-        OpenMatcher openMatcher = new OpenMatcher().withContainerId(notNullValue(String.class));
+        OpenMatcher openMatcher = new OpenMatcher().withContainerId(containerIdMatcher);
         if (!deferOpened) {
             openMatcher.onCompletion(new FrameSender(this, FrameType.AMQP, 0, open, null));
         }
@@ -40,6 +40,7 @@ import org.slf4j.LoggerFactory;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
 
 /**
  * Test basic functionality of the Netty based TCP transport.
@@ -222,6 +223,78 @@ public class NettyTcpTransportTest extends QpidJmsTestCase {
         assertTrue(data.isEmpty());
     }
 
+    @Test(timeout = 60 * 1000)
+    public void testMultipleConnectionsShareEventLoopGroup() throws Exception {
+        final int CONNECTION_COUNT = 10;
+        final int SHARED_THREADS = 2;
+
+        try (NettyEchoServer server = createEchoServer(createServerOptions())) {
+            server.start();
+
+            int port = server.getServerPort();
+            URI serverLocation = new URI("tcp://localhost:" + port);
+
+            List<Transport> transports = new ArrayList<Transport>();
+
+            for (int i = 0; i < CONNECTION_COUNT; ++i) {
+                TransportOptions options = createClientOptions();
+                options.setSharedEventLoopThreads(SHARED_THREADS);
+
+                Transport transport = createTransport(serverLocation, testListener, options);
+                try {
+                    transport.connect(null);
+                    assertTrue(transport.isConnected());
+                    transports.add(transport);
+                } catch (Exception e) {
+                    fail("Should have connected to the server at " + serverLocation + " but got exception: " + e);
+                }
+            }
+
+            assertEquals(CONNECTION_COUNT, SharedEventLoopGroup.getReferenceCount(false, SHARED_THREADS));
+
+            for (Transport transport : transports) {
+                transport.close();
+            }
+
+            assertEquals(0, SharedEventLoopGroup.getReferenceCount(false, SHARED_THREADS));
+        }
+
+        assertTrue(!transportClosed);  // Normal shutdown does not trigger the event.
+        assertTrue(exceptions.isEmpty());
+        assertTrue(data.isEmpty());
+    }
+
+    @Test(timeout = 60 * 1000)
+    public void testConnectToServerWithEpollEnabled() throws Exception {
+        try (NettyEchoServer server = createEchoServer(createServerOptions())) {
+            server.start();
+
+            int port = server.getServerPort();
+            URI serverLocation = new URI("tcp://localhost:" + port);
+
+            TransportOptions options = createClientOptions();
+            options.setUseEpoll(true);
+
+            // Falls back to NIO when the native library is not available.
+            Transport transport = createTransport(serverLocation, testListener, options);
+            try {
+                transport.connect(null);
+                LOG.info("Connected to server:{} as expected.", serverLocation);
+            } catch (Exception e) {
+                fail("Should have connected to the server at " + serverLocation + " but got exception: " + e);
+            }
+
+            assertTrue(transport.isConnected());
+            assertEquals(serverLocation, transport.getRemoteLocation());
+
+            transport.close();
+        }
+
+        assertTrue(!transportClosed);  // Normal shutdown does not trigger the event.
+        assertTrue(exceptions.isEmpty());
+        assertTrue(data.isEmpty());
+    }
+
     @Test(timeout = 60 * 1000)
     public void testMultipleConnectionsSendReceive() throws Exception {
         final int CONNECTION_COUNT = 10;
@@ -379,6 +452,102 @@ public class NettyTcpTransportTest extends QpidJmsTestCase {
         assertTrue(exceptions.isEmpty());
     }
 
+    @Test(timeout = 60 * 1000)
+    public void testSendBufferIsDirectAndReleasedAfterWrite() throws Exception {
+        try (NettyEchoServer server = createEchoServer(createServerOptions())) {
+            server.start();
+
+            int port = server.getServerPort();
+            URI serverLocation = new URI("tcp://localhost:" + port);
+
+            Transport transport = createTransport(serverLocation, testListener, createClientOptions());
+            try {
+                transport.connect(null);
+                LOG.info("Connected to server:{} as expected.", serverLocation);
+            } catch (Exception e) {
+                fail("Should have connected to the server at " + serverLocation + " but got exception: " + e);
+            }
+
+            assertTrue(transport.isConnected());
+
+            final ByteBuf sendBuffer = transport.allocateSendBuffer(SEND_BYTE_COUNT);
+            assertEquals(PlatformDependent.hasUnsafe(), sendBuffer.isDirect());
+            for (int i = 0; i < SEND_BYTE_COUNT; ++i) {
+                sendBuffer.writeByte('A');
+            }
+
+            transport.send(sendBuffer);
+
+            assertTrue(Wait.waitFor(new Wait.Condition() {
+
+                @Override
+                public boolean isSatisified() throws Exception {
+                    return !data.isEmpty();
+                }
+            }));
+
+            assertEquals(SEND_BYTE_COUNT, data.get(0).readableBytes());
+            assertTrue("Send buffer should be released once written", Wait.waitFor(new Wait.Condition() {
+
+                @Override
+                public boolean isSatisified() throws Exception {
+                    return sendBuffer.refCnt() == 0;
+                }
+            }));
+
+            transport.close();
+        }
+
+        assertTrue(!transportClosed);  // Normal shutdown does not trigger the event.
+        assertTrue(exceptions.isEmpty());
+    }
+
+    @Test(timeout = 60 * 1000)
+    public void testDataWrittenIsReceivedAfterFlush() throws Exception {
+        final int WRITE_COUNT = 10;
+
+        try (NettyEchoServer server = createEchoServer(createServerOptions())) {
+            server.start();
+
+            int port = server.getServerPort();
+            URI serverLocation = new URI("tcp://localhost:" + port);
+
+            Transport transport = createTransport(serverLocation, testListener, createClientOptions());
+            try {
+                transport.connect(null);
+                LOG.info("Connected to server:{} as expected.", serverLocation);
+            } catch (Exception e) {
+                fail("Should have connected to the server at " + serverLocation + " but got exception: " + e);
+            }
+
+            assertTrue(transport.isConnected());
+
+            for (int i = 0; i < WRITE_COUNT; ++i) {
+                ByteBuf writeBuffer = transport.allocateSendBuffer(SEND_BYTE_COUNT);
+                for (int j = 0; j < SEND_BYTE_COUNT; ++j) {
+                    writeBuffer.writeByte('A');
+                }
+
+                transport.write(writeBuffer);
+            }
+
+            transport.flush();
+
+            assertTrue(Wait.waitFor(new Wait.Condition() {
+
+                @Override
+                public boolean isSatisified() throws Exception {
+                    return bytesRead.get() == SEND_BYTE_COUNT * WRITE_COUNT;
+                }
+            }));
+
+            transport.close();
+        }
+
+        assertTrue(!transportClosed);  // Normal shutdown does not trigger the event.
+        assertTrue(exceptions.isEmpty());
+    }
+
     @Test(timeout = 60 * 1000)
     public void testMultipleDataPacketsSentAreReceived() throws Exception {
         doMultipleDataPacketsSentAndReceive(SEND_BYTE_COUNT, 1);
@@ -0,0 +1,168 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.qpid.jms.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.qpid.jms.test.QpidJmsTestCase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test for the TimeoutWheel support class.
+ */
+public class TimeoutWheelTest extends QpidJmsTestCase {
+
+    private ScheduledExecutorService executor;
+    private TimeoutWheel wheel;
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        executor = new ScheduledThreadPoolExecutor(1);
+        wheel = new TimeoutWheel(executor, 5, 8);
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        ThreadPoolUtils.shutdownNow(executor);
+        super.tearDown();
+    }
+
+    @Test(timeout=10000)
+    public void testTimeoutFiresAfterDelay() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final long start = System.nanoTime();
+
+        schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                fired.countDown();
+            }
+        }, 50);
+
+        assertTrue("Timeout should have fired", fired.await(5, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test(timeout=10000)
+    public void testCancelledTimeoutDoesNotFire() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+        final CountDownLatch other = new CountDownLatch(1);
+
+        ScheduledFuture<?> timeout = schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                fired.countDown();
+            }
+        }, 20);
+
+        assertTrue(timeout.cancel(false));
+        assertTrue(timeout.isCancelled());
+
+        schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                other.countDown();
+            }
+        }, 40);
+
+        assertTrue("Later timeout should have fired", other.await(5, TimeUnit.SECONDS));
+        assertFalse("Cancelled timeout should not have fired", fired.await(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test(timeout=10000)
+    public void testTimeoutsLongerThanOneTurnOfTheWheel() throws Exception {
+        final List<Integer> order = Collections.synchronizedList(new ArrayList<Integer>());
+        final CountDownLatch fired = new CountDownLatch(3);
+
+        // The wheel covers 40ms per turn, each of these lands in the same bucket.
+        for (final int delay : new int[] { 90, 10, 50 }) {
+            schedule(new Runnable() {
+
+                @Override
+                public void run() {
+                    order.add(delay);
+                    fired.countDown();
+                }
+            }, delay);
+        }
+
+        assertTrue("All timeouts should have fired", fired.await(5, TimeUnit.SECONDS));
+        assertEquals(10, order.get(0).intValue());
+        assertEquals(50, order.get(1).intValue());
+        assertEquals(90, order.get(2).intValue());
+    }
+
+    @Test(timeout=10000)
+    public void testWheelEmptiesAfterTimeoutsExpire() throws Exception {
+        final CountDownLatch fired = new CountDownLatch(1);
+
+        ScheduledFuture<?> cancelled = schedule(new Runnable() {
+
+            @Override
+            public void run() {
+            }
+        }, 10);
+        cancelled.cancel(false);
+
+        schedule(new Runnable() {
+
+            @Override
+            public void run() {
+                fired.countDown();
+            }
+        }, 20);
+
+        assertTrue(fired.await(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.submit(new Callable<Integer>() {
+
+            @Override
+            public Integer call() throws Exception {
+                return wheel.size();
+            }
+        }).get().intValue());
+    }
+
+    private ScheduledFuture<?> schedule(final Runnable task, final long delay) throws Exception {
+        return executor.submit(new Callable<ScheduledFuture<?>>() {
+
+            @Override
+            public ScheduledFuture<?> call() throws Exception {
+                return wheel.schedule(task, delay);
+            }
+        }).get();
+    }
+}